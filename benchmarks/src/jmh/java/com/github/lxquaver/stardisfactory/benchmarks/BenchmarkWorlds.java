@@ -0,0 +1,139 @@
+package com.github.lxquaver.stardisfactory.benchmarks;
+
+import com.github.lxquaver.stardisfactory.Building;
+import com.github.lxquaver.stardisfactory.FactoryEngine;
+import com.github.lxquaver.stardisfactory.GameSave;
+import com.github.lxquaver.stardisfactory.SimulationClock;
+
+import java.util.Random;
+
+/**
+ * Mondes synthetiques partages par les suites de benchmarks.
+ */
+final class BenchmarkWorlds {
+
+    /**
+     * Pas fixe de la simulation du jeu.
+     */
+    static final float STEP = 1f / SimulationClock.TICKS_PER_SECOND;
+
+    /**
+     * Largeur d'un anneau de convoyeurs (2 x RING_WIDTH cases par anneau).
+     */
+    private static final int RING_WIDTH = 50;
+
+    private static final Building.PlanterCrop[] GROWN_CROPS = {
+        Building.PlanterCrop.POTATO, Building.PlanterCrop.STRAWBERRY, Building.PlanterCrop.LEEK
+    };
+
+    private BenchmarkWorlds() {
+    }
+
+    /**
+     * Anneaux fermes de convoyeurs empiles, charges a deux items par case.
+     * Les items tournent indefiniment: le reseau ne s'endort jamais et chaque tick fait un travail constant.
+     */
+    static FactoryEngine conveyorRings(int tiles) {
+        FactoryEngine engine = new FactoryEngine();
+        addConveyorRings(engine, tiles, 0, 0);
+        engine.getConveyorNetwork().rebuild(engine.getBuildings(), engine.getBuildingGrid());
+        return engine;
+    }
+
+    /**
+     * Pose des anneaux de convoyeurs charges a partir du coin (originX, originY), vers le haut.
+     */
+    private static void addConveyorRings(FactoryEngine engine, int tiles, int originX, int originY) {
+        int rings = Math.max(1, tiles / (2 * RING_WIDTH));
+        for (int r = 0; r < rings; r++) {
+            int y = originY + 2 * r;
+            for (int i = 0; i < RING_WIDTH; i++) {
+                addLoadedConveyor(engine, originX + i, y, i == RING_WIDTH - 1 ? 0 : 1);
+                addLoadedConveyor(engine, originX + i, y + 1, i == 0 ? 2 : 3);
+            }
+        }
+    }
+
+    /**
+     * Pose un convoyeur portant deux pommes de terre.
+     */
+    private static void addLoadedConveyor(FactoryEngine engine, int x, int y, int rotation) {
+        Building conveyor = new Building(Building.Type.CONVEYOR_BELT, x, y, rotation);
+        conveyor.setLaneState(
+            new Building.PlanterCrop[]{Building.PlanterCrop.POTATO, Building.PlanterCrop.POTATO},
+            new int[]{1, 1},
+            new float[]{0.75f, 0.25f});
+        engine.addBuilding(conveyor);
+    }
+
+    /**
+     * Batiments 1x1 (jardinieres et convoyeurs) disperses aleatoirement sur un carre d'environ 4 cases par batiment.
+     */
+    static FactoryEngine scatteredBuildings(int count, long seed) {
+        FactoryEngine engine = new FactoryEngine();
+        Random random = new Random(seed);
+        int side = getScatterSide(count);
+        int placed = 0;
+        while (placed < count) {
+            int x = random.nextInt(side);
+            int y = random.nextInt(side);
+            if (!engine.getBuildingGrid().isAreaFree(x, y, 1, 1)) continue;
+            Building.Type type = random.nextBoolean() ? Building.Type.PLANTER : Building.Type.CONVEYOR_BELT;
+            engine.addBuilding(new Building(type, x, y, random.nextInt(4)));
+            placed++;
+        }
+        return engine;
+    }
+
+    /**
+     * Cote du carre utilise par scatteredBuildings.
+     */
+    static int getScatterSide(int count) {
+        return Math.max(8, (int) Math.ceil(Math.sqrt(count * 4.0)));
+    }
+
+    /**
+     * Champ de jardinieres plantees, a des stades de croissance aleatoires.
+     */
+    static FactoryEngine planterField(int count, long seed) {
+        FactoryEngine engine = new FactoryEngine();
+        addPlanterField(engine, count, seed, 0, 0);
+        return engine;
+    }
+
+    /**
+     * Pose un champ carre de jardinieres plantees a partir du coin (originX, originY).
+     */
+    private static void addPlanterField(FactoryEngine engine, int count, long seed, int originX, int originY) {
+        Random random = new Random(seed);
+        int side = (int) Math.ceil(Math.sqrt(count));
+        for (int i = 0; i < count; i++) {
+            int x = originX + i % side;
+            int y = originY + i / side;
+            engine.getTerrainGrid().till(x, y);
+            Building planter = new Building(Building.Type.PLANTER, x, y, 0);
+            Building.PlanterCrop crop = GROWN_CROPS[random.nextInt(GROWN_CROPS.length)];
+            planter.setPlanterState(crop, random.nextFloat() * 30f, false);
+            engine.addBuilding(planter);
+        }
+    }
+
+    /**
+     * Sauvegarde d'une grosse usine: moitie jardinieres sur terre labouree, moitie anneaux de convoyeurs charges.
+     */
+    static GameSave syntheticSave(int buildings, long seed) {
+        // Usine en x negatifs (anneaux sous le champ), a l'ecart du QG et de l'hotel des ventes.
+        int planters = buildings / 2;
+        int side = (int) Math.ceil(Math.sqrt(planters));
+        FactoryEngine engine = new FactoryEngine();
+        addPlanterField(engine, planters, seed, -side - 8, 0);
+        int conveyors = buildings - planters;
+        int rings = Math.max(1, conveyors / (2 * RING_WIDTH));
+        addConveyorRings(engine, conveyors, -RING_WIDTH - 8, -2 * rings - 8);
+        engine.ensureCoreBuildings();
+
+        GameSave save = new GameSave();
+        engine.writeTo(save);
+        return save;
+    }
+}
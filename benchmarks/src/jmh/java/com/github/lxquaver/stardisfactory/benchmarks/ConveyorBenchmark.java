@@ -0,0 +1,64 @@
+package com.github.lxquaver.stardisfactory.benchmarks;
+
+import com.github.lxquaver.stardisfactory.FactoryEngine;
+import com.github.lxquaver.stardisfactory.WorldSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cout d'un tick du reseau de convoyeurs et de la preparation du rendu, sur des anneaux toujours en mouvement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConveyorBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int tiles;
+
+    private FactoryEngine engine;
+    private WorldSnapshot snapshot;
+    private long tick;
+
+    /**
+     * Construit les anneaux et un snapshot deja dimensionne.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = BenchmarkWorlds.conveyorRings(tiles);
+        snapshot = new WorldSnapshot();
+        engine.capture(snapshot, 0L);
+    }
+
+    /**
+     * Un pas fixe du reseau: avance des troncons, depot au QG et alimentation.
+     */
+    @Benchmark
+    public void updateConveyors() {
+        engine.getConveyorNetwork().update(engine.getBuildings(), engine.getBuildingGrid(), BenchmarkWorlds.STEP);
+    }
+
+    /**
+     * Preparation du rendu: copie dans le snapshot des cases des troncons actifs (les anneaux ne s'endorment jamais).
+     */
+    @Benchmark
+    public WorldSnapshot captureSnapshot() {
+        engine.capture(snapshot, ++tick);
+        return snapshot;
+    }
+}
@@ -0,0 +1,96 @@
+package com.github.lxquaver.stardisfactory.benchmarks;
+
+import com.github.lxquaver.stardisfactory.Building;
+import com.github.lxquaver.stardisfactory.BuildingGrid;
+import com.github.lxquaver.stardisfactory.FactoryEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recherche du batiment couvrant une case et verification de pose, sur des cases tirees au hasard.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupBenchmark {
+
+    /**
+     * Nombre de cases sondees (puissance de deux).
+     */
+    private static final int PROBES = 4096;
+
+    @Param({"1000", "100000"})
+    public int buildings;
+
+    private FactoryEngine engine;
+    private BuildingGrid grid;
+    private final int[] probeX = new int[PROBES];
+    private final int[] probeY = new int[PROBES];
+    private int cursor;
+
+    /**
+     * Disperse les batiments et tire les cases sondees dans la meme zone.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = BenchmarkWorlds.scatteredBuildings(buildings, 42L);
+        grid = engine.getBuildingGrid();
+        Random random = new Random(7L);
+        int side = BenchmarkWorlds.getScatterSide(buildings);
+        for (int i = 0; i < PROBES; i++) {
+            probeX[i] = random.nextInt(side);
+            probeY[i] = random.nextInt(side);
+        }
+    }
+
+    /**
+     * Indice de la prochaine case sondee.
+     */
+    private int next() {
+        cursor = (cursor + 1) & (PROBES - 1);
+        return cursor;
+    }
+
+    /**
+     * Batiment couvrant une case (ex-getBuildingCoveringGridCell).
+     */
+    @Benchmark
+    public Building getCovering() {
+        int i = next();
+        return grid.getCovering(probeX[i], probeY[i]);
+    }
+
+    /**
+     * Regles de pose d'un convoyeur (une case).
+     */
+    @Benchmark
+    public boolean canPlaceConveyor() {
+        int i = next();
+        return engine.canPlaceBuilding(Building.Type.CONVEYOR_BELT, probeX[i], probeY[i]);
+    }
+
+    /**
+     * Regles de pose d'un QG (emprise 4x4).
+     */
+    @Benchmark
+    public boolean canPlaceHQ() {
+        int i = next();
+        return engine.canPlaceBuilding(Building.Type.MAIN_HQ, probeX[i], probeY[i]);
+    }
+}
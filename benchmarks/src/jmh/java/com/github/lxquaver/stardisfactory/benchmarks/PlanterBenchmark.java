@@ -0,0 +1,70 @@
+package com.github.lxquaver.stardisfactory.benchmarks;
+
+import com.github.lxquaver.stardisfactory.Building;
+import com.github.lxquaver.stardisfactory.BuildingStore;
+import com.github.lxquaver.stardisfactory.FactoryEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Croissance des jardinieres: tick de l'horloge de croissance et cycle recolte/replantation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlanterBenchmark {
+
+    @Param({"1000", "100000"})
+    public int planters;
+
+    private BuildingStore store;
+    private List<Building> buildings;
+    private int cursor;
+
+    /**
+     * Plante le champ a des stades de croissance aleatoires.
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        FactoryEngine engine = BenchmarkWorlds.planterField(planters, 42L);
+        store = engine.getBuildingStore();
+        buildings = engine.getBuildings();
+    }
+
+    /**
+     * Un pas fixe de croissance de toutes les jardinieres.
+     */
+    @Benchmark
+    public void tickPlanters() {
+        store.tickPlanters(BenchmarkWorlds.STEP);
+    }
+
+    /**
+     * Recolte puis replante une jardiniere (reprogrammation de son echeance), puis un pas de croissance.
+     */
+    @Benchmark
+    public void harvestReplantAndTick() {
+        Building planter = buildings.get(cursor);
+        cursor = cursor + 1 == buildings.size() ? 0 : cursor + 1;
+        Building.PlanterCrop crop = planter.getPlanterCrop();
+        planter.harvest();
+        planter.plant(crop == Building.PlanterCrop.NONE ? Building.PlanterCrop.POTATO : crop);
+        store.tickPlanters(BenchmarkWorlds.STEP);
+    }
+}
@@ -0,0 +1,125 @@
+package com.github.lxquaver.stardisfactory.benchmarks;
+
+import com.github.lxquaver.stardisfactory.GameSave;
+import com.github.lxquaver.stardisfactory.SaveJournal;
+import com.github.lxquaver.stardisfactory.SaveSystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Sauvegarde complete et chargement (snapshot binaire + journal) d'une grosse usine synthetique.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SaveBenchmark {
+
+    /**
+     * Lots ajoutes au journal de la sauvegarde relue (autosaves entre deux compactages).
+     */
+    private static final int JOURNAL_BATCHES = 16;
+
+    /**
+     * Batiments modifies par lot (recoltes, plantations, stocks de QG).
+     */
+    private static final int UPSERTS_PER_BATCH = 32;
+
+    @Param({"10000", "100000"})
+    public int buildings;
+
+    private GameSave save;
+    private Path directory;
+    private Path writeTarget;
+    private Path writeJournal;
+    private Path readTarget;
+    private Path readJournal;
+
+    /**
+     * Genere la sauvegarde, ecrit la copie relue par le benchmark de chargement puis lui ajoute un journal.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        save = BenchmarkWorlds.syntheticSave(buildings, 42L);
+        directory = Files.createTempDirectory("stardisfactory-bench");
+        writeTarget = directory.resolve("write.bin");
+        writeJournal = SaveSystem.getJournalPath(writeTarget);
+        readTarget = directory.resolve("read.bin");
+        readJournal = SaveSystem.getJournalPath(readTarget);
+        if (SaveSystem.save(save, readTarget, readJournal) < 0) throw new IOException("Ecriture de la sauvegarde de reference impossible");
+        // save() remet le journal a zero: on y ajoute des lots pour que load() mesure aussi le rejeu.
+        for (int batch = 0; batch < JOURNAL_BATCHES; batch++) {
+            SaveJournal.append(readJournal, syntheticDelta(batch));
+        }
+    }
+
+    /**
+     * Lot de journal type: joueur, un chunk de terrain et quelques batiments repris de la sauvegarde.
+     */
+    private SaveJournal.Delta syntheticDelta(int batch) {
+        SaveJournal.Delta delta = new SaveJournal.Delta();
+        delta.savedAtMillis = save.savedAtMillis + batch * 60_000L;
+        delta.simulationClock = save.simulationClock + batch * 60.0;
+        delta.playerX = save.playerX + batch;
+        delta.playerY = save.playerY;
+        delta.money = save.money + batch * 100;
+        delta.buildingStockPlanter = save.buildingStockPlanter;
+        delta.buildingStockConveyor = save.buildingStockConveyor;
+        if (!save.terrainChunks.isEmpty()) {
+            delta.terrainChunks.add(save.terrainChunks.get(batch % save.terrainChunks.size()));
+        }
+        int stride = Math.max(1, save.buildings.size() / (JOURNAL_BATCHES * UPSERTS_PER_BATCH));
+        for (int k = 0; k < UPSERTS_PER_BATCH; k++) {
+            int index = (batch * UPSERTS_PER_BATCH + k) * stride;
+            if (index >= save.buildings.size()) break;
+            delta.upserts.add(save.buildings.get(index));
+        }
+        return delta;
+    }
+
+    /**
+     * Supprime les fichiers temporaires.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(path);
+        }
+    }
+
+    /**
+     * Sauvegarde complete: temporaire + fsync, rotation des copies, renommage, remise a zero du journal.
+     */
+    @Benchmark
+    public long saveFull() {
+        return SaveSystem.save(save, writeTarget, writeJournal);
+    }
+
+    /**
+     * Chargement: lecture du snapshot binaire puis rejeu des JOURNAL_BATCHES lots du journal.
+     */
+    @Benchmark
+    public GameSave load() {
+        return SaveSystem.load(readTarget, readJournal);
+    }
+}
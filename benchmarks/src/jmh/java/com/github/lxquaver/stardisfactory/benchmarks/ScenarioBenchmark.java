@@ -0,0 +1,60 @@
+package com.github.lxquaver.stardisfactory.benchmarks;
+
+import com.github.lxquaver.stardisfactory.FactoryEngine;
+import com.github.lxquaver.stardisfactory.StressWorldGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pas complet de simulation sur les mondes de stress generes (une graine fixe par topologie).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScenarioBenchmark {
+
+    @Param({"LINES", "MERGES", "SPAGHETTI"})
+    public StressWorldGenerator.Topology topology;
+
+    @Param({"10000", "100000"})
+    public int planters;
+
+    private FactoryEngine engine;
+
+    /**
+     * Regenere le monde a chaque iteration pour repartir du meme etat.
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        StressWorldGenerator.Settings settings = new StressWorldGenerator.Settings();
+        settings.seed = 42L;
+        settings.topology = topology;
+        settings.planterCount = planters;
+        settings.mapSize = 2048;
+        engine = StressWorldGenerator.generateEngine(settings);
+        engine.getConveyorNetwork().rebuild(engine.getBuildings(), engine.getBuildingGrid());
+    }
+
+    /**
+     * Un pas fixe de simulation (croissance, convoyeurs, livraisons).
+     */
+    @Benchmark
+    public void step() {
+        engine.step(BenchmarkWorlds.STEP);
+    }
+}
@@ -0,0 +1,137 @@
+package com.github.lxquaver.stardisfactory;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sauvegarde periodique en arriere-plan.
+ *
+ * Le thread de jeu ne fait que copier l'etat dans une {@link GameSave}
+ * (snapshot independant du monde vivant); la serialisation, le fsync et le
+ * remplacement atomique du fichier se font sur un thread dedie.
+ *
+ * Entre deux snapshots complets, seuls des deltas sont ajoutes au journal.
+ * Snapshots et deltas passent par ce thread dans l'ordre de soumission (un
+ * delta n'a de sens qu'apres ceux qui le precedent). Un nouveau snapshot est
+ * demande des que le journal depasse la taille du dernier snapshot.
+ */
+public class AutosaveService {
+
+    private final ExecutorService executor;
+    private final float intervalSeconds;
+    private float elapsedSeconds = 0f;
+
+    private volatile long snapshotBytes = 0L;
+    private volatile long journalBytes = 0L;
+    private volatile boolean journalFailed = false;
+
+    /**
+     * Cree le service avec la periode d'autosave donnee.
+     */
+    public AutosaveService(float intervalSeconds) {
+        this.intervalSeconds = intervalSeconds;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stardisfactory-autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Avance le minuteur d'autosave; retourne true quand un snapshot doit etre pris.
+     */
+    public boolean tick(float dt) {
+        elapsedSeconds += dt;
+        if (elapsedSeconds < intervalSeconds) return false;
+        elapsedSeconds = 0f;
+        return true;
+    }
+
+    /**
+     * Remet le minuteur a zero (nouvelle partie, chargement, sauvegarde manuelle).
+     */
+    public void resetTimer() {
+        elapsedSeconds = 0f;
+    }
+
+    /**
+     * Programme l'ecriture d'un snapshot complet (vide le journal).
+     */
+    public void submit(GameSave snapshot) {
+        elapsedSeconds = 0f;
+        executor.execute(() -> {
+            long size = SaveSystem.save(snapshot);
+            if (size >= 0) {
+                snapshotBytes = size;
+                journalBytes = 0L;
+                journalFailed = false;
+            } else {
+                journalFailed = true;
+            }
+        });
+    }
+
+    /**
+     * Programme l'ajout d'un delta au journal (ignore si le snapshot ou un delta precedent a echoue).
+     */
+    public void submitDelta(SaveJournal.Delta delta) {
+        elapsedSeconds = 0f;
+        executor.execute(() -> {
+            if (journalFailed) return;
+            long size = SaveSystem.appendJournal(delta);
+            if (size >= 0) {
+                journalBytes = size;
+            } else {
+                journalFailed = true;
+            }
+        });
+    }
+
+    /**
+     * Indique si la prochaine sauvegarde doit etre complete (journal trop gros ou en echec).
+     */
+    public boolean isCompactionDue() {
+        return journalFailed || journalBytes > snapshotBytes;
+    }
+
+    /**
+     * Supprime la sauvegarde apres les ecritures deja programmees.
+     */
+    public void delete() {
+        executor.execute(() -> {
+            SaveSystem.delete();
+            snapshotBytes = 0L;
+            journalBytes = 0L;
+        });
+        flush();
+    }
+
+    /**
+     * Attend que toutes les operations programmees soient terminees.
+     */
+    public void flush() {
+        try {
+            executor.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.out.println("Erreur autosave: " + e.getCause());
+        }
+    }
+
+    /**
+     * Termine les ecritures en cours puis arrete le thread.
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                System.out.println("Autosave: ecriture non terminee a la fermeture");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
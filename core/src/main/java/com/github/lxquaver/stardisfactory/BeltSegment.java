@@ -0,0 +1,582 @@
+package com.github.lxquaver.stardisfactory;
+
+import java.util.Arrays;
+
+/**
+ * Troncon droit de convoyeurs simule comme une seule entite.
+ *
+ * Les cases d'un troncon ont la meme orientation et se suivent sans entree
+ * laterale d'un autre convoyeur. Les items ne sont pas ranges par case mais
+ * le long d'une ligne de longueur L (en cases, 0 = entree, L = sortie), sous
+ * forme d'ecarts: ecart 0 = distance entre la sortie et l'item de tete, puis
+ * distance entre chaque item et celui qui le precede. Un tick ne modifie
+ * qu'un seul ecart (celui de la tete, ou le premier ecart compressible quand
+ * la tete est bloquee): son cout ne depend ni de la longueur du troncon ni
+ * du nombre d'items.
+ *
+ * L'etat par case (voie, offsets) est derive a la demande et mis en cache
+ * jusqu'au prochain changement. Une case couvre l'intervalle ]t, t+1] de la
+ * ligne (la case 0 couvre [0, 1]): un item pose sur le bord de sortie d'une
+ * case lui appartient encore.
+ *
+ * Un troncon qui ne peut plus progresser est endormi par son
+ * {@link ConveyorNetwork}; toute modification de sa file (item pose, retire
+ * ou sorti) le reveille.
+ */
+public class BeltSegment {
+
+    /**
+     * Tolerance sur les ecarts (arrondis flottants des pas successifs).
+     */
+    private static final float EPSILON = 1e-4f;
+
+    /**
+     * Decalage d'un item pose sur le bord d'entree d'une case interne (pour qu'il appartienne a cette case).
+     */
+    private static final float EDGE_OFFSET = 1e-3f;
+
+    private static final Building.PlanterCrop[] CROPS = Building.PlanterCrop.values();
+
+    /**
+     * Cases du troncon, de l'entree vers la sortie.
+     */
+    final Building[] tiles;
+    private final int exitDirection;
+
+    /**
+     * Items en file circulaire, indice logique 0 = tete (le plus en aval).
+     */
+    private final byte[] items;
+    private final int[] amounts;
+    private final double[] gaps;
+    private final byte[] entryDirections;
+    private final int[] entryTiles;
+    private int head = 0;
+    private int count = 0;
+
+    /**
+     * Position du dernier item (distance a l'entree, petite quand la file remonte jusqu'a l'entree)
+     * et premier ecart compressible (>= 1, count si aucun).
+     */
+    private double tailPosition = 0.0;
+    private int firstSlack = 0;
+
+    /**
+     * Dernier deplacement: les items d'indice >= lastMoveFrom ont avance de lastMoveAmount.
+     */
+    private int lastMoveFrom = 0;
+    private float lastMoveAmount = 0f;
+
+    /**
+     * Part du dernier pas que la tete n'a pas parcourue, arrivee a la sortie (voir {@link #resume()}).
+     */
+    private float surplus = 0f;
+
+    /**
+     * Cache de l'etat par case (recalcule quand version change).
+     */
+    private long version = 0L;
+    private long decodedVersion = -1L;
+    private final double[] positions;
+    private final int[] tileFirst;
+    private final int[] tileCounts;
+
+    /**
+     * Reseau proprietaire, indice dans son ordre de traitement et presence dans sa liste active.
+     */
+    ConveyorNetwork network;
+    int index = -1;
+    boolean active = false;
+
+    /**
+     * Nombre d'items change depuis la derniere sauvegarde (suivi de {@link BuildingStore#markChanged(BeltSegment)}).
+     */
+    boolean saveChanged = false;
+
+    /**
+     * Deja note parmi les troncons endormis depuis la derniere capture de rendu (voir {@link ConveyorNetwork#collectChangedTiles}).
+     */
+    boolean settledSinceCapture = false;
+
+    /**
+     * Cree un troncon vide sur les cases donnees (de l'entree vers la sortie).
+     */
+    BeltSegment(Building[] tiles) {
+        this.tiles = tiles;
+        this.exitDirection = tiles[0].getRotation();
+        int capacity = tiles.length * Building.LANE_SLOTS + 1;
+        items = new byte[capacity];
+        amounts = new int[capacity];
+        gaps = new double[capacity];
+        entryDirections = new byte[capacity];
+        entryTiles = new int[capacity];
+        positions = new double[capacity];
+        tileFirst = new int[tiles.length];
+        tileCounts = new int[tiles.length];
+    }
+
+    /**
+     * Cree un troncon a partir des voies de ses cases, qui sont videes et rattachees au troncon.
+     */
+    static BeltSegment pack(Building[] tiles) {
+        BeltSegment segment = new BeltSegment(tiles);
+        double ahead = tiles.length + Building.ITEM_SPACING;
+        for (int t = tiles.length - 1; t >= 0; t--) {
+            Building tile = tiles[t];
+            BuildingStore store = tile.store;
+            int base = tile.slot * Building.LANE_SLOTS;
+            int laneCount = store.laneCounts[tile.slot];
+            for (int k = 0; k < laneCount && segment.count < segment.items.length; k++) {
+                int j = base + k;
+                // Les anciennes voies pouvaient se chevaucher d'une case a l'autre: on recompacte.
+                double position = Math.max(0.0, Math.min(t + store.laneOffsets[j], ahead - Building.ITEM_SPACING));
+                segment.append(store.laneItems[j], store.laneAmounts[j], position, store.laneEntryDirections[j], t);
+                ahead = position;
+            }
+            store.clearLane(tile.slot);
+            store.conveyorSegments[tile.slot] = segment;
+            store.segmentTiles[tile.slot] = t;
+        }
+        segment.firstSlack = segment.findSlack(1);
+        return segment;
+    }
+
+    /**
+     * Redistribue les items dans les voies des cases et detache les cases du troncon.
+     */
+    void unpack() {
+        decode();
+        for (int t = 0; t < tiles.length; t++) {
+            Building tile = tiles[t];
+            BuildingStore store = tile.store;
+            if (saveChanged) store.markChanged(tile);
+            if (store.conveyorSegments[tile.slot] == this) store.conveyorSegments[tile.slot] = null;
+            store.clearLane(tile.slot);
+            int end = tileFirst[t] + tileCounts[t];
+            for (int i = tileFirst[t]; i < end; i++) {
+                int p = physical(i);
+                store.appendLaneItem(tile.slot, items[p], amounts[p], offsetInTile(i, t), getEntryDirection(i, t));
+            }
+        }
+        count = 0;
+        network = null;
+        active = false;
+    }
+
+    /**
+     * Longueur du troncon en cases.
+     */
+    public int getLength() {
+        return tiles.length;
+    }
+
+    /**
+     * Nombre d'items sur le troncon.
+     */
+    public int getItemCount() {
+        return count;
+    }
+
+    /**
+     * Indique si un tick ferait avancer au moins un item (tete avant la sortie ou ecart compressible).
+     */
+    boolean isMoving() {
+        return count > 0 && (gaps[head] > 0f || firstSlack < count);
+    }
+
+    /**
+     * Oublie le dernier deplacement (le troncon s'endort: l'interpolation doit le montrer immobile).
+     */
+    void settle() {
+        lastMoveFrom = count;
+        lastMoveAmount = 0f;
+    }
+
+    /**
+     * Remet le troncon dans la liste active de son reseau.
+     */
+    private void wake() {
+        if (!active && network != null) network.wake(this);
+    }
+
+    /**
+     * Fait avancer les items d'un pas (en cases).
+     */
+    void tick(float step) {
+        lastMoveFrom = count;
+        lastMoveAmount = 0f;
+        surplus = 0f;
+        move(step);
+    }
+
+    /**
+     * Apres le depot de la tete dans un QG, fait avancer la file du reste du pas que la tete
+     * n'a pas parcouru: une ligne saturee livre au rythme exact d'un item tous les ITEM_SPACING,
+     * comme en forme close ({@link #advance(double, Building)}), quel que soit le pas.
+     */
+    void resume() {
+        float distance = surplus;
+        surplus = 0f;
+        if (distance > 0f && count > 0 && gaps[head] > 0f) move(distance);
+    }
+
+    /**
+     * Deplace le premier groupe d'items mobile d'une distance (en cases), au plus jusqu'a son ecart minimal.
+     */
+    private void move(float step) {
+        if (count == 0) return;
+
+        int k = gaps[head] > 0f ? 0 : firstSlack;
+        if (k >= count) return;
+
+        int p = physical(k);
+        double slack = k == 0 ? gaps[p] : gaps[p] - Building.ITEM_SPACING;
+        double move = Math.min(step, slack);
+        gaps[p] -= move;
+        tailPosition += move;
+        if (k == 0 && gaps[p] < EPSILON) {
+            tailPosition += gaps[p];
+            gaps[p] = 0.0;
+            surplus = (float) Math.max(0.0, step - slack);
+        } else if (k > 0 && gaps[p] - Building.ITEM_SPACING < EPSILON) {
+            tailPosition += gaps[p] - Building.ITEM_SPACING;
+            gaps[p] = Building.ITEM_SPACING;
+            firstSlack = findSlack(k + 1);
+        }
+        // Un second deplacement dans le meme tick (resume) se cumule pour l'interpolation.
+        if (lastMoveFrom != k) {
+            lastMoveFrom = k;
+            lastMoveAmount = 0f;
+        }
+        lastMoveAmount += (float) move;
+        version++;
+    }
+
+    /**
+     * Avance les items d'une distance quelconque (en cases) en forme close, pour le rattrapage hors ligne.
+     *
+     * Avec un QG en sortie la ligne avance librement et les items qui atteignent
+     * la sortie y sont deposes; sinon la tete s'arrete a la sortie et les ecarts
+     * suivants se compriment un a un jusqu'a l'espacement minimal. Le resultat
+     * est celui d'une suite de ticks, pour un cout lineaire en nombre d'items.
+     */
+    void advance(double distance, Building hq) {
+        double remaining = distance;
+        if (hq != null) {
+            while (count > 0 && gaps[head] <= remaining) {
+                remaining -= gaps[head];
+                gaps[head] = 0.0;
+                Building.PlanterCrop crop = CROPS[items[head]];
+                int amount = amounts[head];
+                popHead();
+                if (crop != Building.PlanterCrop.NONE && amount > 0) {
+                    hq.addToHQStock(crop, amount);
+                    Telemetry.recordDelivery(amount);
+                }
+            }
+            if (count > 0) gaps[head] -= remaining;
+        } else {
+            for (int k = 0; k < count && remaining > 0.0; k++) {
+                int p = physical(k);
+                double floor = k == 0 ? 0.0 : Building.ITEM_SPACING;
+                double move = Math.min(remaining, Math.max(0.0, gaps[p] - floor));
+                gaps[p] -= move;
+                remaining -= move;
+            }
+        }
+        firstSlack = findSlack(1);
+        version++;
+        decode();
+        settle();
+    }
+
+    /**
+     * Indique si l'item de tete est arrive a la sortie du troncon.
+     */
+    boolean isHeadReady() {
+        return count > 0 && gaps[head] <= 0f;
+    }
+
+    /**
+     * Item de tete.
+     */
+    Building.PlanterCrop getHeadItem() {
+        return count == 0 ? Building.PlanterCrop.NONE : CROPS[items[head]];
+    }
+
+    /**
+     * Quantite de l'item de tete.
+     */
+    int getHeadAmount() {
+        return count == 0 ? 0 : amounts[head];
+    }
+
+    /**
+     * Indique si un item peut etre pose sur le bord d'entree de la case (espacement et place dans la case).
+     */
+    boolean canInsert(int tile) {
+        if (count == items.length) return false;
+        if (tile == 0) {
+            if (count == 0) return true;
+            if (tailPosition < Building.ITEM_SPACING - EPSILON) return false;
+            return countFromTailUpTo(1f) < Building.LANE_SLOTS;
+        }
+        return findInsertIndex(tile) >= 0;
+    }
+
+    /**
+     * Pose un item sur le bord d'entree de la case si la place est libre; retourne false sinon.
+     */
+    boolean insert(int tile, Building.PlanterCrop item, int amount, int entryDirection) {
+        if (!canInsert(tile)) return false;
+        if (tile == 0) {
+            // Ecart exact avec la queue (la position peut etre tres legerement negative).
+            double position = count == 0 ? 0.0 : Math.min(0.0, tailPosition - Building.ITEM_SPACING);
+            append((byte) item.ordinal(), amount, position, entryDirection, 0);
+            if (firstSlack >= count - 1) firstSlack = findSlack(count - 1);
+            changed();
+            wake();
+            return true;
+        }
+
+        int index = findInsertIndex(tile);
+        double position = tile + EDGE_OFFSET;
+        double ahead = index == 0 ? tiles.length : positionOf(index - 1);
+        for (int i = count; i > index; i--) copy(physical(i - 1), physical(i));
+        count++;
+        int p = physical(index);
+        items[p] = (byte) item.ordinal();
+        amounts[p] = amount;
+        gaps[p] = ahead - position;
+        entryDirections[p] = (byte) entryDirection;
+        entryTiles[p] = tile;
+        if (index + 1 < count) gaps[physical(index + 1)] -= gaps[p];
+        if (index + 1 == count) tailPosition = position;
+        firstSlack = findSlack(1);
+        lastMoveFrom = count;
+        version++;
+        changed();
+        wake();
+        return true;
+    }
+
+    /**
+     * Retire l'item de tete du troncon.
+     */
+    void popHead() {
+        if (count == 0) return;
+        int next = physical(1);
+        if (count > 1) gaps[next] += gaps[head];
+        head = physical(1);
+        count--;
+        firstSlack = firstSlack > 1 ? firstSlack - 1 : findSlack(1);
+        lastMoveFrom = Math.max(0, lastMoveFrom - 1);
+        version++;
+        changed();
+        wake();
+    }
+
+    /**
+     * Retire l'item le plus en aval d'une case.
+     */
+    void removeTileFront(int tile) {
+        decode();
+        if (tileCounts[tile] == 0) return;
+        int index = tileFirst[tile];
+        if (index == 0) {
+            popHead();
+            return;
+        }
+        int p = physical(index);
+        if (index + 1 < count) {
+            gaps[physical(index + 1)] += gaps[p];
+        } else {
+            tailPosition += gaps[p];
+        }
+        for (int i = index; i < count - 1; i++) copy(physical(i + 1), physical(i));
+        count--;
+        firstSlack = findSlack(1);
+        lastMoveFrom = count;
+        version++;
+        changed();
+        wake();
+    }
+
+    /**
+     * Signale au stockage que le nombre d'items a change (le seul deplacement n'est pas journalise).
+     */
+    private void changed() {
+        if (!saveChanged) tiles[0].store.markChanged(this);
+    }
+
+    /**
+     * Nombre d'items sur une case.
+     */
+    int getTileCount(int tile) {
+        decode();
+        return tileCounts[tile];
+    }
+
+    /**
+     * Item k d'une case (0 = le plus en aval).
+     */
+    Building.PlanterCrop getTileItem(int tile, int k) {
+        decode();
+        return CROPS[items[physical(tileFirst[tile] + k)]];
+    }
+
+    /**
+     * Quantite de l'item k d'une case.
+     */
+    int getTileAmount(int tile, int k) {
+        decode();
+        return amounts[physical(tileFirst[tile] + k)];
+    }
+
+    /**
+     * Offset de l'item k dans sa case, au tick courant ou interpole depuis le tick precedent.
+     */
+    float getTileOffset(int tile, int k, float alpha) {
+        decode();
+        int i = tileFirst[tile] + k;
+        float moved = i >= lastMoveFrom ? lastMoveAmount : 0f;
+        float offset = offsetInTile(i, tile);
+        return Math.max(0f, offset - moved * (1f - alpha));
+    }
+
+    /**
+     * Cote d'entree de l'item k: son cote d'origine dans la case ou il a ete pose, l'arriere ensuite.
+     */
+    int getTileEntryDirection(int tile, int k) {
+        decode();
+        return getEntryDirection(tileFirst[tile] + k, tile);
+    }
+
+    /**
+     * Ajoute un item a la queue a la position donnee (positions decroissantes).
+     */
+    private void append(byte item, int amount, double position, int entryDirection, int entryTile) {
+        int p = physical(count);
+        double ahead = count == 0 ? tiles.length : tailPosition;
+        items[p] = item;
+        amounts[p] = amount;
+        gaps[p] = ahead - position;
+        entryDirections[p] = (byte) entryDirection;
+        entryTiles[p] = entryTile;
+        tailPosition = position;
+        count++;
+        version++;
+    }
+
+    /**
+     * Indice logique ou inserer un item sur le bord d'entree d'une case interne, ou -1 si la place manque.
+     */
+    private int findInsertIndex(int tile) {
+        double position = tile + EDGE_OFFSET;
+        double current = tiles.length;
+        int inTile = 0;
+        for (int i = 0; i < count; i++) {
+            current -= gaps[physical(i)];
+            if (current < position) {
+                if (position - current < Building.ITEM_SPACING - EPSILON) return -1;
+                return inTile < Building.LANE_SLOTS ? i : -1;
+            }
+            if (current - position < Building.ITEM_SPACING - EPSILON) return -1;
+            if (tileOf(current) == tile) inTile++;
+        }
+        return inTile < Building.LANE_SLOTS ? count : -1;
+    }
+
+    /**
+     * Compte les items de queue dont la position est au plus limit.
+     */
+    private int countFromTailUpTo(float limit) {
+        double current = tailPosition;
+        int found = 0;
+        for (int i = count - 1; i >= 0 && current <= limit + EPSILON; i--) {
+            found++;
+            current += gaps[physical(i)];
+        }
+        return found;
+    }
+
+    /**
+     * Premier indice >= from dont l'ecart est compressible, ou count.
+     */
+    private int findSlack(int from) {
+        for (int i = Math.max(1, from); i < count; i++) {
+            if (gaps[physical(i)] - Building.ITEM_SPACING > EPSILON) return i;
+        }
+        return count;
+    }
+
+    /**
+     * Position le long du troncon de l'item d'indice logique i.
+     */
+    private double positionOf(int index) {
+        double current = tiles.length;
+        for (int i = 0; i <= index; i++) current -= gaps[physical(i)];
+        return current;
+    }
+
+    /**
+     * Case couvrant une position: ]t, t+1], la case 0 couvrant aussi 0.
+     */
+    private int tileOf(double position) {
+        int tile = (int) Math.ceil(position - EPSILON) - 1;
+        return Math.max(0, Math.min(tiles.length - 1, tile));
+    }
+
+    /**
+     * Recalcule positions et repartition par case si le troncon a change.
+     */
+    private void decode() {
+        if (decodedVersion == version) return;
+        Arrays.fill(tileCounts, 0);
+        double current = tiles.length;
+        for (int i = 0; i < count; i++) {
+            current -= gaps[physical(i)];
+            positions[i] = current;
+            int tile = tileOf(current);
+            if (tileCounts[tile]++ == 0) tileFirst[tile] = i;
+        }
+        // Resynchronise la position de queue, sujette a la derive des additions successives.
+        if (count > 0) tailPosition = positions[count - 1];
+        decodedVersion = version;
+    }
+
+    /**
+     * Offset dans la case de l'item d'indice logique donne.
+     */
+    private float offsetInTile(int index, int tile) {
+        return (float) Math.max(0.0, Math.min(1.0, positions[index] - tile));
+    }
+
+    /**
+     * Cote d'entree d'un item vu depuis la case donnee.
+     */
+    private int getEntryDirection(int index, int tile) {
+        int p = physical(index);
+        if (entryTiles[p] == tile) return entryDirections[p];
+        return Building.getOppositeDirection(exitDirection);
+    }
+
+    /**
+     * Recopie un item d'un emplacement physique a un autre.
+     */
+    private void copy(int from, int to) {
+        items[to] = items[from];
+        amounts[to] = amounts[from];
+        gaps[to] = gaps[from];
+        entryDirections[to] = entryDirections[from];
+        entryTiles[to] = entryTiles[from];
+    }
+
+    /**
+     * Emplacement physique dans la file circulaire d'un indice logique.
+     */
+    private int physical(int index) {
+        int p = head + index;
+        return p >= items.length ? p - items.length : p;
+    }
+}
@@ -0,0 +1,492 @@
+package com.github.lxquaver.stardisfactory;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Format binaire compact et versionne d'une {@link GameSave}.
+ *
+ * Disposition du fichier (big-endian):
+ * <pre>
+ * en-tete    : magic "SDFS", version, generation, heure de sauvegarde, horloge de simulation,
+ *              decalage carte, joueur, inventaire
+ * tables     : noms de Terrain.Type, Building.Type et PlanterCrop (les ordinaux
+ *              du fichier pointent dans ces tables, pas dans les enums courants)
+ * terrain    : nombre de chunks puis pour chacun (x, y, runs RLE (indice de type, longueur) de ses cases)
+ * batiments  : nombre puis enregistrements (tag de charge, longueur, type, x, y, rotation, charge)
+ * </pre>
+ * La longueur de chaque enregistrement permet de sauter un type inconnu. La
+ * charge d'une voie de convoyeur est de taille variable (nombre d'items puis
+ * (culture, quantite, offset) pour chacun). Une jardiniere porte l'instant de
+ * sa plantation sur l'horloge de simulation. Seule la version courante est
+ * relue; les anciennes sauvegardes JSON passent par {@link SaveSystem}.
+ * La generation relie le snapshot a son journal de deltas ({@link SaveJournal}),
+ * qui reprend les memes tables de noms et les memes enregistrements de batiments.
+ * Lecture et ecriture passent par un FileChannel et un tampon de 64 Ko.
+ */
+public class BinarySaveFormat {
+
+    /**
+     * Signature "SDFS" en tete de fichier.
+     */
+    static final int MAGIC = 0x53444653;
+
+    /**
+     * Version courante du format.
+     */
+    static final short VERSION = 1;
+
+    /**
+     * Tags de charge des enregistrements de batiments.
+     */
+    private static final byte PAYLOAD_NONE = 0;
+    private static final byte PAYLOAD_PLANTER = 1;
+    private static final byte PAYLOAD_LANE = 2;
+    private static final byte PAYLOAD_HQ = 3;
+
+    /**
+     * Taille d'un item de voie: culture, quantite, offset.
+     */
+    private static final int LANE_ITEM_LENGTH = 1 + 4 + 4;
+
+    /**
+     * En-tete d'un enregistrement de batiment: tag, longueur, type, x, y, rotation.
+     */
+    static final int BUILDING_HEADER_LENGTH = 1 + 2 + 1 + 4 + 4 + 1;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final Terrain.Type[] TERRAIN_TYPES = Terrain.Type.values();
+    private static final Building.Type[] BUILDING_TYPES = Building.Type.values();
+    private static final Building.PlanterCrop[] CROPS = Building.PlanterCrop.values();
+
+    /**
+     * Ecrit la sauvegarde dans le fichier donne (ecrase le contenu existant) puis force l'ecriture disque.
+     */
+    public static void write(GameSave data, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ChannelWriter out = new ChannelWriter(channel);
+            write(data, out);
+            out.flush();
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Lit une sauvegarde depuis le fichier donne.
+     */
+    public static GameSave read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return read(new ChannelReader(channel));
+        }
+    }
+
+    /**
+     * Serialise l'en-tete, les tables, le terrain puis les batiments.
+     */
+    private static void write(GameSave data, ChannelWriter out) throws IOException {
+        out.putInt(MAGIC);
+        out.putShort(VERSION);
+        out.putLong(data.generation);
+        out.putLong(data.savedAtMillis);
+        out.putDouble(data.simulationClock);
+        out.putInt(data.mapOffset);
+        out.putFloat(data.playerX);
+        out.putFloat(data.playerY);
+        out.putInt(data.money);
+        out.putInt(data.buildingStockPlanter);
+        out.putInt(data.buildingStockConveyor);
+        out.putInt(data.seedBagsPotato);
+        out.putInt(data.seedBagsStrawberry);
+        out.putInt(data.seedBagsLeek);
+        out.putInt(data.carriedPotato);
+        out.putInt(data.carriedStrawberry);
+        out.putInt(data.carriedLeek);
+
+        out.ensure(getNameTablesLength());
+        putNameTables(out.buffer);
+
+        int chunkCount = data.terrainChunks == null ? 0 : data.terrainChunks.size();
+        out.putInt(chunkCount);
+        for (int c = 0; c < chunkCount; c++) {
+            GameSave.TerrainChunkSave chunk = data.terrainChunks.get(c);
+            out.putInt(chunk.x);
+            out.putInt(chunk.y);
+            putRuns(out, chunk.cells);
+        }
+
+        int count = data.buildings == null ? 0 : data.buildings.size();
+        out.putInt(count);
+        for (int b = 0; b < count; b++) {
+            GameSave.BuildingSave bs = data.buildings.get(b);
+            out.ensure(getBuildingLength(bs));
+            putBuilding(out.buffer, bs);
+        }
+    }
+
+    /**
+     * Taille de l'enregistrement d'un batiment (en-tete compris).
+     */
+    static int getBuildingLength(GameSave.BuildingSave bs) {
+        return BUILDING_HEADER_LENGTH + getPayloadLength(getPayloadTag(Building.Type.valueOf(bs.type)), bs);
+    }
+
+    /**
+     * Ecrit l'enregistrement d'un batiment (ordinaux des enums courants, ceux des tables ecrites avec).
+     */
+    static void putBuilding(ByteBuffer out, GameSave.BuildingSave bs) {
+        Building.Type type = Building.Type.valueOf(bs.type);
+        byte payload = getPayloadTag(type);
+        out.put(payload);
+        out.putShort((short) getPayloadLength(payload, bs));
+        out.put((byte) type.ordinal());
+        out.putInt(bs.x);
+        out.putInt(bs.y);
+        out.put((byte) bs.rotation);
+        switch (payload) {
+            case PAYLOAD_PLANTER:
+                out.put((byte) cropOrdinal(bs.planterCrop));
+                out.putDouble(bs.plantedAt);
+                out.put((byte) (bs.planterReady ? 1 : 0));
+                break;
+            case PAYLOAD_LANE:
+                int laneCount = bs.laneItems == null ? 0 : bs.laneItems.length;
+                out.put((byte) laneCount);
+                for (int k = 0; k < laneCount; k++) {
+                    out.put((byte) cropOrdinal(bs.laneItems[k]));
+                    out.putInt(bs.laneAmounts[k]);
+                    out.putFloat(bs.laneOffsets[k]);
+                }
+                break;
+            case PAYLOAD_HQ:
+                out.putInt(bs.hqPotatoes);
+                out.putInt(bs.hqStrawberries);
+                out.putInt(bs.hqLeeks);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Taille de la charge qu'ecrit {@link #putBuilding} pour un enregistrement.
+     */
+    private static int getPayloadLength(byte payload, GameSave.BuildingSave bs) {
+        if (payload != PAYLOAD_LANE) return getPayloadLength(payload);
+        return 1 + (bs.laneItems == null ? 0 : bs.laneItems.length) * LANE_ITEM_LENGTH;
+    }
+
+    /**
+     * Relit un fichier ecrit par {@link #write(GameSave, ChannelWriter)}.
+     */
+    private static GameSave read(ChannelReader in) throws IOException {
+        if (in.getInt() != MAGIC) throw new IOException("Signature de sauvegarde invalide");
+        short version = in.getShort();
+        if (version != VERSION) throw new IOException("Version de sauvegarde non supportee: " + version);
+
+        GameSave save = new GameSave();
+        save.generation = in.getLong();
+        save.savedAtMillis = in.getLong();
+        save.simulationClock = in.getDouble();
+        save.mapOffset = in.getInt();
+        save.playerX = in.getFloat();
+        save.playerY = in.getFloat();
+        save.money = in.getInt();
+        save.buildingStockPlanter = in.getInt();
+        save.buildingStockConveyor = in.getInt();
+        save.seedBagsPotato = in.getInt();
+        save.seedBagsStrawberry = in.getInt();
+        save.seedBagsLeek = in.getInt();
+        save.carriedPotato = in.getInt();
+        save.carriedStrawberry = in.getInt();
+        save.carriedLeek = in.getInt();
+
+        byte[] terrainRemap = getTerrainRemap(getNames(in));
+        String[] typeNames = getNames(in);
+        String[] cropNames = getNames(in);
+
+        int chunkCount = in.getInt();
+        for (int c = 0; c < chunkCount; c++) {
+            GameSave.TerrainChunkSave chunk = new GameSave.TerrainChunkSave();
+            chunk.x = in.getInt();
+            chunk.y = in.getInt();
+            chunk.cells = new byte[WorldChunks.CHUNK_CELLS];
+            getRuns(in, chunk.cells, terrainRemap);
+            save.terrainChunks.add(chunk);
+        }
+
+        int count = in.getInt();
+        for (int b = 0; b < count; b++) {
+            in.require(BUILDING_HEADER_LENGTH);
+            int length = in.buffer.getShort(in.buffer.position() + 1) & 0xFFFF;
+            in.require(BUILDING_HEADER_LENGTH + length);
+            GameSave.BuildingSave bs = getBuilding(in.buffer, typeNames, cropNames);
+            if (bs != null) save.buildings.add(bs);
+        }
+        return save;
+    }
+
+    /**
+     * Lit un enregistrement de batiment entierement present dans le tampon; un type ou une charge
+     * inconnus sont sautes (null).
+     */
+    static GameSave.BuildingSave getBuilding(ByteBuffer in, String[] typeNames, String[] cropNames) {
+        byte payload = in.get();
+        int length = in.getShort() & 0xFFFF;
+        int typeIndex = in.get() & 0xFF;
+        int x = in.getInt();
+        int y = in.getInt();
+        int rotation = in.get();
+
+        if (typeIndex >= typeNames.length || !isPayloadLengthValid(payload, length)) {
+            in.position(in.position() + length);
+            return null;
+        }
+
+        GameSave.BuildingSave bs = new GameSave.BuildingSave();
+        bs.type = typeNames[typeIndex];
+        bs.x = x;
+        bs.y = y;
+        bs.rotation = rotation;
+        bs.planterCrop = Building.PlanterCrop.NONE.name();
+        switch (payload) {
+            case PAYLOAD_PLANTER:
+                bs.planterCrop = cropName(cropNames, in.get());
+                bs.plantedAt = in.getDouble();
+                bs.planterReady = in.get() != 0;
+                break;
+            case PAYLOAD_LANE:
+                int laneCount = in.get() & 0xFF;
+                bs.laneItems = new String[laneCount];
+                bs.laneAmounts = new int[laneCount];
+                bs.laneOffsets = new float[laneCount];
+                for (int k = 0; k < laneCount; k++) {
+                    bs.laneItems[k] = cropName(cropNames, in.get());
+                    bs.laneAmounts[k] = in.getInt();
+                    bs.laneOffsets[k] = in.getFloat();
+                }
+                break;
+            case PAYLOAD_HQ:
+                bs.hqPotatoes = in.getInt();
+                bs.hqStrawberries = in.getInt();
+                bs.hqLeeks = in.getInt();
+                break;
+            default:
+                break;
+        }
+        return bs;
+    }
+
+    /**
+     * Correspondance des ordinaux de terrain d'une table de noms vers Terrain.Type (herbe si inconnu).
+     */
+    static byte[] getTerrainRemap(String[] terrainNames) {
+        byte[] terrainRemap = new byte[terrainNames.length];
+        for (int t = 0; t < terrainNames.length; t++) {
+            terrainRemap[t] = (byte) Terrain.Type.GRASS.ordinal();
+            for (Terrain.Type type : TERRAIN_TYPES) {
+                if (type.name().equals(terrainNames[t])) terrainRemap[t] = (byte) type.ordinal();
+            }
+        }
+        return terrainRemap;
+    }
+
+    /**
+     * Ecrit des cases de terrain en runs RLE (indice de type, longueur).
+     */
+    private static void putRuns(ChannelWriter out, byte[] cells) throws IOException {
+        int i = 0;
+        while (i < cells.length) {
+            byte value = cells[i];
+            int run = 1;
+            while (i + run < cells.length && cells[i + run] == value) run++;
+            out.putByte(value);
+            out.putInt(run);
+            i += run;
+        }
+    }
+
+    /**
+     * Relit des runs RLE jusqu'a remplir le tableau, en remappant les indices de type du fichier.
+     */
+    private static void getRuns(ChannelReader in, byte[] cells, byte[] terrainRemap) throws IOException {
+        int i = 0;
+        while (i < cells.length) {
+            int value = in.getByte() & 0xFF;
+            int run = in.getInt();
+            if (run <= 0 || i + run > cells.length) throw new IOException("Run de terrain invalide");
+            byte mapped = value < terrainRemap.length ? terrainRemap[value] : (byte) Terrain.Type.GRASS.ordinal();
+            Arrays.fill(cells, i, i + run, mapped);
+            i += run;
+        }
+    }
+
+    /**
+     * Tag de charge utile selon le type de batiment.
+     */
+    private static byte getPayloadTag(Building.Type type) {
+        if (type == Building.Type.MAIN_HQ) return PAYLOAD_HQ;
+        if (type.category == Building.BuildingCategory.FARMING) return PAYLOAD_PLANTER;
+        if (type.category == Building.BuildingCategory.TRANSPORT) return PAYLOAD_LANE;
+        return PAYLOAD_NONE;
+    }
+
+    /**
+     * Verifie la longueur lue d'une charge (fixe, ou multiple d'un item pour une voie).
+     */
+    private static boolean isPayloadLengthValid(byte payload, int length) {
+        if (payload == PAYLOAD_LANE) return length >= 1 && (length - 1) % LANE_ITEM_LENGTH == 0;
+        return getPayloadLength(payload) == length;
+    }
+
+    /**
+     * Taille en octets de la charge utile fixe d'un tag.
+     */
+    private static int getPayloadLength(byte payload) {
+        switch (payload) {
+            case PAYLOAD_PLANTER: return 1 + 8 + 1;
+            case PAYLOAD_HQ: return 4 * 3;
+            default: return 0;
+        }
+    }
+
+    /**
+     * Ordinal d'une culture par son nom (NONE si inconnue).
+     */
+    private static int cropOrdinal(String name) {
+        if (name == null) return 0;
+        for (Building.PlanterCrop crop : CROPS) {
+            if (crop.name().equals(name)) return crop.ordinal();
+        }
+        return 0;
+    }
+
+    /**
+     * Ecrit les trois tables de noms (terrain, batiments, cultures) dans un tampon, comme en tete de snapshot.
+     */
+    static void putNameTables(ByteBuffer out) {
+        for (Enum<?>[] values : new Enum<?>[][] {TERRAIN_TYPES, BUILDING_TYPES, CROPS}) {
+            out.put((byte) values.length);
+            for (Enum<?> value : values) {
+                byte[] bytes = value.name().getBytes(StandardCharsets.UTF_8);
+                out.putShort((short) bytes.length);
+                out.put(bytes);
+            }
+        }
+    }
+
+    /**
+     * Taille des tables ecrites par {@link #putNameTables}.
+     */
+    static int getNameTablesLength() {
+        int length = 0;
+        for (Enum<?>[] values : new Enum<?>[][] {TERRAIN_TYPES, BUILDING_TYPES, CROPS}) {
+            length++;
+            for (Enum<?> value : values) length += 2 + value.name().getBytes(StandardCharsets.UTF_8).length;
+        }
+        return length;
+    }
+
+    /**
+     * Lit une table de noms ecrite par {@link #putNameTables}.
+     */
+    static String[] getNames(ByteBuffer in) {
+        String[] names = new String[in.get() & 0xFF];
+        for (int i = 0; i < names.length; i++) {
+            byte[] bytes = new byte[in.getShort() & 0xFFFF];
+            in.get(bytes);
+            names[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return names;
+    }
+
+    /**
+     * Nom de culture depuis la table du fichier (NONE si hors table).
+     */
+    private static String cropName(String[] cropNames, byte index) {
+        int i = index & 0xFF;
+        return i < cropNames.length ? cropNames[i] : Building.PlanterCrop.NONE.name();
+    }
+
+    /**
+     * Lit une table de noms d'enum.
+     */
+    private static String[] getNames(ChannelReader in) throws IOException {
+        String[] names = new String[in.getByte() & 0xFF];
+        for (int i = 0; i < names.length; i++) names[i] = in.getString();
+        return names;
+    }
+
+    /**
+     * Ecrivain tamponne au-dessus d'un FileChannel.
+     */
+    private static class ChannelWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        ChannelWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putByte(byte v) throws IOException { ensure(1); buffer.put(v); }
+        void putShort(short v) throws IOException { ensure(2); buffer.putShort(v); }
+        void putInt(int v) throws IOException { ensure(4); buffer.putInt(v); }
+        void putLong(long v) throws IOException { ensure(8); buffer.putLong(v); }
+        void putFloat(float v) throws IOException { ensure(4); buffer.putFloat(v); }
+        void putDouble(double v) throws IOException { ensure(8); buffer.putDouble(v); }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) flush();
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Lecteur tamponne au-dessus d'un FileChannel.
+     */
+    private static class ChannelReader {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        ChannelReader(FileChannel channel) {
+            this.channel = channel;
+            buffer.flip();
+        }
+
+        byte getByte() throws IOException { require(1); return buffer.get(); }
+        short getShort() throws IOException { require(2); return buffer.getShort(); }
+        int getInt() throws IOException { require(4); return buffer.getInt(); }
+        long getLong() throws IOException { require(8); return buffer.getLong(); }
+        float getFloat() throws IOException { require(4); return buffer.getFloat(); }
+        double getDouble() throws IOException { require(8); return buffer.getDouble(); }
+
+        String getString() throws IOException {
+            int length = getShort() & 0xFFFF;
+            require(length);
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private void require(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) return;
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) throw new EOFException("Sauvegarde tronquee");
+            }
+            buffer.flip();
+        }
+    }
+}
@@ -3,8 +3,11 @@ package com.github.lxquaver.stardisfactory;
 /**
  * Modele unique pour tous les batiments poses sur la carte.
  *
- * Cette classe porte la position/rotation commune, puis des etats
- * specifiques selon le type (jardiniere, convoyeur, HQ, hotel des ventes).
+ * Cette classe porte la position/rotation commune. Les etats specifiques
+ * selon le type (jardiniere, convoyeur, HQ) vivent dans un {@link BuildingStore}
+ * en tableaux paralleles; le batiment n'en est qu'une facade (partition + slot).
+ * Les items d'un convoyeur regroupe dans un {@link BeltSegment} sont lus dans
+ * le troncon et ramenes a la case.
  */
 public class Building {
 
@@ -59,19 +62,35 @@ public class Building {
     private final int gridY;
     private int rotation;
 
-    private PlanterCrop planterCrop = PlanterCrop.NONE;
-    private float growTimerSeconds = 0f;
-    private boolean ready = false;
+    private static final PlanterCrop[] CROPS = PlanterCrop.values();
+    static final float TRANSPORT_TIME = 1.0f;
 
-    private PlanterCrop heldItem = PlanterCrop.NONE;
-    private int heldAmount = 0;
-    private float transportTimer = 0f;
-    private int entryDirection = -1;
-    private static final float TRANSPORT_TIME = 1.0f;
+    /**
+     * Voie d'un convoyeur: nombre d'items par case et espacement minimal (en fraction de case).
+     */
+    static final int LANE_SLOTS = 4;
+    static final float ITEM_SPACING = 1f / LANE_SLOTS;
 
-    private int hqPotatoes = 0;
-    private int hqStrawberries = 0;
-    private int hqLeeks = 0;
+    /**
+     * Stockage portant l'etat chaud et indice du batiment dans sa partition.
+     */
+    BuildingStore store;
+    int slot = 0;
+
+    /**
+     * Deja note parmi les changements a journaliser (voir {@link BuildingStore#markChanged(Building)}).
+     */
+    boolean saveChanged = false;
+
+    /**
+     * Deja note parmi les changements a montrer au rendu (voir {@link BuildingStore#markVisible(Building)}).
+     */
+    boolean visibleChanged = false;
+
+    /**
+     * Ligne du batiment dans la derniere {@link BuildingLayout} construite par le moteur.
+     */
+    int layoutRow = -1;
 
     public Building(Type type, int gridX, int gridY) {
         this(type, gridX, gridY, 0);
@@ -83,6 +102,7 @@ public class Building {
         this.gridY = gridY;
         this.rotation = rotation % 4;
         if (this.rotation < 0) this.rotation += 4;
+        this.store = BuildingStore.detached(type);
     }
 
     /**
@@ -99,7 +119,8 @@ public class Building {
     public int getGridY() { return gridY; }
 
     /**
-     * Explique la methode rotate.
+     * Tourne le batiment d'un quart de tour. Un batiment deja pose passe par
+     * {@link FactoryEngine#rotateBuilding(Building)}, qui reconstruit le reseau de convoyeurs.
      */
     public void rotate() { rotation = (rotation + 1) % 4; }
     /**
@@ -107,13 +128,31 @@ public class Building {
      */
     public int getRotation() { return rotation; }
     /**
-     * Explique la methode setRotation.
+     * Fixe l'orientation avant la pose (voir {@link #rotate()} pour un batiment pose).
      */
     public void setRotation(int rotation) {
         this.rotation = rotation % 4;
         if (this.rotation < 0) this.rotation += 4;
     }
 
+    /**
+     * Retourne la coordonnee X de la case situee devant le batiment selon sa rotation.
+     */
+    public int getFrontGridX() {
+        if (rotation == 1) return gridX + 1;
+        if (rotation == 3) return gridX - 1;
+        return gridX;
+    }
+
+    /**
+     * Retourne la coordonnee Y de la case situee devant le batiment selon sa rotation.
+     */
+    public int getFrontGridY() {
+        if (rotation == 0) return gridY + 1;
+        if (rotation == 2) return gridY - 1;
+        return gridY;
+    }
+
     /**
      * Explique la methode isPlanter.
      */
@@ -125,30 +164,31 @@ public class Building {
      * Explique la methode getPlanterCrop.
      */
     public PlanterCrop getPlanterCrop() {
-        return planterCrop;
+        if (!isPlanter()) return PlanterCrop.NONE;
+        return CROPS[store.planterCrops[slot]];
     }
 
     /**
      * Explique la methode isPlanterEmpty.
      */
     public boolean isPlanterEmpty() {
-        return planterCrop == PlanterCrop.NONE;
+        return getPlanterCrop() == PlanterCrop.NONE;
     }
 
     /**
      * Explique la methode isPlanterReady.
      */
     public boolean isPlanterReady() {
-        return ready;
+        return isPlanter() && store.planterReady[slot];
     }
 
     /**
      * Explique la methode getPlanterGrowProgress01.
      */
     public float getPlanterGrowProgress01() {
-        float total = getGrowTimeSecondsFor(planterCrop);
+        float total = getGrowTimeSecondsFor(getPlanterCrop());
         if (total <= 0f) return 0f;
-        return Math.min(1f, growTimerSeconds / total);
+        return Math.min(1f, getGrowTimerSeconds() / total);
     }
 
     /**
@@ -158,9 +198,10 @@ public class Building {
         if (!isPlanter()) return;
         if (crop == null || crop == PlanterCrop.NONE) return;
 
-        planterCrop = crop;
-        growTimerSeconds = 0f;
-        ready = false;
+        store.planterCrops[slot] = (byte) crop.ordinal();
+        store.planterReady[slot] = false;
+        store.setGrowTimer(slot, 0f);
+        store.markChanged(this);
     }
 
     /**
@@ -168,25 +209,9 @@ public class Building {
      */
     public void update(float dt) {
         if (isPlanter()) {
-            updatePlanter(dt);
-        } else if (isConveyor()) {
-            updateConveyor(dt);
-        }
-    }
-
-    /**
-     * Explique la methode updatePlanter.
-     */
-    private void updatePlanter(float dt) {
-        if (planterCrop == PlanterCrop.NONE) return;
-        if (ready) return;
-
-        growTimerSeconds += dt;
-
-        float total = getGrowTimeSecondsFor(planterCrop);
-        if (growTimerSeconds >= total) {
-            growTimerSeconds = total;
-            ready = true;
+            store.tickPlanter(slot, dt);
+        } else if (isConveyor() && getSegment() == null) {
+            store.tickConveyor(slot, dt);
         }
     }
 
@@ -195,14 +220,23 @@ public class Building {
      */
     public PlanterCrop harvest() {
         if (!isPlanter()) return PlanterCrop.NONE;
-        if (planterCrop == PlanterCrop.NONE) return PlanterCrop.NONE;
-        if (!ready) return PlanterCrop.NONE;
-
-        PlanterCrop harvested = planterCrop;
-        planterCrop = PlanterCrop.NONE;
-        growTimerSeconds = 0f;
-        ready = false;
-
+        PlanterCrop harvested = getPlanterCrop();
+        if (harvested == PlanterCrop.NONE) return PlanterCrop.NONE;
+        if (!store.planterReady[slot]) return PlanterCrop.NONE;
+
+        store.planterCrops[slot] = 0;
+        store.planterReady[slot] = false;
+        store.setGrowTimer(slot, 0f);
+        store.markChanged(this);
+
+        Telemetry.recordHarvest();
+        Telemetry.HarvestEvent event = new Telemetry.HarvestEvent();
+        if (event.isEnabled()) {
+            event.crop = harvested.name();
+            event.gridX = getGridX();
+            event.gridY = getGridY();
+            event.commit();
+        }
         return harvested;
     }
 
@@ -256,36 +290,113 @@ public class Building {
      * Explique la methode hasItem.
      */
     public boolean hasItem() {
-        return heldItem != PlanterCrop.NONE;
+        return getLaneCount() != 0;
     }
 
     /**
-     * Explique la methode getHeldItem.
+     * Item le plus en aval de la voie.
      */
     public PlanterCrop getHeldItem() {
-        return heldItem;
+        return getLaneItem(0);
     }
 
     /**
-     * Explique la methode getHeldAmount.
+     * Quantite de l'item le plus en aval de la voie.
      */
     public int getHeldAmount() {
-        return heldAmount;
+        return getLaneAmount(0);
     }
 
     /**
-     * Explique la methode getTransportProgress.
+     * Avancement de l'item le plus en aval (1 = pret a sortir de la case).
      */
     public float getTransportProgress() {
-        if (!hasItem()) return 0f;
-        return Math.min(1f, transportTimer / TRANSPORT_TIME);
+        return getLaneOffset(0);
+    }
+
+    /**
+     * Avancement interpole entre le tick precedent et le tick courant (alpha dans 0..1).
+     */
+    public float getTransportProgress(float alpha) {
+        return getLaneOffset(0, alpha);
+    }
+
+    /**
+     * Troncon auquel appartient ce convoyeur, ou null s'il n'est pas (encore) regroupe.
+     */
+    BeltSegment getSegment() {
+        return isConveyor() ? store.conveyorSegments[slot] : null;
+    }
+
+    /**
+     * Nombre d'items sur la voie du convoyeur.
+     */
+    public int getLaneCount() {
+        if (!isConveyor()) return 0;
+        BeltSegment segment = store.conveyorSegments[slot];
+        if (segment != null) return segment.getTileCount(store.segmentTiles[slot]);
+        return store.laneCounts[slot];
+    }
+
+    /**
+     * Item k de la voie (0 = le plus en aval).
+     */
+    public PlanterCrop getLaneItem(int k) {
+        if (k >= getLaneCount()) return PlanterCrop.NONE;
+        BeltSegment segment = store.conveyorSegments[slot];
+        if (segment != null) return segment.getTileItem(store.segmentTiles[slot], k);
+        return CROPS[store.laneItems[slot * LANE_SLOTS + k]];
     }
 
     /**
-     * Explique la methode canReceiveItem.
+     * Quantite de l'item k de la voie.
+     */
+    public int getLaneAmount(int k) {
+        if (k >= getLaneCount()) return 0;
+        BeltSegment segment = store.conveyorSegments[slot];
+        if (segment != null) return segment.getTileAmount(store.segmentTiles[slot], k);
+        return store.laneAmounts[slot * LANE_SLOTS + k];
+    }
+
+    /**
+     * Offset de l'item k dans la case (0 = entree, 1 = sortie).
+     */
+    public float getLaneOffset(int k) {
+        return getLaneOffset(k, 1f);
+    }
+
+    /**
+     * Offset de l'item k interpole entre les deux derniers ticks.
+     */
+    public float getLaneOffset(int k, float alpha) {
+        if (k >= getLaneCount()) return 0f;
+        BeltSegment segment = store.conveyorSegments[slot];
+        if (segment != null) return segment.getTileOffset(store.segmentTiles[slot], k, alpha);
+        int j = slot * LANE_SLOTS + k;
+        float previous = store.previousLaneOffsets[j];
+        return previous + (store.laneOffsets[j] - previous) * alpha;
+    }
+
+    /**
+     * Cote d'entree de l'item k, ou -1.
+     */
+    public int getLaneEntryDirection(int k) {
+        if (k >= getLaneCount()) return -1;
+        BeltSegment segment = store.conveyorSegments[slot];
+        if (segment != null) return segment.getTileEntryDirection(store.segmentTiles[slot], k);
+        return store.laneEntryDirections[slot * LANE_SLOTS + k];
+    }
+
+    /**
+     * Indique si un item peut entrer dans la case (place libre et espacement respecte).
      */
     public boolean canReceiveItem() {
-        return isConveyor() && !hasItem();
+        if (!isConveyor()) return false;
+        BeltSegment segment = store.conveyorSegments[slot];
+        if (segment != null) return segment.canInsert(store.segmentTiles[slot]);
+        int count = store.laneCounts[slot];
+        if (count == 0) return true;
+        return count < LANE_SLOTS && store.laneOffsets[slot * LANE_SLOTS + count - 1] >= ITEM_SPACING;
     }
 
     /**
@@ -309,23 +420,21 @@ public class Building {
         if (!canReceiveItem()) return;
         if (item == null || item == PlanterCrop.NONE) return;
         if (amount <= 0) return;
-        heldItem = item;
-        heldAmount = amount;
-        transportTimer = 0f;
-        this.entryDirection = normalizeDirection(entryDirection);
+        BeltSegment segment = store.conveyorSegments[slot];
+        if (segment != null) {
+            segment.insert(store.segmentTiles[slot], item, amount, normalizeDirection(entryDirection));
+            return;
+        }
+        if (store.pushLaneItem(slot, (byte) item.ordinal(), amount, 0f, normalizeDirection(entryDirection))) {
+            store.markChanged(this);
+        }
     }
 
     /**
      * Explique la methode takeItem.
      */
     public PlanterCrop takeItem() {
-        if (!hasItem()) return PlanterCrop.NONE;
-        PlanterCrop item = heldItem;
-        heldItem = PlanterCrop.NONE;
-        heldAmount = 0;
-        transportTimer = 0f;
-        entryDirection = -1;
-        return item;
+        return takeConveyedItem().crop;
     }
 
     /**
@@ -333,24 +442,15 @@ public class Building {
      */
     public ConveyedItem takeConveyedItem() {
         if (!hasItem()) return new ConveyedItem(PlanterCrop.NONE, 0);
-        ConveyedItem item = new ConveyedItem(heldItem, heldAmount);
-        heldItem = PlanterCrop.NONE;
-        heldAmount = 0;
-        transportTimer = 0f;
-        entryDirection = -1;
-        return item;
-    }
-
-    /**
-     * Explique la methode updateConveyor.
-     */
-    private void updateConveyor(float dt) {
-        if (hasItem()) {
-            transportTimer += dt;
-            if (transportTimer > TRANSPORT_TIME) {
-                transportTimer = TRANSPORT_TIME;
-            }
+        ConveyedItem item = new ConveyedItem(getHeldItem(), getHeldAmount());
+        BeltSegment segment = store.conveyorSegments[slot];
+        if (segment != null) {
+            segment.removeTileFront(store.segmentTiles[slot]);
+        } else {
+            store.popLaneItem(slot);
+            store.markChanged(this);
         }
+        return item;
     }
 
     /**
@@ -373,9 +473,10 @@ public class Building {
     public void addToHQStock(PlanterCrop crop, int amount) {
         if (!isHQ()) return;
         if (amount <= 0) return;
-        if (crop == PlanterCrop.POTATO) hqPotatoes += amount;
-        if (crop == PlanterCrop.STRAWBERRY) hqStrawberries += amount;
-        if (crop == PlanterCrop.LEEK) hqLeeks += amount;
+        int idx = getHQStockIndex(crop);
+        if (idx < 0) return;
+        store.hqStocks[idx] += amount;
+        store.markChanged(this);
     }
 
     /**
@@ -383,10 +484,8 @@ public class Building {
      */
     public int getHQStock(PlanterCrop crop) {
         if (!isHQ()) return 0;
-        if (crop == PlanterCrop.POTATO) return hqPotatoes;
-        if (crop == PlanterCrop.STRAWBERRY) return hqStrawberries;
-        if (crop == PlanterCrop.LEEK) return hqLeeks;
-        return 0;
+        int idx = getHQStockIndex(crop);
+        return idx >= 0 ? store.hqStocks[idx] : 0;
     }
 
     /**
@@ -396,38 +495,62 @@ public class Building {
         if (!isHQ()) return 0;
         if (amount <= 0) return 0;
 
-        if (crop == PlanterCrop.POTATO) {
-            int sold = Math.min(amount, hqPotatoes);
-            hqPotatoes -= sold;
-            return sold;
-        }
-        if (crop == PlanterCrop.STRAWBERRY) {
-            int sold = Math.min(amount, hqStrawberries);
-            hqStrawberries -= sold;
-            return sold;
-        }
-        if (crop == PlanterCrop.LEEK) {
-            int sold = Math.min(amount, hqLeeks);
-            hqLeeks -= sold;
-            return sold;
-        }
-        return 0;
+        int idx = getHQStockIndex(crop);
+        if (idx < 0) return 0;
+        int sold = Math.min(amount, store.hqStocks[idx]);
+        store.hqStocks[idx] -= sold;
+        if (sold > 0) store.markChanged(this);
+        return sold;
     }
 
     /**
      * Explique la methode clearHQStock.
      */
     public void clearHQStock() {
-        hqPotatoes = 0;
-        hqStrawberries = 0;
-        hqLeeks = 0;
+        if (!isHQ()) return;
+        int base = slot * BuildingStore.HQ_STOCK_STRIDE;
+        for (int i = 0; i < BuildingStore.HQ_STOCK_STRIDE; i++) {
+            store.hqStocks[base + i] = 0;
+        }
+        store.markChanged(this);
+    }
+
+    /**
+     * Retourne l'indice du stock d'une culture dans le tableau aplati des QG, ou -1.
+     */
+    private int getHQStockIndex(PlanterCrop crop) {
+        int base = slot * BuildingStore.HQ_STOCK_STRIDE;
+        if (crop == PlanterCrop.POTATO) return base;
+        if (crop == PlanterCrop.STRAWBERRY) return base + 1;
+        if (crop == PlanterCrop.LEEK) return base + 2;
+        return -1;
     }
 
     /**
-     * Explique la methode getGrowTimerSeconds.
+     * Temps de croissance ecoule, calcule a la demande depuis l'instant de plantation.
      */
     public float getGrowTimerSeconds() {
-        return growTimerSeconds;
+        if (!isPlanter()) return 0f;
+        return store.getGrowTimer(slot);
+    }
+
+    /**
+     * Instant de plantation sur l'horloge du stockage de la jardiniere (celle du monde une fois posee).
+     */
+    double getPlantedAt() {
+        if (!isPlanter()) return 0.0;
+        return store.plantedAt[slot];
+    }
+
+    /**
+     * Fixe l'etat d'une jardiniere depuis son instant de plantation, donne relativement a l'horloge
+     * courante de son stockage (negatif: plantee dans le passe). Sert au chargement.
+     */
+    void setPlanterPlantedAt(PlanterCrop crop, double plantedAgo, boolean ready) {
+        if (!isPlanter()) return;
+        store.planterCrops[slot] = (byte) (crop == null ? PlanterCrop.NONE : crop).ordinal();
+        store.planterReady[slot] = ready;
+        store.setPlantedAt(slot, store.clock + plantedAgo);
     }
 
     /**
@@ -435,35 +558,48 @@ public class Building {
      */
     public void setPlanterState(PlanterCrop crop, float growTimerSeconds, boolean ready) {
         if (!isPlanter()) return;
-        this.planterCrop = crop == null ? PlanterCrop.NONE : crop;
-        this.growTimerSeconds = Math.max(0f, growTimerSeconds);
-        this.ready = ready;
+        store.planterCrops[slot] = (byte) (crop == null ? PlanterCrop.NONE : crop).ordinal();
+        store.planterReady[slot] = ready;
+        store.setGrowTimer(slot, growTimerSeconds);
     }
 
     /**
      * Explique la methode getTransportTimerSeconds.
      */
     public float getTransportTimerSeconds() {
-        return transportTimer;
+        return getLaneOffset(0) * TRANSPORT_TIME;
     }
 
     /**
-     * Explique la methode setConveyorState.
+     * Remplace la voie par un seul item (ancien format de sauvegarde), avant la pose.
      */
     public void setConveyorState(PlanterCrop item, int amount, float transportTimer) {
         if (!isConveyor()) return;
-        this.heldItem = item == null ? PlanterCrop.NONE : item;
-        this.heldAmount = this.heldItem == PlanterCrop.NONE ? 0 : Math.max(0, amount);
-        this.transportTimer = Math.max(0f, Math.min(TRANSPORT_TIME, transportTimer));
-        this.entryDirection = this.heldItem == PlanterCrop.NONE ? -1 : getOppositeDirection(rotation);
+        store.clearLane(slot);
+        PlanterCrop heldItem = item == null ? PlanterCrop.NONE : item;
+        if (heldItem == PlanterCrop.NONE || amount <= 0) return;
+        float offset = Math.max(0f, Math.min(TRANSPORT_TIME, transportTimer)) / TRANSPORT_TIME;
+        store.pushLaneItem(slot, (byte) heldItem.ordinal(), amount, offset, getOppositeDirection(rotation));
+    }
+
+    /**
+     * Remplace la voie par les items donnes, de l'aval vers l'amont, avant la pose (les items mal espaces sont ignores).
+     */
+    public void setLaneState(PlanterCrop[] items, int[] amounts, float[] offsets) {
+        if (!isConveyor()) return;
+        store.clearLane(slot);
+        for (int k = 0; k < items.length; k++) {
+            if (items[k] == null || items[k] == PlanterCrop.NONE || amounts[k] <= 0) continue;
+            float offset = Math.max(0f, Math.min(1f, offsets[k]));
+            store.pushLaneItem(slot, (byte) items[k].ordinal(), amounts[k], offset, getOppositeDirection(rotation));
+        }
     }
 
     /**
-     * Explique la methode getEntryDirection.
+     * Cote d'entree de l'item le plus en aval, ou -1.
      */
     public int getEntryDirection() {
-        if (!hasItem()) return -1;
-        return entryDirection;
+        return getLaneEntryDirection(0);
     }
 
     /**
@@ -478,7 +614,7 @@ public class Building {
     /**
      * Explique la methode getOppositeDirection.
      */
-    private static int getOppositeDirection(int direction) {
+    static int getOppositeDirection(int direction) {
         return normalizeDirection(direction + 2);
     }
 
@@ -487,9 +623,9 @@ public class Building {
      */
     public void setHQStock(PlanterCrop crop, int amount) {
         if (!isHQ()) return;
-        int safeAmount = Math.max(0, amount);
-        if (crop == PlanterCrop.POTATO) hqPotatoes = safeAmount;
-        if (crop == PlanterCrop.STRAWBERRY) hqStrawberries = safeAmount;
-        if (crop == PlanterCrop.LEEK) hqLeeks = safeAmount;
+        int idx = getHQStockIndex(crop);
+        if (idx < 0) return;
+        store.hqStocks[idx] = Math.max(0, amount);
+        store.markChanged(this);
     }
 }
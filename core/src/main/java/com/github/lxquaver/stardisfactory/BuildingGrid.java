@@ -0,0 +1,126 @@
+package com.github.lxquaver.stardisfactory;
+
+import com.badlogic.gdx.utils.LongMap;
+
+import java.util.List;
+
+/**
+ * Index d'occupation de la grille.
+ *
+ * Chaque case pointe vers le batiment qui la couvre. Les emprises multi-cases
+ * (QG, hotel des ventes) sont inscrites sur toutes leurs cases, ce qui rend
+ * les recherches par case en temps constant au lieu d'un parcours de la liste.
+ *
+ * La grille n'a pas de borne: les cases sont rangees par chunk
+ * ({@link WorldChunks}) et seuls les chunks qui portent au moins un batiment
+ * sont alloues. Une emprise a cheval sur plusieurs chunks est inscrite dans
+ * chacun d'eux.
+ */
+public class BuildingGrid {
+
+    /**
+     * Cases de chaque chunk occupe (ligne par ligne), et leur nombre de cases occupees.
+     */
+    private final LongMap<Building[]> chunks = new LongMap<>();
+    private final LongMap<int[]> occupied = new LongMap<>();
+
+    /**
+     * Inscrit toutes les cases couvertes par le batiment.
+     */
+    public void add(Building b) {
+        int x1 = b.getGridX() + b.getType().width;
+        int y1 = b.getGridY() + b.getType().height;
+        for (int y = b.getGridY(); y < y1; y++) {
+            for (int x = b.getGridX(); x < x1; x++) {
+                long key = WorldChunks.key(WorldChunks.chunkOf(x), WorldChunks.chunkOf(y));
+                Building[] cells = chunks.get(key);
+                if (cells == null) {
+                    cells = new Building[WorldChunks.CHUNK_CELLS];
+                    chunks.put(key, cells);
+                    occupied.put(key, new int[1]);
+                }
+                int idx = WorldChunks.localIndex(x, y);
+                if (cells[idx] == null) occupied.get(key)[0]++;
+                cells[idx] = b;
+            }
+        }
+    }
+
+    /**
+     * Libere les cases couvertes par le batiment si elles lui appartiennent encore.
+     */
+    public void remove(Building b) {
+        int x1 = b.getGridX() + b.getType().width;
+        int y1 = b.getGridY() + b.getType().height;
+        for (int y = b.getGridY(); y < y1; y++) {
+            for (int x = b.getGridX(); x < x1; x++) {
+                long key = WorldChunks.key(WorldChunks.chunkOf(x), WorldChunks.chunkOf(y));
+                Building[] cells = chunks.get(key);
+                if (cells == null) continue;
+                int idx = WorldChunks.localIndex(x, y);
+                if (cells[idx] != b) continue;
+                cells[idx] = null;
+                if (--occupied.get(key)[0] == 0) {
+                    chunks.remove(key);
+                    occupied.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Vide completement l'index.
+     */
+    public void clear() {
+        chunks.clear();
+        occupied.clear();
+    }
+
+    /**
+     * Reconstruit l'index a partir d'une liste complete de batiments.
+     */
+    public void rebuild(List<Building> buildings) {
+        clear();
+        for (Building b : buildings) {
+            add(b);
+        }
+    }
+
+    /**
+     * Retourne le batiment dont l'emprise couvre la case, ou null.
+     */
+    public Building getCovering(int gridX, int gridY) {
+        Building[] cells = chunks.get(WorldChunks.key(WorldChunks.chunkOf(gridX), WorldChunks.chunkOf(gridY)));
+        if (cells == null) return null;
+        return cells[WorldChunks.localIndex(gridX, gridY)];
+    }
+
+    /**
+     * Retourne le batiment dont l'ancre est exactement sur la case, ou null.
+     */
+    public Building getAnchoredAt(int gridX, int gridY) {
+        Building b = getCovering(gridX, gridY);
+        if (b == null) return null;
+        if (b.getGridX() != gridX || b.getGridY() != gridY) return null;
+        return b;
+    }
+
+    /**
+     * Indique si aucune case de la zone n'est occupee.
+     */
+    public boolean isAreaFree(int gridX, int gridY, int areaWidth, int areaHeight) {
+        for (int y = gridY; y < gridY + areaHeight; y++) {
+            for (int x = gridX; x < gridX + areaWidth; x++) {
+                if (getCovering(x, y) != null) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Nombre de chunks portant au moins un batiment.
+     */
+    public int getChunkCount() {
+        return chunks.size;
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.lxquaver.stardisfactory;
+
+import java.util.List;
+
+/**
+ * Disposition des batiments vue par le rendu: type, position et orientation de chaque ligne.
+ *
+ * Une disposition n'est plus modifiee apres sa construction: le moteur en
+ * construit une nouvelle a chaque pose, suppression ou rotation, et les
+ * {@link WorldSnapshot} la partagent au lieu de recopier ces tableaux a
+ * chaque tick. La ligne i decrit le i-eme batiment du monde au moment de la
+ * construction.
+ */
+public final class BuildingLayout {
+
+    /**
+     * Disposition sans batiment (snapshot jamais rempli).
+     */
+    public static final BuildingLayout EMPTY = new BuildingLayout(List.of());
+
+    /**
+     * Nombre de lignes (batiments).
+     */
+    public final int count;
+
+    /**
+     * Type (ordinal de Building.Type), position et orientation de chaque batiment.
+     */
+    public final byte[] types;
+    public final int[] gridX;
+    public final int[] gridY;
+    public final byte[] rotations;
+
+    /**
+     * Releve la disposition des batiments donnes, dans leur ordre.
+     */
+    BuildingLayout(List<Building> buildings) {
+        count = buildings.size();
+        types = new byte[count];
+        gridX = new int[count];
+        gridY = new int[count];
+        rotations = new byte[count];
+        for (int i = 0; i < count; i++) {
+            Building b = buildings.get(i);
+            types[i] = (byte) b.getType().ordinal();
+            gridX[i] = b.getGridX();
+            gridY[i] = b.getGridY();
+            rotations[i] = (byte) b.getRotation();
+        }
+    }
+}
@@ -0,0 +1,633 @@
+package com.github.lxquaver.stardisfactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Stockage en tableaux paralleles de l'etat chaud des batiments.
+ *
+ * Les batiments sont partitionnes par categorie (jardinieres, convoyeurs, QG).
+ * Chaque partition est contigue, ce qui permet de faire croitre les cultures
+ * par des boucles serrees, sans branchement sur le type. Les convoyeurs, eux,
+ * avancent par troncons ({@link BeltSegment}). {@link Building} reste la facade utilisee par l'UI et la sauvegarde:
+ * il ne conserve que sa partition et son indice (slot) dans ce stockage.
+ */
+public class BuildingStore {
+
+    private static final Building.PlanterCrop[] CROPS = Building.PlanterCrop.values();
+
+    /**
+     * Temps de croissance indexe par ordinal de culture (0 pour NONE).
+     */
+    private static final float[] GROW_TIME_BY_CROP = new float[CROPS.length];
+
+    static {
+        for (Building.PlanterCrop crop : CROPS) {
+            GROW_TIME_BY_CROP[crop.ordinal()] = Building.getGrowTimeSecondsFor(crop);
+        }
+    }
+
+    /**
+     * Nombre d'entrees de stock par QG (patate, fraise, poireau).
+     */
+    static final int HQ_STOCK_STRIDE = 3;
+
+    /**
+     * Partition jardinieres. La croissance n'est pas avancee a chaque tick:
+     * chaque jardiniere retient l'instant de sa plantation (horloge clock) et
+     * son echeance est inscrite dans growthQueue.
+     */
+    int planterCount = 0;
+    Building[] planterOwners;
+    double[] plantedAt;
+    byte[] planterCrops;
+    boolean[] planterReady;
+
+    /**
+     * Horloge de simulation des jardinieres (secondes) et echeances de maturite.
+     */
+    double clock = 0.0;
+    private final GrowthQueue growthQueue;
+
+    /**
+     * Recoit les jardinieres qui arrivent a maturite pendant tickPlanters.
+     */
+    public interface PlanterListener {
+        /**
+         * Une jardiniere vient de murir.
+         */
+        void onPlanterReady(Building planter);
+    }
+
+    private PlanterListener planterListener;
+
+    /**
+     * Definit l'ecouteur de maturite des jardinieres.
+     */
+    public void setPlanterListener(PlanterListener planterListener) {
+        this.planterListener = planterListener;
+    }
+
+    /**
+     * Partition convoyeurs. Chaque convoyeur porte une voie de LANE_SLOTS items
+     * (pas de LANE_SLOTS dans les tableaux d'items, indice 0 = item le plus en aval).
+     * L'offset d'un item va de 0 (entree de la case) a 1 (sortie).
+     * Un convoyeur rattache a un {@link BeltSegment} a une voie vide: ses items
+     * vivent dans le troncon (conveyorSegments, indice de case segmentTiles).
+     */
+    int conveyorCount = 0;
+    Building[] conveyorOwners;
+    byte[] laneCounts;
+    byte[] laneItems;
+    int[] laneAmounts;
+    float[] laneOffsets;
+    float[] previousLaneOffsets;
+    byte[] laneEntryDirections;
+    BeltSegment[] conveyorSegments;
+    int[] segmentTiles;
+
+    /**
+     * Partition QG (stock aplati par pas de HQ_STOCK_STRIDE).
+     */
+    int hqCount = 0;
+    Building[] hqOwners;
+    int[] hqStocks;
+
+    /**
+     * Suivi des changements pour le journal de sauvegarde (null tant qu'il n'est pas active):
+     * batiments poses ou modifies par un evenement, troncons dont le nombre d'items a change.
+     */
+    private ArrayList<Building> changedBuildings;
+    private ArrayList<BeltSegment> changedSegments;
+
+    /**
+     * Suivi des batiments dont l'etat visible (culture, maturite, voie) a change depuis la
+     * derniere capture de rendu (null tant qu'il n'est pas active).
+     */
+    private ArrayList<Building> visibleChanges;
+
+    /**
+     * Batiments sans etat chaud (hotel des ventes).
+     */
+    private static final BuildingStore STATELESS = new BuildingStore(0, 0, 0, false);
+
+    /**
+     * Stockage commun des batiments jetes par clear(): un slot par partition, partage (son contenu n'a plus de sens).
+     */
+    private static final BuildingStore DISCARDED = new BuildingStore(1, 1, 1, false);
+
+    /**
+     * Cree un stockage vide.
+     */
+    public BuildingStore() {
+        this(16, 16, 16, true);
+    }
+
+    /**
+     * Cree un stockage avec une capacite initiale par partition; la file des echeances n'existe
+     * que dans un stockage de monde (les stockages detaches n'ont pas d'horloge qui avance).
+     */
+    private BuildingStore(int planters, int conveyors, int hqs, boolean scheduling) {
+        growthQueue = scheduling ? new GrowthQueue() : null;
+
+        planterOwners = new Building[planters];
+        plantedAt = new double[planters];
+        planterCrops = new byte[planters];
+        planterReady = new boolean[planters];
+
+        conveyorOwners = new Building[conveyors];
+        laneCounts = new byte[conveyors];
+        laneItems = new byte[conveyors * Building.LANE_SLOTS];
+        laneAmounts = new int[conveyors * Building.LANE_SLOTS];
+        laneOffsets = new float[conveyors * Building.LANE_SLOTS];
+        previousLaneOffsets = new float[conveyors * Building.LANE_SLOTS];
+        laneEntryDirections = new byte[conveyors * Building.LANE_SLOTS];
+        conveyorSegments = new BeltSegment[conveyors];
+        segmentTiles = new int[conveyors];
+
+        hqOwners = new Building[hqs];
+        hqStocks = new int[hqs * HQ_STOCK_STRIDE];
+    }
+
+    /**
+     * Cree le mini-stockage d'un batiment qui n'est pas (ou plus) pose dans le monde:
+     * un seul slot, dans la seule partition de son type (recopie dans le monde par add).
+     */
+    static BuildingStore detached(Building.Type type) {
+        switch (type.category) {
+            case FARMING:
+                return new BuildingStore(1, 0, 0, false);
+            case TRANSPORT:
+                return new BuildingStore(0, 1, 0, false);
+            default:
+                return type == Building.Type.MAIN_HQ ? new BuildingStore(0, 0, 1, false) : STATELESS;
+        }
+    }
+
+    /**
+     * Nombre de jardinieres stockees.
+     */
+    public int getPlanterCount() {
+        return planterCount;
+    }
+
+    /**
+     * Nombre de convoyeurs stockes.
+     */
+    public int getConveyorCount() {
+        return conveyorCount;
+    }
+
+    /**
+     * Vide toutes les partitions. Les batiments retires sont jetes: ils pointent tous sur un
+     * stockage partage au lieu de recevoir chacun une copie de leur etat.
+     */
+    public void clear() {
+        for (int i = 0; i < planterCount; i++) discard(planterOwners, i);
+        for (int i = 0; i < conveyorCount; i++) discard(conveyorOwners, i);
+        for (int i = 0; i < hqCount; i++) discard(hqOwners, i);
+        Arrays.fill(conveyorSegments, 0, conveyorCount, null);
+        planterCount = 0;
+        conveyorCount = 0;
+        hqCount = 0;
+        growthQueue.clear();
+        clearChanges();
+        if (visibleChanges != null) {
+            for (Building b : visibleChanges) b.visibleChanged = false;
+            visibleChanges.clear();
+        }
+    }
+
+    /**
+     * Rattache le batiment d'un slot au stockage partage des batiments jetes.
+     */
+    private static void discard(Building[] owners, int slot) {
+        owners[slot].store = DISCARDED;
+        owners[slot].slot = 0;
+        owners[slot] = null;
+    }
+
+    /**
+     * Avance l'horloge des jardinieres et marque pretes celles arrivees a echeance.
+     * Le cout ne depend que du nombre de jardinieres qui murissent pendant le pas.
+     */
+    public void tickPlanters(float dt) {
+        clock += dt;
+        while (growthQueue.hasDue(clock)) {
+            Building owner = growthQueue.peekOwner();
+            double planted = growthQueue.peekPlantedAt();
+            growthQueue.pop();
+            // Entree perimee: jardiniere retiree, recoltee ou replantee depuis.
+            if (owner.store != this || !owner.isPlanter() || plantedAt[owner.slot] != planted) continue;
+            if (planterCrops[owner.slot] == 0 || planterReady[owner.slot]) continue;
+            planterReady[owner.slot] = true;
+            markVisible(owner);
+            if (planterListener != null) planterListener.onPlanterReady(owner);
+        }
+    }
+
+    /**
+     * Nombre d'echeances de maturite en attente.
+     */
+    public int getPendingGrowthCount() {
+        return growthQueue.size();
+    }
+
+    /**
+     * Fait avancer une seule jardiniere (facade Building.update).
+     */
+    void tickPlanter(int slot, float dt) {
+        plantedAt[slot] -= dt;
+        float total = GROW_TIME_BY_CROP[planterCrops[slot]];
+        planterReady[slot] |= total > 0f & getGrowTimer(slot) >= total;
+    }
+
+    /**
+     * Temps de croissance ecoule d'une jardiniere, calcule depuis sa plantation (borne a la duree de sa culture).
+     */
+    float getGrowTimer(int slot) {
+        float total = GROW_TIME_BY_CROP[planterCrops[slot]];
+        return (float) Math.max(0.0, Math.min(total, clock - plantedAt[slot]));
+    }
+
+    /**
+     * Horloge de simulation des jardinieres (secondes).
+     */
+    public double getClock() {
+        return clock;
+    }
+
+    /**
+     * Remet l'horloge a la valeur sauvegardee; a appeler sur un stockage vide, avant d'y ajouter les batiments.
+     */
+    public void setClock(double clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Fixe l'instant de plantation d'une jardiniere (sur clock) et inscrit son echeance si elle pousse.
+     */
+    void setPlantedAt(int slot, double time) {
+        plantedAt[slot] = time;
+        schedule(slot);
+    }
+
+    /**
+     * Fixe le temps de croissance ecoule d'une jardiniere et inscrit son echeance si elle pousse.
+     */
+    void setGrowTimer(int slot, float seconds) {
+        plantedAt[slot] = clock - Math.max(0f, seconds);
+        schedule(slot);
+    }
+
+    /**
+     * Inscrit l'echeance de maturite d'une jardiniere en croissance.
+     */
+    private void schedule(int slot) {
+        Building owner = planterOwners[slot];
+        float total = GROW_TIME_BY_CROP[planterCrops[slot]];
+        if (growthQueue == null || owner == null || total <= 0f || planterReady[slot]) return;
+        growthQueue.push(plantedAt[slot] + total, owner, plantedAt[slot]);
+    }
+
+    /**
+     * Fait avancer la voie d'un seul convoyeur hors troncon (facade Building.update).
+     */
+    void tickConveyor(int slot, float dt) {
+        advanceLane(slot, dt / Building.TRANSPORT_TIME);
+    }
+
+    /**
+     * Avance les items d'une voie, de l'aval vers l'amont, en respectant l'espacement minimal.
+     */
+    private void advanceLane(int slot, float step) {
+        final float[] offsets = laneOffsets;
+        final float[] previous = previousLaneOffsets;
+        int base = slot * Building.LANE_SLOTS;
+        int end = base + laneCounts[slot];
+        float limit = 1f;
+        for (int j = base; j < end; j++) {
+            float offset = offsets[j];
+            previous[j] = offset;
+            offset = Math.max(offset, Math.min(offset + step, limit));
+            offsets[j] = offset;
+            limit = offset - Building.ITEM_SPACING;
+        }
+    }
+
+    /**
+     * Ajoute un item a l'entree de la voie si la place est libre; retourne false sinon.
+     */
+    boolean pushLaneItem(int slot, byte item, int amount, float offset, int entryDirection) {
+        int count = laneCounts[slot];
+        if (count >= Building.LANE_SLOTS) return false;
+        int base = slot * Building.LANE_SLOTS;
+        if (count > 0 && laneOffsets[base + count - 1] - Building.ITEM_SPACING < offset) return false;
+        appendLaneItem(slot, item, amount, offset, entryDirection);
+        return true;
+    }
+
+    /**
+     * Ajoute un item en queue de voie sans controle d'espacement (redistribution d'un troncon).
+     */
+    void appendLaneItem(int slot, byte item, int amount, float offset, int entryDirection) {
+        int count = laneCounts[slot];
+        if (count >= Building.LANE_SLOTS) return;
+        int j = slot * Building.LANE_SLOTS + count;
+        laneItems[j] = item;
+        laneAmounts[j] = amount;
+        laneOffsets[j] = offset;
+        previousLaneOffsets[j] = offset;
+        laneEntryDirections[j] = (byte) entryDirection;
+        laneCounts[slot] = (byte) (count + 1);
+    }
+
+    /**
+     * Retire l'item le plus en aval de la voie (decale les suivants, au plus LANE_SLOTS - 1).
+     */
+    void popLaneItem(int slot) {
+        int count = laneCounts[slot];
+        if (count == 0) return;
+        int base = slot * Building.LANE_SLOTS;
+        int moved = count - 1;
+        System.arraycopy(laneItems, base + 1, laneItems, base, moved);
+        System.arraycopy(laneAmounts, base + 1, laneAmounts, base, moved);
+        System.arraycopy(laneOffsets, base + 1, laneOffsets, base, moved);
+        System.arraycopy(previousLaneOffsets, base + 1, previousLaneOffsets, base, moved);
+        System.arraycopy(laneEntryDirections, base + 1, laneEntryDirections, base, moved);
+        laneCounts[slot] = (byte) moved;
+    }
+
+    /**
+     * Vide la voie d'un convoyeur.
+     */
+    void clearLane(int slot) {
+        laneCounts[slot] = 0;
+    }
+
+    /**
+     * Recopie la voie d'un convoyeur d'un stockage a un autre.
+     */
+    private static void copyLane(BuildingStore from, int fromSlot, BuildingStore to, int toSlot) {
+        int lanes = Building.LANE_SLOTS;
+        to.laneCounts[toSlot] = from.laneCounts[fromSlot];
+        System.arraycopy(from.laneItems, fromSlot * lanes, to.laneItems, toSlot * lanes, lanes);
+        System.arraycopy(from.laneAmounts, fromSlot * lanes, to.laneAmounts, toSlot * lanes, lanes);
+        System.arraycopy(from.laneOffsets, fromSlot * lanes, to.laneOffsets, toSlot * lanes, lanes);
+        System.arraycopy(from.previousLaneOffsets, fromSlot * lanes, to.previousLaneOffsets, toSlot * lanes, lanes);
+        System.arraycopy(from.laneEntryDirections, fromSlot * lanes, to.laneEntryDirections, toSlot * lanes, lanes);
+    }
+
+    /**
+     * Ajoute un batiment a sa partition en y recopiant son etat courant.
+     */
+    public void add(Building b) {
+        BuildingStore from = b.store;
+        int fromSlot = b.slot;
+        if (from == this) return;
+        markChanged(b);
+
+        int slot;
+        switch (b.getType().category) {
+            case FARMING:
+                slot = allocatePlanter();
+                planterOwners[slot] = b;
+                planterCrops[slot] = from.planterCrops[fromSlot];
+                planterReady[slot] = from.planterReady[fromSlot];
+                plantedAt[slot] = clock - (from.clock - from.plantedAt[fromSlot]);
+                schedule(slot);
+                break;
+            case TRANSPORT:
+                slot = allocateConveyor();
+                conveyorOwners[slot] = b;
+                copyLane(from, fromSlot, this, slot);
+                conveyorSegments[slot] = null;
+                break;
+            default:
+                if (!b.isHQ()) return;
+                slot = allocateHQ();
+                hqOwners[slot] = b;
+                System.arraycopy(from.hqStocks, fromSlot * HQ_STOCK_STRIDE, hqStocks, slot * HQ_STOCK_STRIDE, HQ_STOCK_STRIDE);
+                break;
+        }
+
+        b.store = this;
+        b.slot = slot;
+    }
+
+    /**
+     * Retire un batiment de sa partition; son etat est conserve dans un stockage detache.
+     */
+    public void remove(Building b) {
+        forgetChange(b);
+        if (b.store != this) return;
+
+        BuildingStore detached = detached(b.getType());
+        int slot = b.slot;
+        switch (b.getType().category) {
+            case FARMING: {
+                detached.plantedAt[0] = detached.clock - (clock - plantedAt[slot]);
+                detached.planterCrops[0] = planterCrops[slot];
+                detached.planterReady[0] = planterReady[slot];
+                int last = --planterCount;
+                if (slot != last) {
+                    planterOwners[slot] = planterOwners[last];
+                    plantedAt[slot] = plantedAt[last];
+                    planterCrops[slot] = planterCrops[last];
+                    planterReady[slot] = planterReady[last];
+                    planterOwners[slot].slot = slot;
+                }
+                planterOwners[last] = null;
+                break;
+            }
+            case TRANSPORT: {
+                copyLane(this, slot, detached, 0);
+                int last = --conveyorCount;
+                if (slot != last) {
+                    conveyorOwners[slot] = conveyorOwners[last];
+                    copyLane(this, last, this, slot);
+                    conveyorSegments[slot] = conveyorSegments[last];
+                    segmentTiles[slot] = segmentTiles[last];
+                    conveyorOwners[slot].slot = slot;
+                }
+                conveyorOwners[last] = null;
+                conveyorSegments[last] = null;
+                break;
+            }
+            default: {
+                System.arraycopy(hqStocks, slot * HQ_STOCK_STRIDE, detached.hqStocks, 0, HQ_STOCK_STRIDE);
+                int last = --hqCount;
+                if (slot != last) {
+                    hqOwners[slot] = hqOwners[last];
+                    System.arraycopy(hqStocks, last * HQ_STOCK_STRIDE, hqStocks, slot * HQ_STOCK_STRIDE, HQ_STOCK_STRIDE);
+                    hqOwners[slot].slot = slot;
+                }
+                hqOwners[last] = null;
+                break;
+            }
+        }
+
+        b.store = detached;
+        b.slot = 0;
+    }
+
+    /**
+     * Active le suivi des changements a journaliser (stockage du monde uniquement).
+     */
+    public void setChangeTracking(boolean enabled) {
+        clearChanges();
+        changedBuildings = enabled ? new ArrayList<>() : null;
+        changedSegments = enabled ? new ArrayList<>() : null;
+    }
+
+    /**
+     * Note un batiment pose ou modifie depuis la derniere collecte (une seule fois).
+     */
+    void markChanged(Building b) {
+        markVisible(b);
+        if (changedBuildings == null || b.saveChanged) return;
+        b.saveChanged = true;
+        changedBuildings.add(b);
+    }
+
+    /**
+     * Note un troncon dont le nombre d'items a change: toutes ses cases seront journalisees a la collecte.
+     */
+    void markChanged(BeltSegment segment) {
+        if (changedSegments == null || segment.saveChanged) return;
+        segment.saveChanged = true;
+        changedSegments.add(segment);
+    }
+
+    /**
+     * Oublie le changement d'un batiment retire (son ancre est journalisee a part).
+     */
+    private void forgetChange(Building b) {
+        if (changedBuildings == null || !b.saveChanged) return;
+        b.saveChanged = false;
+        changedBuildings.remove(b);
+    }
+
+    /**
+     * Ajoute a out les batiments changes depuis la derniere collecte, cases des troncons changes
+     * comprises, puis repart de zero. Le cout ne depend que du nombre de changements.
+     */
+    public void drainChanges(List<Building> out) {
+        if (changedBuildings == null) return;
+        for (BeltSegment segment : changedSegments) {
+            segment.saveChanged = false;
+            // Un troncon defait a deja reporte le changement sur ses cases (unpack).
+            if (segment.network == null) continue;
+            for (Building tile : segment.tiles) {
+                if (tile.store == this) markChanged(tile);
+            }
+        }
+        changedSegments.clear();
+        for (Building b : changedBuildings) b.saveChanged = false;
+        out.addAll(changedBuildings);
+        changedBuildings.clear();
+    }
+
+    /**
+     * Oublie les changements en attente (apres un snapshot complet ou un chargement).
+     */
+    public void clearChanges() {
+        if (changedBuildings == null) return;
+        for (Building b : changedBuildings) b.saveChanged = false;
+        for (BeltSegment segment : changedSegments) segment.saveChanged = false;
+        changedBuildings.clear();
+        changedSegments.clear();
+    }
+
+    /**
+     * Active le suivi des changements visibles par le rendu (stockage du monde uniquement).
+     */
+    public void setVisibleTracking(boolean enabled) {
+        if (visibleChanges != null) {
+            for (Building b : visibleChanges) b.visibleChanged = false;
+        }
+        visibleChanges = enabled ? new ArrayList<>() : null;
+    }
+
+    /**
+     * Note un batiment dont l'etat visible a change depuis la derniere capture (une seule fois).
+     */
+    void markVisible(Building b) {
+        if (visibleChanges == null || b.visibleChanged) return;
+        b.visibleChanged = true;
+        visibleChanges.add(b);
+    }
+
+    /**
+     * Indique si un batiment a change d'etat visible depuis la derniere collecte.
+     */
+    public boolean hasVisibleChanges() {
+        return visibleChanges != null && !visibleChanges.isEmpty();
+    }
+
+    /**
+     * Ajoute a out les batiments du stockage changes depuis la derniere collecte, puis repart de zero.
+     */
+    public void drainVisibleChanges(List<Building> out) {
+        if (visibleChanges == null) return;
+        for (Building b : visibleChanges) {
+            b.visibleChanged = false;
+            // Un batiment retire depuis n'a plus de ligne dans la disposition courante.
+            if (b.store == this) out.add(b);
+        }
+        visibleChanges.clear();
+    }
+
+    /**
+     * Reserve un slot en fin de partition jardinieres.
+     */
+    private int allocatePlanter() {
+        if (planterCount == planterOwners.length) {
+            int capacity = grow(planterOwners.length);
+            planterOwners = Arrays.copyOf(planterOwners, capacity);
+            plantedAt = Arrays.copyOf(plantedAt, capacity);
+            planterCrops = Arrays.copyOf(planterCrops, capacity);
+            planterReady = Arrays.copyOf(planterReady, capacity);
+        }
+        return planterCount++;
+    }
+
+    /**
+     * Reserve un slot en fin de partition convoyeurs.
+     */
+    private int allocateConveyor() {
+        if (conveyorCount == conveyorOwners.length) {
+            int capacity = grow(conveyorOwners.length);
+            conveyorOwners = Arrays.copyOf(conveyorOwners, capacity);
+            laneCounts = Arrays.copyOf(laneCounts, capacity);
+            laneItems = Arrays.copyOf(laneItems, capacity * Building.LANE_SLOTS);
+            laneAmounts = Arrays.copyOf(laneAmounts, capacity * Building.LANE_SLOTS);
+            laneOffsets = Arrays.copyOf(laneOffsets, capacity * Building.LANE_SLOTS);
+            previousLaneOffsets = Arrays.copyOf(previousLaneOffsets, capacity * Building.LANE_SLOTS);
+            laneEntryDirections = Arrays.copyOf(laneEntryDirections, capacity * Building.LANE_SLOTS);
+            conveyorSegments = Arrays.copyOf(conveyorSegments, capacity);
+            segmentTiles = Arrays.copyOf(segmentTiles, capacity);
+        }
+        return conveyorCount++;
+    }
+
+    /**
+     * Reserve un slot en fin de partition QG.
+     */
+    private int allocateHQ() {
+        if (hqCount == hqOwners.length) {
+            int capacity = grow(hqOwners.length);
+            hqOwners = Arrays.copyOf(hqOwners, capacity);
+            hqStocks = Arrays.copyOf(hqStocks, capacity * HQ_STOCK_STRIDE);
+        }
+        return hqCount++;
+    }
+
+    /**
+     * Calcule la nouvelle capacite d'une partition pleine (x1.5).
+     */
+    private static int grow(int capacity) {
+        return Math.max(4, capacity + (capacity >> 1));
+    }
+}
@@ -0,0 +1,589 @@
+package com.github.lxquaver.stardisfactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Graphe precalcule des convoyeurs.
+ *
+ * Le reseau est construit a partir de l'orientation des convoyeurs (case de
+ * sortie) puis mis en cache jusqu'a la prochaine modification de la carte.
+ * Les suites droites de convoyeurs de meme orientation, sans entree laterale
+ * d'un autre convoyeur, sont regroupees en {@link BeltSegment}: un troncon
+ * coute le meme prix a simuler qu'il fasse 5 ou 500 cases. A chaque
+ * reconstruction (pose, rotation, suppression), les items des anciens
+ * troncons sont redistribues dans les voies de leurs cases puis regroupes
+ * dans les nouveaux: les troncons se coupent et se recollent sans perte.
+ *
+ * Les troncons sont ensuite traites de l'aval vers l'amont: une ligne
+ * saturee avance donc d'un cran complet en un seul tick, pour un cout
+ * lineaire en nombre de troncons.
+ *
+ * Seuls les troncons actifs sont traites. Un troncon s'endort quand il ne
+ * peut plus progresser (vide ou bloque, sans amont pret ni jardiniere mure a
+ * recolter) et se reveille sur evenement: item pose ou retire, tete d'un
+ * troncon amont arrivee a la sortie, jardiniere adjacente arrivee a maturite,
+ * ou reconstruction du reseau apres une pose ou une suppression. Le cout d'un
+ * tick suit donc l'activite du reseau et non le nombre de convoyeurs.
+ */
+public class ConveyorNetwork {
+
+    /**
+     * Ordre de scan des voisins (haut, droite, bas, gauche), identique a l'ancien comportement.
+     */
+    private static final int[][] NEIGHBORS = new int[][]{{0, 1}, {1, 0}, {0, -1}, {-1, 0}};
+
+    private static final Building[] NO_BUILDINGS = new Building[0];
+    private static final int[] NO_DIRECTIONS = new int[0];
+    private static final BeltSegment[] NO_SEGMENTS = new BeltSegment[0];
+
+    /**
+     * Nombre maximal de ticks simules pendant un rattrapage hors ligne (boucles fermees qui ne s'endorment jamais).
+     */
+    private static final int MAX_CATCH_UP_STEPS = 36_000;
+
+    /**
+     * Recoit les evenements produits par le reseau pendant un tick.
+     */
+    public interface Listener {
+        /**
+         * Une jardiniere vient d'etre recoltee par un convoyeur adjacent.
+         */
+        void onPlanterHarvested(Building planter, Building conveyor);
+    }
+
+    /**
+     * Troncons tries de l'aval (puits) vers l'amont.
+     */
+    private BeltSegment[] order = NO_SEGMENTS;
+    private int conveyorCount = 0;
+
+    /**
+     * Pour chaque troncon de order: troncons amont qui deversent dans sa premiere case.
+     */
+    private BeltSegment[][] feeders = new BeltSegment[0][];
+    private int[][] feederEntryDirections = new int[0][];
+
+    /**
+     * Pour chaque troncon de order: jardinieres adjacentes, case du troncon qui les recolte et cote d'entree.
+     */
+    private Building[][] planters = new Building[0][];
+    private int[][] planterTiles = new int[0][];
+    private int[][] planterEntryDirections = new int[0][];
+
+    /**
+     * Pour chaque troncon de order: QG recevant sa sortie, ou null.
+     */
+    private Building[] hqTargets = NO_BUILDINGS;
+
+    /**
+     * Pour chaque troncon de order: indice (dans order) du troncon aval alimente par sa sortie, ou -1.
+     */
+    private int[] downstreamOf = NO_DIRECTIONS;
+
+    /**
+     * Troncons adjacents a chaque jardiniere (reveilles quand elle murit).
+     */
+    private final Map<Building, List<BeltSegment>> planterSegments = new IdentityHashMap<>();
+
+    /**
+     * Indices (dans order) des troncons actifs.
+     */
+    private int[] active = NO_DIRECTIONS;
+    private int activeCount = 0;
+
+    /**
+     * Troncons endormis depuis la derniere collecte des cases changees.
+     */
+    private final List<BeltSegment> settled = new ArrayList<>();
+
+    private boolean dirty = true;
+    private Listener listener;
+
+    /**
+     * Definit l'ecouteur d'evenements du reseau.
+     */
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Signale que la topologie a change (pose, rotation ou suppression).
+     */
+    public void markDirty() {
+        dirty = true;
+    }
+
+    /**
+     * Nombre de convoyeurs du dernier graphe construit.
+     */
+    public int getConveyorCount() {
+        return conveyorCount;
+    }
+
+    /**
+     * Nombre de troncons du dernier graphe construit.
+     */
+    public int getSegmentCount() {
+        return order.length;
+    }
+
+    /**
+     * Nombre de troncons actuellement eveilles.
+     */
+    public int getActiveSegmentCount() {
+        return activeCount;
+    }
+
+    /**
+     * Indique si des troncons se sont endormis depuis la derniere collecte des cases changees.
+     */
+    public boolean hasSettledSegments() {
+        return !settled.isEmpty();
+    }
+
+    /**
+     * Ajoute a out les cases dont les items ont pu bouger depuis le dernier appel: celles des troncons
+     * actifs, et celles des troncons endormis entre-temps (leur interpolation doit s'arreter).
+     */
+    public void collectChangedTiles(List<Building> out) {
+        for (int a = 0; a < activeCount; a++) {
+            Collections.addAll(out, order[active[a]].tiles);
+        }
+        for (BeltSegment segment : settled) {
+            segment.settledSinceCapture = false;
+            if (segment.network == this) Collections.addAll(out, segment.tiles);
+        }
+        settled.clear();
+    }
+
+    /**
+     * Reveille les troncons adjacents a une jardiniere qui vient de murir.
+     */
+    public void wakePlanter(Building planter) {
+        List<BeltSegment> segments = planterSegments.get(planter);
+        if (segments == null) return;
+        for (BeltSegment segment : segments) {
+            if (!segment.active) wake(segment);
+        }
+    }
+
+    /**
+     * Ajoute un troncon a la liste active.
+     */
+    void wake(BeltSegment segment) {
+        if (segment.network != this || segment.active) return;
+        segment.active = true;
+        active[activeCount++] = segment.index;
+    }
+
+    /**
+     * Avance le reseau d'un pas: deplacement dans les troncons, depot au QG, puis alimentation depuis l'amont.
+     */
+    public void update(List<Building> buildings, BuildingGrid grid, float dt) {
+        if (dirty) rebuild(buildings, grid);
+
+        int kept = 0;
+        for (int a = 0; a < activeCount; a++) {
+            int i = active[a];
+            BeltSegment segment = order[i];
+            if (canProgress(i, segment)) {
+                active[kept++] = i;
+            } else {
+                segment.active = false;
+                segment.settle();
+                if (!segment.settledSinceCapture) {
+                    segment.settledSinceCapture = true;
+                    settled.add(segment);
+                }
+            }
+        }
+        activeCount = kept;
+
+        float step = dt / Building.TRANSPORT_TIME;
+        int ticked = activeCount;
+        for (int a = 0; a < ticked; a++) {
+            int i = active[a];
+            BeltSegment segment = order[i];
+            segment.tick(step);
+            int next = downstreamOf[i];
+            if (next >= 0 && segment.isHeadReady()) wake(order[next]);
+        }
+
+        // Ordre aval -> amont; les troncons reveilles pendant la boucle sont traites a la suite.
+        Arrays.sort(active, 0, activeCount);
+        for (int a = 0; a < activeCount; a++) {
+            int i = active[a];
+            BeltSegment segment = order[i];
+
+            Building hq = hqTargets[i];
+            if (hq != null && segment.isHeadReady()) {
+                Building.PlanterCrop crop = segment.getHeadItem();
+                int amount = segment.getHeadAmount();
+                segment.popHead();
+                segment.resume();
+                if (crop != Building.PlanterCrop.NONE && amount > 0) {
+                    hq.addToHQStock(crop, amount);
+                    Telemetry.recordDelivery(amount);
+                    commitTransfer(crop, amount, true, segment.tiles[segment.tiles.length - 1]);
+                }
+            }
+
+            feed(i, segment);
+        }
+    }
+
+    /**
+     * Rattrape un temps ecoule hors ligne.
+     *
+     * Les troncons independants (sans amont ni jardiniere mure, sortie vers un
+     * QG ou dans le vide) avancent en forme close. Le reste du reseau est
+     * simule a pas fixe, mais seulement tant qu'il reste des troncons actifs:
+     * un reseau qui s'est vide ou bloque s'endort et le rattrapage s'arrete
+     * bien avant la duree demandee.
+     *
+     * @return le nombre de ticks effectivement simules.
+     */
+    public int fastForward(List<Building> buildings, BuildingGrid grid, double seconds, float step) {
+        if (dirty) rebuild(buildings, grid);
+        if (seconds <= 0.0) return 0;
+
+        double distance = seconds / Building.TRANSPORT_TIME;
+        boolean[] closedForm = new boolean[order.length];
+        for (int i = 0; i < order.length; i++) {
+            if (feeders[i].length > 0 || hasReadyPlanter(i)) continue;
+            if (hqTargets[i] == null && downstreamOf[i] >= 0) continue;
+            order[i].advance(distance, hqTargets[i]);
+            closedForm[i] = true;
+        }
+
+        // Un troncon deja avance de toute la duree ne doit pas l'etre une seconde fois par les ticks ci-dessous.
+        int kept = 0;
+        for (int a = 0; a < activeCount; a++) {
+            int i = active[a];
+            if (closedForm[i]) {
+                order[i].active = false;
+            } else {
+                active[kept++] = i;
+            }
+        }
+        activeCount = kept;
+
+        int steps = 0;
+        double remaining = seconds;
+        while (remaining > 0.0 && activeCount > 0 && steps < MAX_CATCH_UP_STEPS) {
+            update(buildings, grid, step);
+            remaining -= step;
+            steps++;
+        }
+        return steps;
+    }
+
+    /**
+     * Indique si une jardiniere adjacente a un troncon est mure.
+     */
+    private boolean hasReadyPlanter(int i) {
+        for (Building planter : planters[i]) {
+            if (!planter.isPlanterEmpty() && planter.isPlanterReady()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Indique si un troncon peut changer d'etat au prochain tick: items en mouvement, sortie vers un QG,
+     * amont pret a deverser ou jardiniere mure a recolter.
+     */
+    private boolean canProgress(int i, BeltSegment segment) {
+        if (segment.isMoving()) return true;
+        if (hqTargets[i] != null && segment.isHeadReady()) return true;
+        if (segment.canInsert(0)) {
+            for (BeltSegment up : feeders[i]) {
+                if (up.isHeadReady()) return true;
+            }
+        }
+        Building[] adjacent = planters[i];
+        for (int k = 0; k < adjacent.length; k++) {
+            Building planter = adjacent[k];
+            if (!planter.isPlanterEmpty() && planter.isPlanterReady() && canReceiveHarvest(segment, planterTiles[i][k])) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Reconstruit les troncons, leur ordre de traitement et leurs voisinages.
+     */
+    public void rebuild(List<Building> buildings, BuildingGrid grid) {
+        for (BeltSegment segment : order) {
+            segment.unpack();
+        }
+        for (BeltSegment segment : settled) segment.settledSinceCapture = false;
+        settled.clear();
+
+        List<Building> conveyors = new ArrayList<>();
+        for (Building b : buildings) {
+            if (b.isConveyor()) conveyors.add(b);
+        }
+
+        int count = conveyors.size();
+        Map<Building, Integer> indexOf = new IdentityHashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            indexOf.put(conveyors.get(i), i);
+        }
+
+        List<List<Building>> upstream = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) upstream.add(new ArrayList<>(1));
+        int[] downstream = new int[count];
+
+        for (int i = 0; i < count; i++) {
+            Building b = conveyors.get(i);
+            Building front = grid.getAnchoredAt(b.getFrontGridX(), b.getFrontGridY());
+            Integer frontIndex = front == null ? null : indexOf.get(front);
+            downstream[i] = frontIndex == null ? -1 : frontIndex;
+        }
+
+        // Les amonts sont ranges dans l'ordre de scan des voisins de la cible.
+        for (int i = 0; i < count; i++) {
+            Building target = conveyors.get(i);
+            for (int[] dir : NEIGHBORS) {
+                Building n = grid.getAnchoredAt(target.getGridX() + dir[0], target.getGridY() + dir[1]);
+                Integer ni = n == null ? null : indexOf.get(n);
+                if (ni != null && downstream[ni] == i) upstream.get(i).add(n);
+            }
+        }
+
+        // Une case prolonge le troncon de son amont s'il est unique et de meme orientation.
+        boolean[] continues = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            List<Building> ups = upstream.get(i);
+            continues[i] = ups.size() == 1 && ups.get(0).getRotation() == conveyors.get(i).getRotation();
+        }
+
+        int[] segmentOf = new int[count];
+        Arrays.fill(segmentOf, -1);
+        List<Building[]> segmentTiles = new ArrayList<>();
+        List<Building> run = new ArrayList<>();
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < count; i++) {
+                // Premier passage: debuts de troncon; second: boucles fermees coupees arbitrairement.
+                if (segmentOf[i] >= 0 || (pass == 0 && continues[i])) continue;
+                run.clear();
+                int current = i;
+                while (current >= 0 && segmentOf[current] < 0) {
+                    segmentOf[current] = segmentTiles.size();
+                    run.add(conveyors.get(current));
+                    int next = downstream[current];
+                    current = next >= 0 && continues[next] ? next : -1;
+                }
+                segmentTiles.add(run.toArray(new Building[0]));
+            }
+        }
+
+        int segmentCount = segmentTiles.size();
+        int[] segmentDownstream = new int[segmentCount];
+        List<List<Integer>> segmentUpstream = new ArrayList<>(segmentCount);
+        for (int s = 0; s < segmentCount; s++) segmentUpstream.add(new ArrayList<>(1));
+        for (int s = 0; s < segmentCount; s++) {
+            Building[] tiles = segmentTiles.get(s);
+            int front = downstream[indexOf.get(tiles[tiles.length - 1])];
+            segmentDownstream[s] = front < 0 ? -1 : segmentOf[front];
+        }
+        for (int s = 0; s < segmentCount; s++) {
+            Building entry = segmentTiles.get(s)[0];
+            for (Building up : upstream.get(indexOf.get(entry))) {
+                int u = segmentOf[indexOf.get(up)];
+                if (u != s) segmentUpstream.get(s).add(u);
+            }
+        }
+
+        int[] sorted = new int[segmentCount];
+        boolean[] visited = new boolean[segmentCount];
+        int[] queue = new int[segmentCount];
+        int head = 0;
+        int tail = 0;
+        int written = 0;
+
+        for (int s = 0; s < segmentCount; s++) {
+            if (segmentDownstream[s] < 0) {
+                queue[tail++] = s;
+                visited[s] = true;
+            }
+        }
+
+        // Parcours aval -> amont; les boucles fermees sont coupees a un troncon arbitraire.
+        int seed = 0;
+        while (written < segmentCount) {
+            if (head == tail) {
+                while (visited[seed]) seed++;
+                queue[tail++] = seed;
+                visited[seed] = true;
+            }
+            int current = queue[head++];
+            sorted[written++] = current;
+            for (int up : segmentUpstream.get(current)) {
+                if (!visited[up]) {
+                    visited[up] = true;
+                    queue[tail++] = up;
+                }
+            }
+        }
+
+        BeltSegment[] packed = new BeltSegment[segmentCount];
+        for (int s = 0; s < segmentCount; s++) {
+            packed[s] = BeltSegment.pack(segmentTiles.get(s));
+        }
+
+        order = new BeltSegment[segmentCount];
+        feeders = new BeltSegment[segmentCount][];
+        feederEntryDirections = new int[segmentCount][];
+        planters = new Building[segmentCount][];
+        planterTiles = new int[segmentCount][];
+        planterEntryDirections = new int[segmentCount][];
+        hqTargets = new Building[segmentCount];
+        downstreamOf = new int[segmentCount];
+        active = new int[segmentCount];
+        activeCount = 0;
+        planterSegments.clear();
+
+        int[] rank = new int[segmentCount];
+        for (int i = 0; i < segmentCount; i++) rank[sorted[i]] = i;
+
+        List<Building> adjacentPlanters = new ArrayList<>(4);
+        List<Integer> adjacentTiles = new ArrayList<>(4);
+        for (int i = 0; i < segmentCount; i++) {
+            int s = sorted[i];
+            BeltSegment segment = packed[s];
+            Building[] tiles = segment.tiles;
+            order[i] = segment;
+            downstreamOf[i] = segmentDownstream[s] < 0 ? -1 : rank[segmentDownstream[s]];
+            segment.network = this;
+            segment.index = i;
+            wake(segment);
+
+            List<Integer> ups = segmentUpstream.get(s);
+            feeders[i] = ups.isEmpty() ? NO_SEGMENTS : new BeltSegment[ups.size()];
+            feederEntryDirections[i] = ups.isEmpty() ? NO_DIRECTIONS : new int[ups.size()];
+            for (int k = 0; k < ups.size(); k++) {
+                feeders[i][k] = packed[ups.get(k)];
+                Building exit = feeders[i][k].tiles[feeders[i][k].tiles.length - 1];
+                feederEntryDirections[i][k] = getEntryDirectionFromSource(exit.getGridX(), exit.getGridY(), tiles[0]);
+            }
+
+            adjacentPlanters.clear();
+            adjacentTiles.clear();
+            for (int t = 0; t < tiles.length; t++) {
+                for (int[] dir : NEIGHBORS) {
+                    Building n = grid.getAnchoredAt(tiles[t].getGridX() + dir[0], tiles[t].getGridY() + dir[1]);
+                    if (n != null && n.isPlanter()) {
+                        adjacentPlanters.add(n);
+                        adjacentTiles.add(t);
+                        planterSegments.computeIfAbsent(n, key -> new ArrayList<>(1)).add(segment);
+                    }
+                }
+            }
+            planters[i] = adjacentPlanters.isEmpty() ? NO_BUILDINGS : adjacentPlanters.toArray(new Building[0]);
+            planterTiles[i] = new int[adjacentTiles.size()];
+            planterEntryDirections[i] = new int[adjacentTiles.size()];
+            for (int k = 0; k < planterTiles[i].length; k++) {
+                Building tile = tiles[adjacentTiles.get(k)];
+                planterTiles[i][k] = adjacentTiles.get(k);
+                planterEntryDirections[i][k] = getEntryDirectionFromSource(planters[i][k].getGridX(), planters[i][k].getGridY(), tile);
+            }
+
+            Building exit = tiles[tiles.length - 1];
+            int frontX = exit.getFrontGridX();
+            Building front = grid.getCovering(frontX, exit.getFrontGridY());
+            if (front != null && front.isHQ() && canOutputToHQSide(exit, front, frontX)) {
+                hqTargets[i] = front;
+            }
+        }
+
+        conveyorCount = count;
+        dirty = false;
+    }
+
+    /**
+     * Alimente l'entree d'un troncon depuis un troncon amont arrive en sortie, puis ses cases depuis les jardinieres pretes.
+     * Une case recoit au plus un item par tick.
+     */
+    private void feed(int i, BeltSegment segment) {
+        int fedTile = -1;
+        if (segment.canInsert(0)) {
+            BeltSegment[] ups = feeders[i];
+            for (int k = 0; k < ups.length; k++) {
+                BeltSegment up = ups[k];
+                if (!up.isHeadReady()) continue;
+                segment.insert(0, up.getHeadItem(), up.getHeadAmount(), feederEntryDirections[i][k]);
+                commitTransfer(up.getHeadItem(), up.getHeadAmount(), false, segment.tiles[0]);
+                up.popHead();
+                fedTile = 0;
+                break;
+            }
+        }
+
+        Building[] adjacent = planters[i];
+        for (int k = 0; k < adjacent.length; k++) {
+            Building planter = adjacent[k];
+            int tile = planterTiles[i][k];
+            if (tile == fedTile) continue;
+            if (planter.isPlanterEmpty() || !planter.isPlanterReady()) continue;
+            if (!canReceiveHarvest(segment, tile)) continue;
+            Building.PlanterCrop crop = planter.harvest();
+            segment.insert(tile, crop, Building.getYieldFor(crop), planterEntryDirections[i][k]);
+            if (listener != null) listener.onPlanterHarvested(planter, segment.tiles[tile]);
+            fedTile = tile;
+        }
+    }
+
+    /**
+     * Indique si une jardiniere peut deposer sa recolte sur une case: comme avant les voies a
+     * plusieurs items, la case doit etre vide, la place libre sur la voie ne suffit pas.
+     */
+    private static boolean canReceiveHarvest(BeltSegment segment, int tile) {
+        return segment.getTileCount(tile) == 0 && segment.canInsert(tile);
+    }
+
+    /**
+     * Emet l'evenement JFR d'un transfert (desactive par defaut: un test suffit alors).
+     */
+    private static void commitTransfer(Building.PlanterCrop crop, int amount, boolean intoHQ, Building conveyor) {
+        Telemetry.ConveyorTransferEvent event = new Telemetry.ConveyorTransferEvent();
+        if (!event.isEnabled()) return;
+        event.crop = crop.name();
+        event.amount = amount;
+        event.intoHQ = intoHQ;
+        event.gridX = conveyor.getGridX();
+        event.gridY = conveyor.getGridY();
+        event.commit();
+    }
+
+    /**
+     * Determine de quel cote un item entre dans un convoyeur selon sa source.
+     */
+    static int getEntryDirectionFromSource(int sourceGridX, int sourceGridY, Building targetConveyor) {
+        int dx = sourceGridX - targetConveyor.getGridX();
+        int dy = sourceGridY - targetConveyor.getGridY();
+
+        if (dx == -1 && dy == 0) return 3;
+        if (dx == 1 && dy == 0) return 1;
+        if (dx == 0 && dy == -1) return 2;
+        if (dx == 0 && dy == 1) return 0;
+        return Building.getOppositeDirection(targetConveyor.getRotation());
+    }
+
+    /**
+     * Verifie qu'un convoyeur injecte bien sur un cote valide du QG.
+     */
+    static boolean canOutputToHQSide(Building conveyor, Building hq, int hqCellX) {
+        if (conveyor.getRotation() == 1) {
+            return hqCellX == hq.getGridX();
+        }
+        if (conveyor.getRotation() == 3) {
+            return hqCellX == hq.getGridX() + hq.getType().width - 1;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,478 @@
+package com.github.lxquaver.stardisfactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Simulation pure du monde: terrain, batiments, jardinieres, convoyeurs et stock du QG.
+ *
+ * Le moteur ne depend ni des textures, ni de l'audio, ni de l'interface: il
+ * tourne aussi bien sous {@link GameMain} que sans fenetre (lanceur headless,
+ * profilage). Il n'est pas synchronise: l'appelant avance et lit le monde
+ * depuis un seul thread ou sous son propre verrou.
+ */
+public class FactoryEngine {
+
+    /**
+     * Decalage applique pour convertir les coordonnees monde en coordonnees grille.
+     */
+    public static final int MAP_OFFSET = 50;
+
+    private final TerrainGrid terrainGrid = new TerrainGrid();
+    private final List<Building> buildings = new ArrayList<>();
+    private final BuildingGrid buildingGrid = new BuildingGrid();
+    private final BuildingStore buildingStore = new BuildingStore();
+    private final ConveyorNetwork conveyorNetwork = new ConveyorNetwork();
+
+    /**
+     * Duree du dernier pas (croissance, convoyeurs) et de la derniere capture, en nanosecondes.
+     */
+    private long planterNanos;
+    private long conveyorNanos;
+    private long captureNanos;
+
+    /**
+     * Nombre de captures dont on garde les lignes changees: un snapshot rempli plus anciennement est recopie en entier.
+     */
+    private static final int CAPTURE_LOG_LENGTH = 4;
+
+    /**
+     * Disposition courante des batiments, a reconstruire apres une pose ou une suppression.
+     */
+    private BuildingLayout layout = BuildingLayout.EMPTY;
+    private boolean layoutDirty = true;
+
+    /**
+     * Numero de la derniere capture, et premier numero dont les lignes changees sont completes
+     * (une capture plus ancienne ne peut pas etre completee ligne a ligne).
+     */
+    private long captureSequence = 0L;
+    private long incrementalSince = Long.MAX_VALUE;
+    private boolean fullCaptureRequested = false;
+
+    /**
+     * Lignes changees par chacune des dernieres captures (tampon circulaire indexe par numero de capture).
+     */
+    private final int[][] changedRows = new int[CAPTURE_LOG_LENGTH][16];
+    private final int[] changedRowCounts = new int[CAPTURE_LOG_LENGTH];
+    private final List<Building> changedScratch = new ArrayList<>();
+
+    /**
+     * Cree un monde vide.
+     */
+    public FactoryEngine() {
+        buildingStore.setPlanterListener(conveyorNetwork::wakePlanter);
+        buildingStore.setVisibleTracking(true);
+    }
+
+    /**
+     * Grille de terrain du monde.
+     */
+    public TerrainGrid getTerrainGrid() {
+        return terrainGrid;
+    }
+
+    /**
+     * Batiments poses, dans l'ordre de pose.
+     */
+    public List<Building> getBuildings() {
+        return buildings;
+    }
+
+    /**
+     * Index d'occupation des cases par les batiments.
+     */
+    public BuildingGrid getBuildingGrid() {
+        return buildingGrid;
+    }
+
+    /**
+     * Stockage par partitions de l'etat des batiments.
+     */
+    public BuildingStore getBuildingStore() {
+        return buildingStore;
+    }
+
+    /**
+     * Reseau des convoyeurs.
+     */
+    public ConveyorNetwork getConveyorNetwork() {
+        return conveyorNetwork;
+    }
+
+    /**
+     * Vide le monde (terrain et batiments).
+     */
+    public void reset() {
+        terrainGrid.reset();
+        clearBuildings();
+    }
+
+    /**
+     * Retire tous les batiments.
+     */
+    public void clearBuildings() {
+        buildings.clear();
+        buildingGrid.clear();
+        buildingStore.clear();
+        conveyorNetwork.markDirty();
+        layoutDirty = true;
+    }
+
+    /**
+     * Ajoute un batiment au monde et l'inscrit dans l'index d'occupation.
+     */
+    public void addBuilding(Building b) {
+        buildings.add(b);
+        buildingGrid.add(b);
+        buildingStore.add(b);
+        conveyorNetwork.markDirty();
+        layoutDirty = true;
+    }
+
+    /**
+     * Retire un batiment du monde et libere ses cases dans l'index d'occupation.
+     */
+    public void removeBuilding(Building b) {
+        buildings.remove(b);
+        buildingGrid.remove(b);
+        buildingStore.remove(b);
+        conveyorNetwork.markDirty();
+        layoutDirty = true;
+    }
+
+    /**
+     * Tourne un batiment pose d'un quart de tour: le reseau de convoyeurs et la disposition
+     * de rendu sont reconstruits, et le batiment est note pour le journal de sauvegarde.
+     */
+    public void rotateBuilding(Building b) {
+        b.rotate();
+        buildingStore.markChanged(b);
+        conveyorNetwork.markDirty();
+        layoutDirty = true;
+    }
+
+    /**
+     * Garantit la presence du QG et de l'hotel des ventes dans la carte.
+     */
+    public void ensureCoreBuildings() {
+        boolean hasHQ = false;
+        boolean hasAuctionHouse = false;
+
+        for (Building b : buildings) {
+            if (b.isHQ()) hasHQ = true;
+            if (b.isAuctionHouse()) hasAuctionHouse = true;
+        }
+
+        if (!hasHQ) addBuilding(new Building(Building.Type.MAIN_HQ, 55, 55, 0));
+        if (!hasAuctionHouse) addBuilding(new Building(Building.Type.AUCTION_HOUSE, 58, 46, 0));
+    }
+
+    /**
+     * Verifie les regles de pose: terrain requis et absence de chevauchement.
+     */
+    public boolean canPlaceBuilding(Building.Type type, int gridX, int gridY) {
+        if (type == null) return false;
+
+
+        for (int x = gridX; x < gridX + type.width; x++) {
+            for (int y = gridY; y < gridY + type.height; y++) {
+                Terrain.Type t = terrainGrid.getType(x, y);
+
+
+                if (type == Building.Type.PLANTER) {
+                    if (t != Terrain.Type.TILLED) return false;
+                }
+
+
+                if (type == Building.Type.MAIN_HQ || type == Building.Type.AUCTION_HOUSE) {
+                    if (t != Terrain.Type.GRASS) return false;
+                }
+
+            }
+        }
+
+
+        return buildingGrid.isAreaFree(gridX, gridY, type.width, type.height);
+    }
+
+    /**
+     * Execute un pas fixe de simulation: croissance des jardinieres puis transport des convoyeurs.
+     */
+    public void step(float dt) {
+        Telemetry.TickEvent event = new Telemetry.TickEvent();
+        event.begin();
+        long start = System.nanoTime();
+        buildingStore.tickPlanters(dt);
+        long planted = System.nanoTime();
+        conveyorNetwork.update(buildings, buildingGrid, dt);
+        long end = System.nanoTime();
+        planterNanos = planted - start;
+        conveyorNanos = end - planted;
+        Telemetry.recordTick(end - start);
+
+        if (event.shouldCommit()) {
+            event.planterNanos = planterNanos;
+            event.conveyorNanos = conveyorNanos;
+            event.activeSegments = conveyorNetwork.getActiveSegmentCount();
+            event.commit();
+        }
+    }
+
+    /**
+     * Avance le monde d'une duree quelconque: maturite des jardinieres en une fois
+     * (horloge de croissance), puis transport en forme close ou jusqu'a ce que le reseau s'endorme.
+     *
+     * @return le nombre de ticks de transport effectivement simules.
+     */
+    public int fastForward(double seconds, float step) {
+        if (seconds <= 0.0) return 0;
+        // Les troncons avances en forme close ne passent pas par la liste active: tout est a recopier.
+        fullCaptureRequested = true;
+        buildingStore.tickPlanters((float) seconds);
+        return conveyorNetwork.fastForward(buildings, buildingGrid, seconds, step);
+    }
+
+    /**
+     * Indique si l'etat visible a change depuis la derniere capture: pose, suppression,
+     * evenement sur un batiment, troncon actif ou venant de s'endormir. Sans pas de
+     * simulation ni changement, la capture peut etre sautee.
+     */
+    public boolean hasVisibleChanges() {
+        return layoutDirty || fullCaptureRequested || buildingStore.hasVisibleChanges()
+                || conveyorNetwork.hasSettledSegments();
+    }
+
+    /**
+     * Met a jour un snapshot de rendu.
+     *
+     * La disposition n'est reconstruite qu'apres une pose ou une suppression. Chaque
+     * capture releve ses lignes changees (batiments notes par le stockage, cases des
+     * troncons actifs ou endormis depuis); le snapshot ne recopie que les lignes
+     * changees depuis son propre dernier remplissage, et en entier seulement s'il
+     * a manque une disposition ou plus de CAPTURE_LOG_LENGTH captures. Le cout suit
+     * donc l'activite du monde et non le nombre de batiments.
+     */
+    public void capture(WorldSnapshot out, long tick) {
+        long start = System.nanoTime();
+        if (layoutDirty) {
+            layout = new BuildingLayout(buildings);
+            for (int i = 0; i < buildings.size(); i++) buildings.get(i).layoutRow = i;
+            layoutDirty = false;
+            fullCaptureRequested = true;
+        }
+
+        long sequence = ++captureSequence;
+        if (fullCaptureRequested) {
+            incrementalSince = sequence;
+            fullCaptureRequested = false;
+        }
+        recordChangedRows(sequence);
+
+        if (out.layout != layout || out.sequence < incrementalSince || sequence - out.sequence > CAPTURE_LOG_LENGTH) {
+            out.captureAll(layout, buildings);
+        } else {
+            for (long s = out.sequence + 1; s <= sequence; s++) {
+                int entry = (int) (s % CAPTURE_LOG_LENGTH);
+                int[] rows = changedRows[entry];
+                for (int r = 0; r < changedRowCounts[entry]; r++) {
+                    out.captureRow(rows[r], buildings.get(rows[r]));
+                }
+            }
+        }
+        out.sequence = sequence;
+        out.tick = tick;
+        out.planterNanos = planterNanos;
+        out.conveyorNanos = conveyorNanos;
+        out.captureNanos = captureNanos;
+        out.segmentCount = conveyorNetwork.getSegmentCount();
+        out.activeSegmentCount = conveyorNetwork.getActiveSegmentCount();
+        captureNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Releve les lignes changees depuis la capture precedente sous le numero donne.
+     */
+    private void recordChangedRows(long sequence) {
+        changedScratch.clear();
+        buildingStore.drainVisibleChanges(changedScratch);
+        conveyorNetwork.collectChangedTiles(changedScratch);
+
+        int entry = (int) (sequence % CAPTURE_LOG_LENGTH);
+        int[] rows = changedRows[entry];
+        if (rows.length < changedScratch.size()) {
+            rows = new int[Math.max(changedScratch.size(), rows.length + (rows.length >> 1))];
+            changedRows[entry] = rows;
+        }
+        int count = 0;
+        for (Building b : changedScratch) {
+            // Case d'un ancien troncon retiree depuis: elle n'a plus de ligne.
+            if (b.store != buildingStore) continue;
+            rows[count++] = b.layoutRow;
+        }
+        changedRowCounts[entry] = count;
+        changedScratch.clear();
+    }
+
+    /**
+     * Stock cumule d'une culture dans tous les QG.
+     */
+    public int getHQStock(Building.PlanterCrop crop) {
+        int total = 0;
+        for (Building b : buildings) {
+            if (b.isHQ()) total += b.getHQStock(crop);
+        }
+        return total;
+    }
+
+    /**
+     * Recopie le terrain et les batiments dans une sauvegarde.
+     */
+    public void writeTo(GameSave save) {
+        save.mapSize = 0;
+        save.mapOffset = MAP_OFFSET;
+        save.terrainChunks = terrainGrid.collectChunks();
+        save.simulationClock = buildingStore.getClock();
+        for (Building b : buildings) {
+            save.buildings.add(buildBuildingSave(b));
+        }
+    }
+
+    /**
+     * Reconstruit le terrain et les batiments depuis une sauvegarde (binaire, ou ancienne carte carree JSON).
+     *
+     * @return false si la sauvegarde est incompatible (le monde n'est alors pas modifie).
+     */
+    public boolean restore(GameSave save) {
+        if (save.mapOffset != MAP_OFFSET) return false;
+        int legacyCells = save.mapSize * save.mapSize;
+        boolean hasNewTerrainFormat = save.terrainTypeNames != null && save.terrainTypeNames.length == legacyCells;
+        boolean hasLegacyTerrainFormat = save.terrainTypes != null && save.terrainTypes.length == legacyCells;
+        if (save.mapSize > 0 && !hasNewTerrainFormat && !hasLegacyTerrainFormat) return false;
+
+        terrainGrid.reset();
+        if (save.mapSize > 0) {
+            for (int idx = 0; idx < legacyCells; idx++) {
+                Terrain.Type type = Terrain.Type.GRASS;
+                if (hasNewTerrainFormat) {
+                    String typeName = save.terrainTypeNames[idx];
+                    if (typeName != null) {
+                        try {
+                            type = Terrain.Type.valueOf(typeName);
+                        } catch (Exception ignored) {
+                            type = Terrain.Type.GRASS;
+                        }
+                    }
+                } else {
+                    int ord = save.terrainTypes[idx];
+                    type = mapLegacyTerrainOrdinal(ord);
+                }
+                terrainGrid.setType(idx % save.mapSize, idx / save.mapSize, type);
+            }
+        }
+        if (save.terrainChunks != null) {
+            for (GameSave.TerrainChunkSave chunk : save.terrainChunks) {
+                if (chunk.cells != null) terrainGrid.setChunk(chunk.x, chunk.y, chunk.cells);
+            }
+        }
+
+        clearBuildings();
+        buildingStore.setClock(save.simulationClock);
+        if (save.buildings != null) {
+            for (GameSave.BuildingSave bs : save.buildings) {
+                try {
+                    Building b = restoreBuilding(bs, save.simulationClock);
+                    if (!canRestoreBuilding(b)) continue;
+                    addBuilding(b);
+                } catch (Exception ignored) {
+
+                }
+            }
+        }
+
+        ensureCoreBuildings();
+        return true;
+    }
+
+    /**
+     * Recree un batiment et son etat interne depuis son enregistrement.
+     * L'instant de plantation est rapporte a l'horloge sauvegardee: l'ajout au monde le replace sur la sienne.
+     */
+    private static Building restoreBuilding(GameSave.BuildingSave bs, double clock) {
+        Building.Type t = Building.Type.valueOf(bs.type);
+        Building b = new Building(t, bs.x, bs.y, bs.rotation);
+
+        b.setPlanterPlantedAt(parseCrop(bs.planterCrop), bs.plantedAt - clock, bs.planterReady);
+
+        if (bs.laneItems != null && bs.laneAmounts != null && bs.laneOffsets != null) {
+            Building.PlanterCrop[] laneItems = new Building.PlanterCrop[bs.laneItems.length];
+            for (int k = 0; k < laneItems.length; k++) laneItems[k] = parseCrop(bs.laneItems[k]);
+            b.setLaneState(laneItems, bs.laneAmounts, bs.laneOffsets);
+        } else {
+            b.setConveyorState(parseCrop(bs.heldItem), bs.heldAmount, bs.transportTimer);
+        }
+
+        b.setHQStock(Building.PlanterCrop.POTATO, bs.hqPotatoes);
+        b.setHQStock(Building.PlanterCrop.STRAWBERRY, bs.hqStrawberries);
+        b.setHQStock(Building.PlanterCrop.LEEK, bs.hqLeeks);
+        return b;
+    }
+
+    /**
+     * Verifie qu'un batiment restaure ne chevauche pas un batiment deja charge.
+     */
+    private boolean canRestoreBuilding(Building b) {
+        return buildingGrid.isAreaFree(b.getGridX(), b.getGridY(), b.getType().width, b.getType().height);
+    }
+
+    /**
+     * Recopie l'etat d'un batiment dans un enregistrement de sauvegarde.
+     */
+    public static GameSave.BuildingSave buildBuildingSave(Building b) {
+        GameSave.BuildingSave bs = new GameSave.BuildingSave();
+        bs.type = b.getType().name();
+        bs.x = b.getGridX();
+        bs.y = b.getGridY();
+        bs.rotation = b.getRotation();
+
+        bs.planterCrop = b.getPlanterCrop().name();
+        bs.plantedAt = b.getPlantedAt();
+        bs.planterReady = b.isPlanterReady();
+
+        int laneCount = b.getLaneCount();
+        bs.laneItems = new String[laneCount];
+        bs.laneAmounts = new int[laneCount];
+        bs.laneOffsets = new float[laneCount];
+        for (int k = 0; k < laneCount; k++) {
+            bs.laneItems[k] = b.getLaneItem(k).name();
+            bs.laneAmounts[k] = b.getLaneAmount(k);
+            bs.laneOffsets[k] = b.getLaneOffset(k);
+        }
+
+        bs.hqPotatoes = b.getHQStock(Building.PlanterCrop.POTATO);
+        bs.hqStrawberries = b.getHQStock(Building.PlanterCrop.STRAWBERRY);
+        bs.hqLeeks = b.getHQStock(Building.PlanterCrop.LEEK);
+        return bs;
+    }
+
+    /**
+     * Culture par son nom sauvegarde (NONE si absente ou inconnue).
+     */
+    private static Building.PlanterCrop parseCrop(String name) {
+        if (name == null) return Building.PlanterCrop.NONE;
+        try {
+            return Building.PlanterCrop.valueOf(name);
+        } catch (Exception ignored) {
+            return Building.PlanterCrop.NONE;
+        }
+    }
+
+    /**
+     * Convertit les anciens identifiants de terrain de sauvegarde vers le format actuel.
+     */
+    private static Terrain.Type mapLegacyTerrainOrdinal(int legacyOrdinal) {
+        if (legacyOrdinal == 2) return Terrain.Type.TILLED;
+
+        return Terrain.Type.GRASS;
+    }
+}
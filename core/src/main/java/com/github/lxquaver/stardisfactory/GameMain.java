@@ -4,6 +4,8 @@ import com.badlogic.gdx.ApplicationAdapter;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
 import com.badlogic.gdx.Input.Keys;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.TextureLoader;
 import com.badlogic.gdx.audio.Music;
 import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.graphics.Color;
@@ -13,8 +15,8 @@ import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.Texture.TextureFilter;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.math.Vector3;
@@ -23,12 +25,12 @@ import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.ui.*;
 import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener;
 import com.badlogic.gdx.scenes.scene2d.utils.ClickListener;
+import com.badlogic.gdx.utils.IntArray;
 import com.badlogic.gdx.utils.ScreenUtils;
 import com.badlogic.gdx.utils.viewport.FitViewport;
 import com.badlogic.gdx.utils.viewport.ScreenViewport;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -42,7 +44,11 @@ public class GameMain extends ApplicationAdapter {
 
 
     private SpriteBatch batch;
-    private ShapeRenderer shapeRenderer;
+    private AssetManager assetManager;
+    private Texture loadingBarTexture;
+    private long createStartNanos;
+    private boolean firstFrameLogged = false;
+    private WorldRenderQueue worldRenderQueue;
     private OrthographicCamera camera;
     private FitViewport viewport;
 
@@ -94,6 +100,18 @@ public class GameMain extends ApplicationAdapter {
     private Sound tillSound;
     private Sound clearSound;
     private static final float SFX_VOLUME = 0.5f;
+    private static final String WORLD_ATLAS_PATH = "atlas/world.atlas";
+    private static final String MUSIC_PATH = "music.mp3";
+    private static final String[] SOUND_PATHS = {
+            "Sound_effect/Buy_item.mp3",
+            "Sound_effect/Sell_item.mp3",
+            "Sound_effect/Plantation_in.mp3",
+            "Sound_effect/Plantation_out.mp3",
+            "Sound_effect/Jardinière_placement.mp3",
+            "Sound_effect/Convoyeur_placement.mp3",
+            "Sound_effect/Labourer.ogg",
+            "Sound_effect/Clear.ogg"
+    };
 
 
     private PlayerAnimationController playerAnimationController;
@@ -104,38 +122,83 @@ public class GameMain extends ApplicationAdapter {
 
 
 
-    private Texture tileGrass;
-    private Texture tileTilled;
-    private Texture hqTexture;
-    private Texture auctionTexture;
-    private Texture potatoTexture;
-    private Texture strawberryTexture;
-    private Texture leekTexture;
-    private Texture potatoBagTexture;
-    private Texture strawberryBagTexture;
-    private Texture leekBagTexture;
-    private Texture planterTexture;
-    private Texture planterPotatoTexture;
-    private Texture planterStrawberryTexture;
-    private Texture planterLeekTexture;
-    private Texture conveyorTopTexture;
-    private Texture conveyorRightTexture;
-    private Texture conveyorBottomTexture;
-    private Texture conveyorLeftTexture;
+    private TextureAtlas worldAtlas;
+    private TextureRegion tileGrass;
+    private TextureRegion tileTilled;
+    private TextureRegion hqTexture;
+    private TextureRegion auctionTexture;
+    private TextureRegion potatoTexture;
+    private TextureRegion strawberryTexture;
+    private TextureRegion leekTexture;
+    private TextureRegion potatoBagTexture;
+    private TextureRegion strawberryBagTexture;
+    private TextureRegion leekBagTexture;
+    private TextureRegion planterTexture;
+    private TextureRegion planterPotatoTexture;
+    private TextureRegion planterStrawberryTexture;
+    private TextureRegion planterLeekTexture;
+    private TextureRegion conveyorTopTexture;
+    private TextureRegion conveyorRightTexture;
+    private TextureRegion conveyorBottomTexture;
+    private TextureRegion conveyorLeftTexture;
     private Texture gameLogoTexture;
     private Texture backgroundTexture;
     private final float HQ_SPRITE_SCALE = 1.4f;
     private static final float PLANTER_VISUAL_SCALE = 1.0f;
     private static final float READY_FILTER_SCALE = 0.7f;
+    private static final float CONVEYOR_ITEM_SIZE = 0.35f;
+    private static final float CURSOR_LINE_WIDTH = 0.04f;
+    private static final Color PLANTER_FALLBACK_COLOR = new Color(0.55f, 0.35f, 0.15f, 1f);
+    private static final Color GHOST_OK_COLOR = new Color(0f, 1f, 0f, 0.25f);
+    private static final Color GHOST_BLOCKED_COLOR = new Color(1f, 0f, 0f, 0.25f);
+    private static final Color PAUSE_DIM_COLOR = new Color(0f, 0f, 0f, 0.5f);
 
 
 
 
-    private static final int MAP_SIZE = 100;
-    private static final int MAP_OFFSET = 50;
+    /**
+     * Decalage entre coordonnees monde et grille (origine des sauvegardes existantes).
+     */
+    private static final int MAP_OFFSET = FactoryEngine.MAP_OFFSET;
+
+    /**
+     * Monde en chunks: fenetre du quadrillage, rayon de chunks de terrain gardes en memoire autour du joueur.
+     */
+    private static final int GRID_OVERLAY_SPAN = 64;
+    private static final int TERRAIN_RESIDENT_RADIUS_CHUNKS = 3;
+    private static final String CHUNK_SWAP_DIRECTORY = ".stardisfactory/chunks";
+    private long residentCenterChunk = Long.MIN_VALUE;
 
-    private Terrain[][] terrainGrid;
+    /**
+     * Simulation du monde; terrain, batiments et index d'occupation sont ses vues, gardees sous la main pour le rendu.
+     */
+    private FactoryEngine engine;
+    private TerrainGrid terrainGrid;
     private List<Building> buildings;
+    private BuildingGrid buildingGrid;
+    private TerrainRenderer terrainRenderer;
+    private GridOverlay gridOverlay;
+    private PerformanceOverlay performanceOverlay;
+    private final Object worldLock = new Object();
+    private SimulationWorker simulationWorker;
+    private SynchronizedInputProcessor inputProcessor;
+    private AutosaveService autosaveService;
+    private static final float AUTOSAVE_INTERVAL_SECONDS = 60f;
+
+    /**
+     * Suivi des changements depuis la derniere sauvegarde (journal de deltas): ancres retirees ici,
+     * batiments modifies dans le stockage du monde (BuildingStore.drainChanges).
+     */
+    private final IntArray removedBuildingAnchors = new IntArray();
+    private final List<Building> changedBuildings = new ArrayList<>();
+    private boolean needsFullSave = true;
+
+    /**
+     * Chargement rapide demande par F9 pendant handleInput, execute ensuite par render() hors du verrou du monde.
+     */
+    private boolean loadRequested = false;
+    private static final Building.Type[] BUILDING_TYPES = Building.Type.values();
+    private static final Building.PlanterCrop[] PLANTER_CROPS = Building.PlanterCrop.values();
 
 
     private String selectedTool = "NONE";
@@ -143,8 +206,8 @@ public class GameMain extends ApplicationAdapter {
     private int currentRotation = 0;
 
 
-    private enum GameState { MENU, PLAYING, PAUSED }
-    private GameState currentState = GameState.MENU;
+    private enum GameState { LOADING, MENU, PLAYING, PAUSED }
+    private GameState currentState = GameState.LOADING;
     private enum MenuPage { MAIN, OPTIONS, CONTROLS }
     private MenuPage currentMenuPage = MenuPage.MAIN;
 
@@ -171,107 +234,173 @@ public class GameMain extends ApplicationAdapter {
 
     @Override
     /**
-     * Initialise la partie technique du jeu: rendu, assets, audio, grille, UI et menu principal.
+     * Initialise le rendu et le monde, charge les assets du menu puis met les autres en file de chargement asynchrone.
      */
     public void create() {
+        createStartNanos = System.nanoTime();
 
         batch = new SpriteBatch();
-        shapeRenderer = new ShapeRenderer();
         camera = new OrthographicCamera();
         viewport = new FitViewport(32, 18, camera);
 
 
         uiStage = new Stage(new ScreenViewport());
-        Gdx.input.setInputProcessor(uiStage);
-
-        gameLogoTexture = new Texture("LOGO.png");
-        gameLogoTexture.setFilter(TextureFilter.Nearest, TextureFilter.Nearest);
-
-        backgroundTexture = new Texture("background.png");
-        backgroundTexture.setFilter(TextureFilter.Nearest, TextureFilter.Nearest);
-
-
-        tileGrass = new Texture("tile_grass.png");
-        tileTilled = new Texture("tile_tilled.png");
-        hqTexture = new Texture("hq.png");
-        auctionTexture = new Texture("hq2.png");
-        potatoTexture = new Texture("CROPS/Patate.png");
-        strawberryTexture = new Texture("CROPS/Fraise.png");
-        leekTexture = new Texture("CROPS/Poireaux.png");
-        potatoBagTexture = new Texture("CROPS/Patate_bag.png");
-        strawberryBagTexture = new Texture("CROPS/Fraise_Bag.png");
-        leekBagTexture = new Texture("CROPS/Poireaux_bag.png");
-        planterTexture = new Texture("Jardinière.png");
-        planterPotatoTexture = new Texture("Jardinière_patate.png");
-        planterStrawberryTexture = new Texture("Jardinière_Fraise.png");
-        planterLeekTexture = new Texture("Jardinière_Poireau.png");
-        conveyorTopTexture = new Texture("Convoyeur_top.png");
-        conveyorRightTexture = new Texture("Convoyeur_right.png");
-        conveyorBottomTexture = new Texture("Convoyeur_bottom.png");
-        conveyorLeftTexture = new Texture("Convoyeur_left.png");
-
-
-
-        tileGrass.setFilter(TextureFilter.Nearest, TextureFilter.Nearest);
-        tileTilled.setFilter(TextureFilter.Nearest, TextureFilter.Nearest);
-        hqTexture.setFilter(TextureFilter.Nearest, TextureFilter.Nearest);
-        auctionTexture.setFilter(TextureFilter.Nearest, TextureFilter.Nearest);
-        potatoTexture.setFilter(TextureFilter.Nearest, TextureFilter.Nearest);
-        strawberryTexture.setFilter(TextureFilter.Nearest, TextureFilter.Nearest);
-        leekTexture.setFilter(TextureFilter.Nearest, TextureFilter.Nearest);
-        potatoBagTexture.setFilter(TextureFilter.Nearest, TextureFilter.Nearest);
-        strawberryBagTexture.setFilter(TextureFilter.Nearest, TextureFilter.Nearest);
-        leekBagTexture.setFilter(TextureFilter.Nearest, TextureFilter.Nearest);
-        planterTexture.setFilter(TextureFilter.Nearest, TextureFilter.Nearest);
-        planterPotatoTexture.setFilter(TextureFilter.Nearest, TextureFilter.Nearest);
-        planterStrawberryTexture.setFilter(TextureFilter.Nearest, TextureFilter.Nearest);
-        planterLeekTexture.setFilter(TextureFilter.Nearest, TextureFilter.Nearest);
-        conveyorTopTexture.setFilter(TextureFilter.Nearest, TextureFilter.Nearest);
-        conveyorRightTexture.setFilter(TextureFilter.Nearest, TextureFilter.Nearest);
-        conveyorBottomTexture.setFilter(TextureFilter.Nearest, TextureFilter.Nearest);
-        conveyorLeftTexture.setFilter(TextureFilter.Nearest, TextureFilter.Nearest);
-
-
-
-        try {
-            if (Gdx.files.internal("music.mp3").exists()) {
-                backgroundMusic = Gdx.audio.newMusic(Gdx.files.internal("music.mp3"));
-                backgroundMusic.setLooping(true);
-                backgroundMusic.setVolume(musicVolume);
-            } else {
-                System.out.println("Fichier music.mp3 introuvable dans assets/");
-            }
-        } catch (Exception e) {
-            System.out.println("Erreur chargement musique: " + e.getMessage());
+        inputProcessor = new SynchronizedInputProcessor(uiStage, worldLock);
+        Gdx.input.setInputProcessor(inputProcessor);
+
+        assetManager = new AssetManager();
+        // L'interface LibGDX declare AssetDescriptor brut: le lambda en infere le type sans le nommer.
+        assetManager.setErrorListener((asset, throwable) ->
+            System.out.println("Erreur chargement asset " + asset.fileName + ": " + throwable.getMessage()));
+
+        TextureLoader.TextureParameter nearest = new TextureLoader.TextureParameter();
+        nearest.minFilter = TextureFilter.Nearest;
+        nearest.magFilter = TextureFilter.Nearest;
+        assetManager.load("LOGO.png", Texture.class, nearest);
+        assetManager.load("background.png", Texture.class, nearest);
+        assetManager.finishLoading();
+        gameLogoTexture = assetManager.get("LOGO.png", Texture.class);
+        backgroundTexture = assetManager.get("background.png", Texture.class);
+
+        Pixmap barPixmap = new Pixmap(1, 1, Pixmap.Format.RGBA8888);
+        barPixmap.setColor(Color.WHITE);
+        barPixmap.fill();
+        loadingBarTexture = new Texture(barPixmap);
+        barPixmap.dispose();
+
+        assetManager.load(WORLD_ATLAS_PATH, TextureAtlas.class);
+        queueAsset(MUSIC_PATH, Music.class);
+        for (String path : SOUND_PATHS) {
+            queueAsset(path, Sound.class);
         }
 
-        buyItemSound = loadSound("Sound_effect/Buy_item.mp3");
-        sellItemSound = loadSound("Sound_effect/Sell_item.mp3");
-        plantationInSound = loadSound("Sound_effect/Plantation_in.mp3");
-        plantationOutSound = loadSound("Sound_effect/Plantation_out.mp3");
-        planterPlacementSound = loadSound("Sound_effect/Jardinière_placement.mp3");
-        conveyorPlacementSound = loadSound("Sound_effect/Convoyeur_placement.mp3");
-        tillSound = loadSound("Sound_effect/Labourer.ogg");
-        clearSound = loadSound("Sound_effect/Clear.ogg");
-
 
-        playerAnimationController = new PlayerAnimationController();
         playerPos = new Vector2(0, 0);
 
 
-        terrainGrid = new Terrain[MAP_SIZE][MAP_SIZE];
-        buildings = new ArrayList<>();
+        engine = new FactoryEngine();
+        terrainGrid = engine.getTerrainGrid();
+        terrainGrid.setSwapDirectory(Gdx.files.external(CHUNK_SWAP_DIRECTORY).file().toPath());
+        buildings = engine.getBuildings();
+        buildingGrid = engine.getBuildingGrid();
+        engine.getBuildingStore().setChangeTracking(true);
+        engine.getConveyorNetwork().setListener((planter, conveyor) -> Gdx.app.postRunnable(() -> playSfx(plantationOutSound)));
+        gridOverlay = new GridOverlay(GRID_OVERLAY_SPAN);
 
-        for (int x = 0; x < MAP_SIZE; x++) {
-            for (int y = 0; y < MAP_SIZE; y++) {
-                terrainGrid[x][y] = new Terrain(Terrain.Type.GRASS);
+        simulationWorker = new SimulationWorker(new SimulationWorker.Target() {
+            @Override
+            public void step(float stepSeconds) {
+                stepSimulation(stepSeconds);
             }
+
+            @Override
+            public boolean hasVisibleChanges() {
+                return engine.hasVisibleChanges();
+            }
+
+            @Override
+            public void capture(WorldSnapshot out, long tick) {
+                engine.capture(out, tick);
+            }
+        }, worldLock);
+
+        simulationWorker.start();
+        autosaveService = new AutosaveService(AUTOSAVE_INTERVAL_SECONDS);
+    }
+
+    /**
+     * Termine l'initialisation une fois tous les assets charges: regions, audio, UI et menu principal.
+     */
+    private void onAssetsLoaded() {
+        worldAtlas = assetManager.get(WORLD_ATLAS_PATH, TextureAtlas.class);
+        tileGrass = worldAtlas.findRegion("tile_grass");
+        tileTilled = worldAtlas.findRegion("tile_tilled");
+        hqTexture = worldAtlas.findRegion("hq");
+        auctionTexture = worldAtlas.findRegion("auction_house");
+        potatoTexture = worldAtlas.findRegion("crop_potato");
+        strawberryTexture = worldAtlas.findRegion("crop_strawberry");
+        leekTexture = worldAtlas.findRegion("crop_leek");
+        potatoBagTexture = worldAtlas.findRegion("bag_potato");
+        strawberryBagTexture = worldAtlas.findRegion("bag_strawberry");
+        leekBagTexture = worldAtlas.findRegion("bag_leek");
+        planterTexture = worldAtlas.findRegion("planter");
+        planterPotatoTexture = worldAtlas.findRegion("planter_potato");
+        planterStrawberryTexture = worldAtlas.findRegion("planter_strawberry");
+        planterLeekTexture = worldAtlas.findRegion("planter_leek");
+        conveyorTopTexture = worldAtlas.findRegion("conveyor_top");
+        conveyorRightTexture = worldAtlas.findRegion("conveyor_right");
+        conveyorBottomTexture = worldAtlas.findRegion("conveyor_bottom");
+        conveyorLeftTexture = worldAtlas.findRegion("conveyor_left");
+        worldRenderQueue = new WorldRenderQueue(worldAtlas.findRegion("white"));
+
+        backgroundMusic = getLoadedAsset(MUSIC_PATH, Music.class);
+        if (backgroundMusic != null) {
+            backgroundMusic.setLooping(true);
+            backgroundMusic.setVolume(musicVolume);
         }
 
-        createUI();
+        buyItemSound = getLoadedAsset("Sound_effect/Buy_item.mp3", Sound.class);
+        sellItemSound = getLoadedAsset("Sound_effect/Sell_item.mp3", Sound.class);
+        plantationInSound = getLoadedAsset("Sound_effect/Plantation_in.mp3", Sound.class);
+        plantationOutSound = getLoadedAsset("Sound_effect/Plantation_out.mp3", Sound.class);
+        planterPlacementSound = getLoadedAsset("Sound_effect/Jardinière_placement.mp3", Sound.class);
+        conveyorPlacementSound = getLoadedAsset("Sound_effect/Convoyeur_placement.mp3", Sound.class);
+        tillSound = getLoadedAsset("Sound_effect/Labourer.ogg", Sound.class);
+        clearSound = getLoadedAsset("Sound_effect/Clear.ogg", Sound.class);
 
+        playerAnimationController = new PlayerAnimationController(worldAtlas);
+        terrainRenderer = new TerrainRenderer(MAP_OFFSET, tileGrass, tileTilled);
 
+        createUI();
         showMainMenu();
+
+        System.out.println("Assets charges en " + (System.nanoTime() - createStartNanos) / 1_000_000L + " ms");
+    }
+
+    /**
+     * Met un asset en file de chargement s'il existe, sinon le signale.
+     */
+    private void queueAsset(String path, Class<?> type) {
+        if (Gdx.files.internal(path).exists()) {
+            assetManager.load(path, type);
+        } else {
+            System.out.println("Fichier introuvable dans assets/: " + path);
+        }
+    }
+
+    /**
+     * Retourne un asset charge, ou null s'il est absent ou a echoue.
+     */
+    private <T> T getLoadedAsset(String path, Class<T> type) {
+        return assetManager.isLoaded(path, type) ? assetManager.get(path, type) : null;
+    }
+
+    /**
+     * Ecran de chargement: fond, logo et barre de progression du AssetManager.
+     */
+    private void renderLoadingScreen() {
+        float width = Gdx.graphics.getWidth();
+        float height = Gdx.graphics.getHeight();
+        float progress = assetManager.getProgress();
+
+        batch.getProjectionMatrix().setToOrtho2D(0, 0, width, height);
+        batch.begin();
+        batch.draw(backgroundTexture, 0, 0, width, height);
+
+        float logoSize = Math.min(400f, height * 0.5f);
+        float logoHeight = logoSize * gameLogoTexture.getHeight() / gameLogoTexture.getWidth();
+        batch.draw(gameLogoTexture, (width - logoSize) / 2f, height * 0.55f - logoHeight / 2f, logoSize, logoHeight);
+
+        float barWidth = Math.min(480f, width * 0.6f);
+        float barHeight = 16f;
+        float barX = (width - barWidth) / 2f;
+        float barY = height * 0.2f;
+        batch.setColor(Color.DARK_GRAY);
+        batch.draw(loadingBarTexture, barX, barY, barWidth, barHeight);
+        batch.setColor(Color.ROYAL);
+        batch.draw(loadingBarTexture, barX, barY, barWidth * progress, barHeight);
+        batch.setColor(Color.WHITE);
+        batch.end();
     }
     /**
      * Construit le skin UI (styles) puis cree les ecrans HUD, menu principal et pause.
@@ -338,6 +467,9 @@ public class GameMain extends ApplicationAdapter {
         createGameHUD();
         createMainMenuUI();
         createPauseMenuUI();
+
+        performanceOverlay = new PerformanceOverlay(skin.getFont("default"), skin.getRegion("white"));
+        uiStage.addActor(performanceOverlay);
     }
 
 
@@ -489,6 +621,15 @@ public class GameMain extends ApplicationAdapter {
         toolPanel.add(btnClear).width(160).row();
         toolPanel.add(btnBulldoze).width(160).row();
 
+        final TextButton btnGrid = new TextButton("Grille", skin);
+        btnGrid.setChecked(gridOverlay.isVisible());
+        btnGrid.addListener(new ClickListener() {
+            @Override public void clicked(InputEvent event, float x, float y) {
+                gridOverlay.setVisible(btnGrid.isChecked());
+            }
+        });
+        toolPanel.add(btnGrid).width(160).row();
+
         toolContainer.add(toolPanel);
         uiStage.addActor(toolContainer);
 
@@ -565,7 +706,7 @@ public class GameMain extends ApplicationAdapter {
         TextButton newGameBtn = new TextButton("NOUVELLE PARTIE", skin);
         newGameBtn.addListener(new ClickListener() {
             @Override public void clicked(InputEvent event, float x, float y) {
-                SaveSystem.delete();
+                autosaveService.delete();
                 startNewGame();
             }
         });
@@ -666,6 +807,8 @@ public class GameMain extends ApplicationAdapter {
         controlsContentTable.add(new Label("Pause: Echap", skin)).row();
         controlsContentTable.add(new Label("Sauvegarder rapide: F5", skin)).row();
         controlsContentTable.add(new Label("Charger rapide: F9", skin)).row();
+        controlsContentTable.add(new Label("Export JSON (debug): F6", skin)).row();
+        controlsContentTable.add(new Label("Overlay de performance: F3", skin)).row();
 
         TextButton controlsBackBtn = new TextButton("RETOUR", skin);
         controlsBackBtn.addListener(new ClickListener() {
@@ -746,17 +889,13 @@ public class GameMain extends ApplicationAdapter {
         controlsMenuTable.setVisible(false);
         setGameHUDVisible(true);
 
-        for (int x = 0; x < MAP_SIZE; x++) {
-            for (int y = 0; y < MAP_SIZE; y++) {
-                terrainGrid[x][y] = new Terrain(Terrain.Type.GRASS);
-            }
-        }
-
-        buildings.clear();
-        buildings.add(new Building(Building.Type.MAIN_HQ, 55, 55, 0));
-        buildings.add(new Building(Building.Type.AUCTION_HOUSE, 58, 46, 0));
+        engine.reset();
+        engine.ensureCoreBuildings();
 
         playerPos.set(0, 0);
+        simulationWorker.resetClock();
+        autosaveService.resetTimer();
+        clearSaveTracking();
         if (playerAnimationController != null) playerAnimationController.reset();
         currentRotation = 0;
         money = 1000;
@@ -779,7 +918,7 @@ public class GameMain extends ApplicationAdapter {
         playerName = "Joueur";
 
         if (SaveSystem.exists()) {
-            if (!loadGame()) {
+            if (!loadGame(true)) {
                 startNewGame();
             }
         } else {
@@ -867,16 +1006,18 @@ public class GameMain extends ApplicationAdapter {
 
     /**
      * Bascule vers l'etat MENU, masque le HUD jeu et prepare les controles du menu.
+     * Attend la fin des ecritures de sauvegarde en cours, hors du verrou du monde.
      */
     private void showMainMenu() {
         currentState = GameState.MENU;
         showMainMenuPage();
         pauseWindow.setVisible(false);
         setGameHUDVisible(false);
+        autosaveService.flush();
         if (continueBtn != null) continueBtn.setDisabled(!SaveSystem.exists());
 
 
-        Gdx.input.setInputProcessor(uiStage);
+        Gdx.input.setInputProcessor(inputProcessor);
 
 
         if (backgroundMusic != null && !backgroundMusic.isPlaying()) {
@@ -893,19 +1034,19 @@ public class GameMain extends ApplicationAdapter {
     }
 
     /**
-     * Garantit la presence du QG et de l'hotel des ventes dans la carte.
+     * Ajoute un batiment au monde et l'inscrit dans l'index d'occupation.
      */
-    private void ensureCoreBuildings() {
-        boolean hasHQ = false;
-        boolean hasAuctionHouse = false;
-
-        for (Building b : buildings) {
-            if (b.isHQ()) hasHQ = true;
-            if (b.isAuctionHouse()) hasAuctionHouse = true;
-        }
+    private void addBuilding(Building b) {
+        engine.addBuilding(b);
+    }
 
-        if (!hasHQ) buildings.add(new Building(Building.Type.MAIN_HQ, 55, 55, 0));
-        if (!hasAuctionHouse) buildings.add(new Building(Building.Type.AUCTION_HOUSE, 58, 46, 0));
+    /**
+     * Retire un batiment du monde et libere ses cases dans l'index d'occupation.
+     */
+    private void removeBuilding(Building b) {
+        engine.removeBuilding(b);
+        removedBuildingAnchors.add(b.getGridX());
+        removedBuildingAnchors.add(b.getGridY());
     }
 
     /**
@@ -936,20 +1077,26 @@ public class GameMain extends ApplicationAdapter {
 
     public void render() {
         float dt = Gdx.graphics.getDeltaTime();
+        if (performanceOverlay != null) performanceOverlay.beginFrame();
 
 
         if (currentState == GameState.PLAYING) {
-            handleInput(dt);
-
-
-            for (Building b : buildings) {
-                b.update(dt);
+            long inputStart = System.nanoTime();
+            synchronized (worldLock) {
+                handleInput(dt);
+            }
+            performanceOverlay.record(PerformanceOverlay.SECTION_INPUT, inputStart);
+            if (loadRequested) {
+                loadRequested = false;
+                loadGame(false);
             }
-            updateConveyors(dt);
 
 
             camera.position.set(playerPos.x, playerPos.y, 0);
             camera.update();
+            updateResidentChunks();
+
+            if (autosaveService.tick(dt)) saveGame();
         } else if (currentState == GameState.PAUSED) {
 
             if (Gdx.input.isKeyJustPressed(Keys.ESCAPE)) {
@@ -959,8 +1106,22 @@ public class GameMain extends ApplicationAdapter {
 
 
 
+        simulationWorker.setSimulating(currentState == GameState.PLAYING);
+        WorldSnapshot snapshot = simulationWorker.acquireSnapshot();
+        float alpha = simulationWorker.getAlpha(snapshot);
+
         ScreenUtils.clear(0.1f, 0.1f, 0.1f, 1);
 
+        if (currentState == GameState.LOADING) {
+            if (assetManager.update(16)) {
+                onAssetsLoaded();
+            } else {
+                renderLoadingScreen();
+                logFirstFrame();
+                return;
+            }
+        }
+
         if (currentState == GameState.MENU) {
             batch.getProjectionMatrix().setToOrtho2D(0, 0, Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
             batch.begin();
@@ -972,169 +1133,88 @@ public class GameMain extends ApplicationAdapter {
         if (currentState == GameState.PLAYING || currentState == GameState.PAUSED) {
 
 
-            batch.setProjectionMatrix(camera.combined);
-            batch.begin();
-            for (int x = 0; x < MAP_SIZE; x++) {
-                for (int y = 0; y < MAP_SIZE; y++) {
-                    Terrain t = terrainGrid[x][y];
-                    Texture tex;
-                    switch (t.getType()) {
-                        case GRASS:  tex = tileGrass; break;
-                        case TILLED: tex = tileTilled; break;
-                        default:     tex = tileGrass; break;
-                    }
-                    batch.draw(tex, x - MAP_OFFSET, y - MAP_OFFSET, 1f, 1f);
-                }
-            }
-            batch.end();
-
-
+            long terrainStart = System.nanoTime();
+            terrainRenderer.render(camera, terrainGrid);
+            gridOverlay.render(camera);
+            performanceOverlay.record(PerformanceOverlay.SECTION_TERRAIN, terrainStart);
 
-            shapeRenderer.setProjectionMatrix(camera.combined);
-            shapeRenderer.begin(ShapeRenderer.ShapeType.Filled);
-            for (Building b : buildings) {
-                if (b.getType() == Building.Type.MAIN_HQ || b.getType() == Building.Type.AUCTION_HOUSE) continue;
-                float wx = b.getGridX() - MAP_OFFSET;
-                float wy = b.getGridY() - MAP_OFFSET;
-                boolean drawRect = true;
+            long buildingsStart = System.nanoTime();
 
-
-                switch (b.getType()) {
-                    case CONVEYOR_BELT: shapeRenderer.setColor(Color.GRAY); break;
-                    case PLANTER:
-                        if (planterTexture != null || planterPotatoTexture != null || planterStrawberryTexture != null || planterLeekTexture != null) {
-                            drawRect = false;
+            BuildingLayout layout = snapshot.layout;
+            for (int i = 0; i < layout.count; i++) {
+                Building.Type type = BUILDING_TYPES[layout.types[i]];
+                float wx = layout.gridX[i] - MAP_OFFSET;
+                float wy = layout.gridY[i] - MAP_OFFSET;
+                if (type == Building.Type.MAIN_HQ || type == Building.Type.AUCTION_HOUSE) {
+                    final float visualWidth = type.width * HQ_SPRITE_SCALE;
+                    final float visualHeight = type.height * HQ_SPRITE_SCALE;
+                    final float logicalWidth = type.width;
+                    final float logicalHeight = type.height;
+
+                    float drawX = (wx + logicalWidth / 2f) - (visualWidth / 2f);
+                    float drawY = (wy + logicalHeight / 2f) - (visualHeight / 2.2f);
+
+                    TextureRegion hqRegion = type == Building.Type.MAIN_HQ ? hqTexture : auctionTexture;
+                    worldRenderQueue.draw(WorldRenderQueue.LAYER_BUILDINGS, hqRegion, drawX, drawY, visualWidth, visualHeight);
+                } else if (type == Building.Type.PLANTER) {
+                    Building.PlanterCrop planterCrop = PLANTER_CROPS[snapshot.planterCrops[i]];
+                    float drawWidth = type.width * PLANTER_VISUAL_SCALE;
+                    float drawHeight = type.height * PLANTER_VISUAL_SCALE;
+                    float drawX = wx + (type.width - drawWidth) / 2f;
+                    float drawY = wy + (type.height - drawHeight) / 2f;
+                    TextureRegion planterStateTexture;
+
+                    switch (planterCrop) {
+                        case POTATO:
+                            planterStateTexture = planterPotatoTexture;
+                            break;
+                        case STRAWBERRY:
+                            planterStateTexture = planterStrawberryTexture;
+                            break;
+                        case LEEK:
+                            planterStateTexture = planterLeekTexture;
+                            break;
+                        default:
+                            planterStateTexture = planterTexture;
                             break;
-                        }
-
-                        if (b.isPlanterEmpty()) shapeRenderer.setColor(new Color(0.55f, 0.35f, 0.15f, 1f));
-                        else if (b.isPlanterReady()) shapeRenderer.setColor(getCropReadyColor(b.getPlanterCrop()));
-                        else shapeRenderer.setColor(getCropGrowingColor(b.getPlanterCrop()));
-                        break;
-                    default: shapeRenderer.setColor(Color.WHITE); break;
-                }
-                if (drawRect) {
-                    if (b.isPlanter()) {
-                        float drawWidth = b.getType().width * PLANTER_VISUAL_SCALE;
-                        float drawHeight = b.getType().height * PLANTER_VISUAL_SCALE;
-                        float drawX = wx + (b.getType().width - drawWidth) / 2f;
-                        float drawY = wy + (b.getType().height - drawHeight) / 2f;
-                        shapeRenderer.rect(drawX, drawY, drawWidth, drawHeight);
-                    } else {
-                        shapeRenderer.rect(wx, wy, b.getType().width, b.getType().height);
-                    }
-                }
-
-
-                if (b.isConveyor() && b.hasItem()) {
-                    Texture heldItemTexture = getCropTexture(b.getHeldItem());
-                    if (heldItemTexture == null) {
-                        shapeRenderer.setColor(getCropReadyColor(b.getHeldItem()));
-                        Vector2 itemPos = getConveyorItemWorldPosition(b, conveyorItemTmp);
-                        float itemX = itemPos.x;
-                        float itemY = itemPos.y;
-                        shapeRenderer.rect(itemX, itemY, 0.5f, 0.5f);
-                    }
-                }
-            }
-            shapeRenderer.end();
-
-
-            batch.begin();
-            for (Building b : buildings) {
-                if (b.getType() == Building.Type.MAIN_HQ) {
-
-
-                    final float visualWidth = b.getType().width * HQ_SPRITE_SCALE;
-                    final float visualHeight = b.getType().height * HQ_SPRITE_SCALE;
-
-
-                    final float logicalWidth = b.getType().width;
-                    final float logicalHeight = b.getType().height;
-
-
-                    float drawX = (b.getGridX() - MAP_OFFSET + logicalWidth / 2f) - (visualWidth / 2f);
-                    float drawY = (b.getGridY() - MAP_OFFSET + logicalHeight / 2f) - (visualHeight / 2.2f);
-
-                    batch.draw(hqTexture, drawX, drawY, visualWidth, visualHeight);
-                } else if (b.getType() == Building.Type.AUCTION_HOUSE) {
-                    final float visualWidth = b.getType().width * HQ_SPRITE_SCALE;
-                    final float visualHeight = b.getType().height * HQ_SPRITE_SCALE;
-                    final float logicalWidth = b.getType().width;
-                    final float logicalHeight = b.getType().height;
-
-                    float drawX = (b.getGridX() - MAP_OFFSET + logicalWidth / 2f) - (visualWidth / 2f);
-                    float drawY = (b.getGridY() - MAP_OFFSET + logicalHeight / 2f) - (visualHeight / 2.2f);
-
-                    batch.draw(auctionTexture, drawX, drawY, visualWidth, visualHeight);
-                } else if (b.isPlanter()) {
-                    float wx = b.getGridX() - MAP_OFFSET;
-                    float wy = b.getGridY() - MAP_OFFSET;
-                    Texture planterStateTexture;
-
-                    if (!b.isPlanterEmpty()) {
-                        switch (b.getPlanterCrop()) {
-                            case POTATO:
-                                planterStateTexture = planterPotatoTexture;
-                                break;
-                            case STRAWBERRY:
-                                planterStateTexture = planterStrawberryTexture;
-                                break;
-                            case LEEK:
-                                planterStateTexture = planterLeekTexture;
-                                break;
-                            default:
-                                planterStateTexture = planterTexture;
-                                break;
-                        }
-                    } else {
-                        planterStateTexture = planterTexture;
                     }
-
                     if (planterStateTexture == null) {
                         planterStateTexture = planterTexture;
                     }
 
                     if (planterStateTexture != null) {
-                        float drawWidth = b.getType().width * PLANTER_VISUAL_SCALE;
-                        float drawHeight = b.getType().height * PLANTER_VISUAL_SCALE;
-                        float drawX = wx + (b.getType().width - drawWidth) / 2f;
-                        float drawY = wy + (b.getType().height - drawHeight) / 2f;
-                        batch.draw(planterStateTexture, drawX, drawY, drawWidth, drawHeight);
+                        worldRenderQueue.draw(WorldRenderQueue.LAYER_BUILDINGS, planterStateTexture, drawX, drawY, drawWidth, drawHeight);
+                    } else {
+                        Color fallback;
+                        if (planterCrop == Building.PlanterCrop.NONE) fallback = PLANTER_FALLBACK_COLOR;
+                        else if (snapshot.planterReady[i]) fallback = getCropReadyColor(planterCrop);
+                        else fallback = getCropGrowingColor(planterCrop);
+                        worldRenderQueue.fillRect(WorldRenderQueue.LAYER_BUILDINGS, drawX, drawY, drawWidth, drawHeight, fallback);
                     }
-                } else if (b.isConveyor()) {
-                    Texture conveyorTexture = getConveyorTextureForRotation(b.getRotation());
-                    float wx = b.getGridX() - MAP_OFFSET;
-                    float wy = b.getGridY() - MAP_OFFSET;
-                    if (conveyorTexture != null) {
-                        batch.draw(conveyorTexture, wx, wy, b.getType().width, b.getType().height);
+
+                    if (snapshot.planterReady[i] && planterCrop != Building.PlanterCrop.NONE) {
+                        float overlaySize = READY_FILTER_SCALE;
+                        float offset = (1f - overlaySize) * 0.5f;
+                        worldRenderQueue.fillRect(WorldRenderQueue.LAYER_OVERLAYS, wx + offset, wy + offset, overlaySize, overlaySize, getCropReadyOverlayColor(planterCrop));
                     }
-                    if (b.hasItem()) {
-                        Texture heldItemTexture = getCropTexture(b.getHeldItem());
+                } else if (type == Building.Type.CONVEYOR_BELT) {
+                    worldRenderQueue.fillRect(WorldRenderQueue.LAYER_BUILDINGS, wx, wy, type.width, type.height, Color.GRAY);
+                    worldRenderQueue.draw(WorldRenderQueue.LAYER_BUILDINGS, getConveyorTextureForRotation(layout.rotations[i]), wx, wy, type.width, type.height);
+
+                    int itemEnd = WorldSnapshot.getItemIndex(i, snapshot.itemCount[i]);
+                    for (int item = WorldSnapshot.getItemIndex(i, 0); item < itemEnd; item++) {
+                        Building.PlanterCrop heldItem = PLANTER_CROPS[snapshot.itemCrops[item]];
+                        if (heldItem == Building.PlanterCrop.NONE) continue;
+                        Vector2 itemPos = getConveyorItemWorldPosition(snapshot, i, item, alpha, conveyorItemTmp);
+                        TextureRegion heldItemTexture = getCropTexture(heldItem);
                         if (heldItemTexture != null) {
-                            Vector2 itemPos = getConveyorItemWorldPosition(b, conveyorItemTmp);
-                            float itemX = itemPos.x;
-                            float itemY = itemPos.y;
-                            batch.draw(heldItemTexture, itemX, itemY, 0.5f, 0.5f);
+                            worldRenderQueue.draw(WorldRenderQueue.LAYER_ITEMS, heldItemTexture, itemPos.x, itemPos.y, CONVEYOR_ITEM_SIZE, CONVEYOR_ITEM_SIZE);
+                        } else {
+                            worldRenderQueue.fillRect(WorldRenderQueue.LAYER_ITEMS, itemPos.x, itemPos.y, CONVEYOR_ITEM_SIZE, CONVEYOR_ITEM_SIZE, getCropReadyColor(heldItem));
                         }
                     }
                 }
             }
-            batch.end();
-
-            Gdx.gl.glEnable(Gdx.gl.GL_BLEND);
-            shapeRenderer.begin(ShapeRenderer.ShapeType.Filled);
-            for (Building b : buildings) {
-                if (!b.isPlanter() || b.isPlanterEmpty() || !b.isPlanterReady()) continue;
-                float wx = b.getGridX() - MAP_OFFSET;
-                float wy = b.getGridY() - MAP_OFFSET;
-                float overlaySize = READY_FILTER_SCALE;
-                float offset = (1f - overlaySize) * 0.5f;
-                Color c = getCropReadyOverlayColor(b.getPlanterCrop());
-                shapeRenderer.setColor(c);
-                shapeRenderer.rect(wx + offset, wy + offset, overlaySize, overlaySize);
-            }
-            shapeRenderer.end();
 
 
             Vector3 worldMouse = camera.unproject(new Vector3(Gdx.input.getX(), Gdx.input.getY(), 0));
@@ -1142,73 +1222,81 @@ public class GameMain extends ApplicationAdapter {
             int mouseWorldY = MathUtils.floor(worldMouse.y);
 
             if (currentState == GameState.PLAYING) {
-                shapeRenderer.begin(ShapeRenderer.ShapeType.Line);
-
                 if (!selectedTool.equals("NONE") && selectedBuildingType == null && !selectedTool.equals("BULLDOZE")) {
-                    shapeRenderer.setColor(isInInteractionRange(mouseWorldX, mouseWorldY) ? Color.YELLOW : Color.RED);
-                    shapeRenderer.rect(mouseWorldX, mouseWorldY, 1, 1);
+                    Color cursorColor = isInInteractionRange(mouseWorldX, mouseWorldY) ? Color.YELLOW : Color.RED;
+                    worldRenderQueue.strokeRect(WorldRenderQueue.LAYER_CURSOR, mouseWorldX, mouseWorldY, 1, 1, CURSOR_LINE_WIDTH, cursorColor);
                 }
-                shapeRenderer.end();
-
-                shapeRenderer.begin(ShapeRenderer.ShapeType.Filled);
 
                 if (selectedBuildingType != null) {
-                    boolean ok = isInInteractionRange(mouseWorldX, mouseWorldY) && canPlaceBuilding(selectedBuildingType, mouseWorldX + MAP_OFFSET, mouseWorldY + MAP_OFFSET);
-                    shapeRenderer.setColor(ok ? new Color(0f, 1f, 0f, 0.25f) : new Color(1f, 0f, 0f, 0.25f));
-                    shapeRenderer.rect(mouseWorldX, mouseWorldY, selectedBuildingType.width, selectedBuildingType.height);
+                    boolean ok;
+                    synchronized (worldLock) {
+                        ok = isInInteractionRange(mouseWorldX, mouseWorldY) && canPlaceBuilding(selectedBuildingType, mouseWorldX + MAP_OFFSET, mouseWorldY + MAP_OFFSET);
+                    }
+                    worldRenderQueue.fillRect(WorldRenderQueue.LAYER_CURSOR, mouseWorldX, mouseWorldY, selectedBuildingType.width, selectedBuildingType.height, ok ? GHOST_OK_COLOR : GHOST_BLOCKED_COLOR);
 
 
-                    shapeRenderer.setColor(Color.YELLOW);
                     float cx = mouseWorldX + selectedBuildingType.width / 2f;
                     float cy = mouseWorldY + selectedBuildingType.height / 2f;
                     float len = 0.4f;
+                    int arrow = WorldRenderQueue.LAYER_CURSOR;
                     switch (currentRotation) {
-                        case 0: shapeRenderer.rect(cx - 0.05f, cy, 0.1f, len); break;
-                        case 1: shapeRenderer.rect(cx, cy - 0.05f, len, 0.1f); break;
-                        case 2: shapeRenderer.rect(cx - 0.05f, cy - len, 0.1f, len); break;
-                        case 3: shapeRenderer.rect(cx - len, cy - 0.05f, len, 0.1f); break;
+                        case 0: worldRenderQueue.fillRect(arrow, cx - 0.05f, cy, 0.1f, len, Color.YELLOW); break;
+                        case 1: worldRenderQueue.fillRect(arrow, cx, cy - 0.05f, len, 0.1f, Color.YELLOW); break;
+                        case 2: worldRenderQueue.fillRect(arrow, cx - 0.05f, cy - len, 0.1f, len, Color.YELLOW); break;
+                        case 3: worldRenderQueue.fillRect(arrow, cx - len, cy - 0.05f, len, 0.1f, Color.YELLOW); break;
                     }
                 }
-                shapeRenderer.end();
             }
 
 
-
-            shapeRenderer.begin(ShapeRenderer.ShapeType.Line);
-            Gdx.gl.glEnable(Gdx.gl.GL_BLEND);
-            shapeRenderer.setColor(0.2f, 0.2f, 0.2f, 0.5f);
-            for (int x = 0; x <= MAP_SIZE; x++) shapeRenderer.line(x - MAP_OFFSET, -MAP_OFFSET, x - MAP_OFFSET, MAP_SIZE - MAP_OFFSET);
-            for (int y = 0; y <= MAP_SIZE; y++) shapeRenderer.line(-MAP_OFFSET, y - MAP_OFFSET, MAP_SIZE - MAP_OFFSET, y - MAP_OFFSET);
-            shapeRenderer.end();
-
-
-            batch.begin();
             TextureRegion playerFrame = playerAnimationController == null ? null : playerAnimationController.getCurrentFrame();
             if (playerFrame != null) {
                 float drawX = playerPos.x - PLAYER_SIZE * 0.5f;
                 float drawY = playerPos.y - PLAYER_SIZE * 0.5f;
                 if (playerAnimationController.isFlipX()) {
-                    batch.draw(playerFrame, drawX + PLAYER_SIZE, drawY, -PLAYER_SIZE, PLAYER_SIZE);
+                    worldRenderQueue.draw(WorldRenderQueue.LAYER_PLAYER, playerFrame, drawX + PLAYER_SIZE, drawY, -PLAYER_SIZE, PLAYER_SIZE);
                 } else {
-                    batch.draw(playerFrame, drawX, drawY, PLAYER_SIZE, PLAYER_SIZE);
+                    worldRenderQueue.draw(WorldRenderQueue.LAYER_PLAYER, playerFrame, drawX, drawY, PLAYER_SIZE, PLAYER_SIZE);
                 }
             }
-            batch.end();
 
 
             if (currentState == GameState.PAUSED) {
-                Gdx.gl.glEnable(Gdx.gl.GL_BLEND);
-                shapeRenderer.begin(ShapeRenderer.ShapeType.Filled);
-                shapeRenderer.setColor(0f, 0f, 0f, 0.5f);
-                shapeRenderer.rect(-1000, -1000, 2000, 2000);
-                shapeRenderer.end();
+                worldRenderQueue.fillRect(WorldRenderQueue.LAYER_SCREEN, -1000, -1000, 2000, 2000, PAUSE_DIM_COLOR);
             }
+
+            batch.setProjectionMatrix(camera.combined);
+            worldRenderQueue.flush(batch);
+            performanceOverlay.record(PerformanceOverlay.SECTION_BUILDINGS, buildingsStart);
         }
 
 
+        performanceOverlay.sample(snapshot, dt);
+        long uiStart = System.nanoTime();
         uiStage.act(dt);
         uiStage.draw();
+        performanceOverlay.record(PerformanceOverlay.SECTION_UI, uiStart);
+        int uiRenderCalls = uiStage.getBatch() instanceof SpriteBatch ? ((SpriteBatch) uiStage.getBatch()).renderCalls : 0;
+        performanceOverlay.setRenderStats(worldRenderQueue.getLastRenderCalls(), uiRenderCalls, terrainRenderer.getDrawnChunks());
+        logFirstFrame();
     }
+
+    /**
+     * Journalise une seule fois le temps entre create() et la fin de la premiere frame.
+     */
+    private void logFirstFrame() {
+        if (firstFrameLogged) return;
+        firstFrameLogged = true;
+        System.out.println("Premiere frame en " + (System.nanoTime() - createStartNanos) / 1_000_000L + " ms");
+    }
+    /**
+     * Execute un pas fixe de simulation: croissance des jardinieres puis transport des convoyeurs.
+     * Appele par le thread de simulation, sous le verrou du monde.
+     */
+    private void stepSimulation(float step) {
+        engine.step(step);
+    }
+
     /**
      * Gere les entrees clavier/souris: deplacements, interactions, outils, placement et pause.
      */
@@ -1220,8 +1308,10 @@ public class GameMain extends ApplicationAdapter {
         }
 
 
+        if (Gdx.input.isKeyJustPressed(Keys.F3)) performanceOverlay.toggle();
         if (Gdx.input.isKeyJustPressed(Keys.F5)) saveGame();
-        if (Gdx.input.isKeyJustPressed(Keys.F9)) loadGame();
+        if (Gdx.input.isKeyJustPressed(Keys.F6)) exportGameJson();
+        if (Gdx.input.isKeyJustPressed(Keys.F9)) loadRequested = true;
 
 
         if (Gdx.input.isKeyJustPressed(Keys.R)) {
@@ -1312,16 +1402,15 @@ public class GameMain extends ApplicationAdapter {
         float playerBottom = worldY - playerHalfH;
         float playerTop = worldY + playerHalfH;
 
-        for (Building b : buildings) {
-            if (b.isPlanter() || b.isConveyor()) continue;
+        int minX = MathUtils.floor(playerLeft);
+        int maxX = MathUtils.ceil(playerRight) - 1;
+        int minY = MathUtils.floor(playerBottom);
+        int maxY = MathUtils.ceil(playerTop) - 1;
 
-            float bx = b.getGridX() - MAP_OFFSET;
-            float by = b.getGridY() - MAP_OFFSET;
-            float bw = b.getType().width;
-            float bh = b.getType().height;
-
-            if (playerLeft < bx + bw && playerRight > bx &&
-                    playerBottom < by + bh && playerTop > by) {
+        for (int x = minX; x <= maxX; x++) {
+            for (int y = minY; y <= maxY; y++) {
+                Building b = getBuildingAtWorldCell(x, y);
+                if (b == null || b.isPlanter() || b.isConveyor()) continue;
                 return true;
             }
         }
@@ -1598,7 +1687,7 @@ public class GameMain extends ApplicationAdapter {
 
         card.add(new Label(title, skin)).row();
 
-        Texture cropTexture = getCropTexture(crop);
+        TextureRegion cropTexture = getCropTexture(crop);
         if (cropTexture != null) {
             card.add(new Image(cropTexture)).size(40).padBottom(2).row();
         } else {
@@ -1655,7 +1744,7 @@ public class GameMain extends ApplicationAdapter {
 
         card.add(new Label(title, skin)).row();
 
-        Texture cropBagTexture = getCropBagTexture(crop);
+        TextureRegion cropBagTexture = getCropBagTexture(crop);
         if (cropBagTexture != null) {
             card.add(new Image(cropBagTexture)).size(40).row();
         } else {
@@ -1690,7 +1779,7 @@ public class GameMain extends ApplicationAdapter {
 
         card.add(new Label(title, skin)).row();
 
-        Texture buildingTexture = planter ? planterTexture : conveyorBottomTexture;
+        TextureRegion buildingTexture = planter ? planterTexture : conveyorBottomTexture;
         if (buildingTexture != null) {
             card.add(new Image(buildingTexture)).size(56, 32).row();
         } else {
@@ -1718,8 +1807,17 @@ public class GameMain extends ApplicationAdapter {
     private void sellFromHQ(Building.PlanterCrop crop, int amount) {
         if (currentHQForUI == null) return;
         int sold = currentHQForUI.removeFromHQStock(crop, amount);
+        Telemetry.SaleEvent event = new Telemetry.SaleEvent();
+        if (event.isEnabled()) {
+            event.crop = crop.name();
+            event.requested = amount;
+            event.sold = Math.max(0, sold);
+            event.revenue = Math.max(0, sold) * Building.getSellPriceFor(crop);
+            event.commit();
+        }
         if (sold <= 0) return;
 
+        Telemetry.recordSale(sold);
         money += sold * Building.getSellPriceFor(crop);
         updateStatsLabel();
         playSfx(sellItemSound);
@@ -1899,7 +1997,7 @@ public class GameMain extends ApplicationAdapter {
 
         if (!canPlaceBuilding(selectedBuildingType, gridX, gridY)) return;
 
-        buildings.add(new Building(selectedBuildingType, gridX, gridY, currentRotation));
+        addBuilding(new Building(selectedBuildingType, gridX, gridY, currentRotation));
         if (selectedBuildingType == Building.Type.PLANTER) buildingStockPlanter--;
         if (selectedBuildingType == Building.Type.CONVEYOR_BELT) buildingStockConveyor--;
         updateStatsLabel();
@@ -1908,98 +2006,31 @@ public class GameMain extends ApplicationAdapter {
     }
 
     /**
-     * Verifie les regles de pose: limites carte, terrain requis et absence de chevauchement.
+     * Verifie les regles de pose: terrain requis et absence de chevauchement.
      */
     private boolean canPlaceBuilding(Building.Type type, int gridX, int gridY) {
-        if (type == null) return false;
-
-
-        if (gridX < 0 || gridY < 0) return false;
-        if (gridX + type.width > MAP_SIZE) return false;
-        if (gridY + type.height > MAP_SIZE) return false;
-
-
-        for (int x = gridX; x < gridX + type.width; x++) {
-            for (int y = gridY; y < gridY + type.height; y++) {
-                Terrain t = terrainGrid[x][y];
-
-
-                if (type == Building.Type.PLANTER) {
-                    if (t.getType() != Terrain.Type.TILLED) return false;
-                }
-
-
-                if (type == Building.Type.MAIN_HQ || type == Building.Type.AUCTION_HOUSE) {
-                    if (t.getType() != Terrain.Type.GRASS) return false;
-                }
-
-            }
-        }
-
-
-        for (Building b : buildings) {
-            if (rectOverlap(gridX, gridY, type.width, type.height,
-                    b.getGridX(), b.getGridY(), b.getType().width, b.getType().height)) {
-                return false;
-            }
-        }
-
-        return true;
-    }
-
-    /**
-     * Teste si deux rectangles axes sur la grille se chevauchent.
-     */
-    private boolean rectOverlap(int ax, int ay, int aw, int ah, int bx, int by, int bw, int bh) {
-        return ax < bx + bw && ax + aw > bx && ay < by + bh && ay + ah > by;
+        return engine.canPlaceBuilding(type, gridX, gridY);
     }
 
     /**
      * Retourne le batiment occupant une case monde donnee (coordonnees converties en grille).
      */
     private Building getBuildingAtWorldCell(int worldX, int worldY) {
-        int gridX = worldX + MAP_OFFSET;
-        int gridY = worldY + MAP_OFFSET;
-
-        for (Building b : buildings) {
-            int bx = b.getGridX();
-            int by = b.getGridY();
-            int bw = b.getType().width;
-            int bh = b.getType().height;
-
-            if (gridX >= bx && gridX < bx + bw && gridY >= by && gridY < by + bh) {
-                return b;
-            }
-        }
-        return null;
+        return buildingGrid.getCovering(worldX + MAP_OFFSET, worldY + MAP_OFFSET);
     }
 
     /**
      * Supprime le batiment sous la case cible sauf QG/hotel des ventes (non destructibles).
      */
     private void deleteBuildingAtWorldCell(int worldX, int worldY) {
-        int gridX = worldX + MAP_OFFSET;
-        int gridY = worldY + MAP_OFFSET;
-
-        Iterator<Building> it = buildings.iterator();
-        while (it.hasNext()) {
-            Building b = it.next();
-            int bx = b.getGridX();
-            int by = b.getGridY();
-            int bw = b.getType().width;
-            int bh = b.getType().height;
-
-            if (gridX >= bx && gridX < bx + bw && gridY >= by && gridY < by + bh) {
-                if (b.isHQ() || b.isAuctionHouse()) {
-                    return;
-                }
-                it.remove();
-                closePlanterPopup();
-                closeHQPopup();
-                closeAuctionPopup();
-                return;
-            }
-        }
+        Building b = getBuildingAtWorldCell(worldX, worldY);
+        if (b == null) return;
+        if (b.isHQ() || b.isAuctionHouse()) return;
+
+        removeBuilding(b);
+        closePlanterPopup();
+        closeHQPopup();
+        closeAuctionPopup();
     }
 
     /**
@@ -2014,19 +2045,13 @@ public class GameMain extends ApplicationAdapter {
         int gridX = worldGridX + MAP_OFFSET;
         int gridY = worldGridY + MAP_OFFSET;
 
-        if (gridX >= 0 && gridX < MAP_SIZE && gridY >= 0 && gridY < MAP_SIZE) {
-            Terrain t = terrainGrid[gridX][gridY];
-            Terrain.Type beforeType = t.getType();
-            switch (selectedTool) {
-                case "TILL":
-                    t.till();
-                    if (beforeType != t.getType()) playSfx(tillSound);
-                    break;
-                case "CLEAR":
-                    t.clear();
-                    if (beforeType != t.getType()) playSfx(clearSound);
-                    break;
-            }
+        switch (selectedTool) {
+            case "TILL":
+                if (terrainGrid.till(gridX, gridY)) playSfx(tillSound);
+                break;
+            case "CLEAR":
+                if (terrainGrid.clear(gridX, gridY)) playSfx(clearSound);
+                break;
         }
     }
 
@@ -2045,12 +2070,80 @@ public class GameMain extends ApplicationAdapter {
 
 
     /**
-     * Serialize l'etat complet de la partie et l'enregistre via SaveSystem.
+     * Copie l'etat de la partie sous le verrou du monde puis confie l'ecriture disque a l'autosave.
+     *
+     * Hors premiere sauvegarde et compaction, seuls les changements depuis la
+     * sauvegarde precedente sont envoyes (delta ajoute au journal).
      */
     private void saveGame() {
+        synchronized (worldLock) {
+            if (needsFullSave || autosaveService.isCompactionDue()) {
+                GameSave snapshot = buildGameSave();
+                clearSaveTracking();
+                needsFullSave = false;
+                autosaveService.submit(snapshot);
+            } else {
+                autosaveService.submitDelta(buildSaveDelta());
+            }
+        }
+    }
+
+    /**
+     * Oublie les changements suivis; la prochaine sauvegarde sera complete.
+     */
+    private void clearSaveTracking() {
+        terrainGrid.clearDirtyChunks();
+        removedBuildingAnchors.clear();
+        engine.getBuildingStore().clearChanges();
+        needsFullSave = true;
+    }
+
+    /**
+     * Construit le delta depuis la derniere sauvegarde: joueur, cases modifiees, batiments retires et changes.
+     * Seuls les batiments notes par un evenement (pose, plantation, recolte, stock, items poses ou retires) sont relus.
+     */
+    private SaveJournal.Delta buildSaveDelta() {
+        SaveJournal.Delta delta = new SaveJournal.Delta();
+        delta.savedAtMillis = System.currentTimeMillis();
+        delta.simulationClock = engine.getBuildingStore().getClock();
+        delta.playerX = playerPos.x;
+        delta.playerY = playerPos.y;
+        delta.money = money;
+        delta.buildingStockPlanter = buildingStockPlanter;
+        delta.buildingStockConveyor = buildingStockConveyor;
+        delta.seedBagsPotato = seedBagsPotato;
+        delta.seedBagsStrawberry = seedBagsStrawberry;
+        delta.seedBagsLeek = seedBagsLeek;
+        delta.carriedPotato = carriedPotato;
+        delta.carriedStrawberry = carriedStrawberry;
+        delta.carriedLeek = carriedLeek;
+
+        delta.terrainChunks = terrainGrid.collectDirtyChunks();
+
+        delta.removedAnchors = removedBuildingAnchors.toArray();
+        removedBuildingAnchors.clear();
+
+        engine.getBuildingStore().drainChanges(changedBuildings);
+        for (Building b : changedBuildings) delta.upserts.add(FactoryEngine.buildBuildingSave(b));
+        changedBuildings.clear();
+        return delta;
+    }
+
+    /**
+     * Exporte l'etat courant en JSON lisible (debug).
+     */
+    private void exportGameJson() {
+        synchronized (worldLock) {
+            SaveSystem.exportJson(buildGameSave());
+        }
+    }
+
+    /**
+     * Recopie l'etat complet de la partie dans une GameSave.
+     */
+    private GameSave buildGameSave() {
         GameSave save = new GameSave();
-        save.mapSize = MAP_SIZE;
-        save.mapOffset = MAP_OFFSET;
+        save.savedAtMillis = System.currentTimeMillis();
         save.playerX = playerPos.x;
         save.playerY = playerPos.y;
         save.money = money;
@@ -2063,71 +2156,32 @@ public class GameMain extends ApplicationAdapter {
         save.carriedStrawberry = carriedStrawberry;
         save.carriedLeek = carriedLeek;
 
-        save.terrainTypeNames = new String[MAP_SIZE * MAP_SIZE];
-        int idx = 0;
-        for (int y = 0; y < MAP_SIZE; y++) {
-            for (int x = 0; x < MAP_SIZE; x++) {
-                save.terrainTypeNames[idx++] = terrainGrid[x][y].getType().name();
-            }
-        }
-
-        for (Building b : buildings) {
-            GameSave.BuildingSave bs = new GameSave.BuildingSave();
-            bs.type = b.getType().name();
-            bs.x = b.getGridX();
-            bs.y = b.getGridY();
-            bs.rotation = b.getRotation();
-
-            bs.planterCrop = b.getPlanterCrop().name();
-            bs.growTimerSeconds = b.getGrowTimerSeconds();
-            bs.planterReady = b.isPlanterReady();
-
-            bs.heldItem = b.getHeldItem().name();
-            bs.heldAmount = b.getHeldAmount();
-            bs.transportTimer = b.getTransportTimerSeconds();
-
-            bs.hqPotatoes = b.getHQStock(Building.PlanterCrop.POTATO);
-            bs.hqStrawberries = b.getHQStock(Building.PlanterCrop.STRAWBERRY);
-            bs.hqLeeks = b.getHQStock(Building.PlanterCrop.LEEK);
-            save.buildings.add(bs);
-        }
-
-        SaveSystem.save(save);
+        engine.writeTo(save);
+        return save;
     }
 
     /**
      * Charge une sauvegarde, reconstruit le monde et restaure l'etat du joueur.
+     * Au lancement (catchUpOffline), le temps ecoule depuis la sauvegarde est rattrape.
+     *
+     * L'attente des ecritures en cours et la lecture disque se font avant de prendre
+     * le verrou du monde: a appeler hors de ce verrou (voir loadRequested pour F9).
      */
-    private boolean loadGame() {
+    private boolean loadGame(boolean catchUpOffline) {
+        autosaveService.flush();
         GameSave save = SaveSystem.load();
         if (save == null) return false;
-
-        if (save.mapSize != MAP_SIZE || save.mapOffset != MAP_OFFSET) return false;
-        boolean hasNewTerrainFormat = save.terrainTypeNames != null && save.terrainTypeNames.length == MAP_SIZE * MAP_SIZE;
-        boolean hasLegacyTerrainFormat = save.terrainTypes != null && save.terrainTypes.length == MAP_SIZE * MAP_SIZE;
-        if (!hasNewTerrainFormat && !hasLegacyTerrainFormat) return false;
-
-        int idx = 0;
-        for (int y = 0; y < MAP_SIZE; y++) {
-            for (int x = 0; x < MAP_SIZE; x++) {
-                Terrain.Type type = Terrain.Type.GRASS;
-                if (hasNewTerrainFormat) {
-                    String typeName = save.terrainTypeNames[idx];
-                    if (typeName != null) {
-                        try {
-                            type = Terrain.Type.valueOf(typeName);
-                        } catch (Exception ignored) {
-                            type = Terrain.Type.GRASS;
-                        }
-                    }
-                } else {
-                    int ord = save.terrainTypes[idx];
-                    type = mapLegacyTerrainOrdinal(ord);
-                }
-                idx++;
-                terrainGrid[x][y] = new Terrain(type);
-            }
+        synchronized (worldLock) {
+            return restoreGame(save, catchUpOffline);
         }
+    }
+
+    /**
+     * Reconstruit le monde et l'etat du joueur depuis une sauvegarde lue (sous le verrou du monde).
+     */
+    private boolean restoreGame(GameSave save, boolean catchUpOffline) {
+        if (!engine.restore(save)) return false;
+        residentCenterChunk = Long.MIN_VALUE;
 
         playerPos.set(save.playerX, save.playerY);
 
@@ -2141,135 +2195,43 @@ public class GameMain extends ApplicationAdapter {
         carriedStrawberry = save.carriedStrawberry;
         carriedLeek = save.carriedLeek;
 
-        buildings.clear();
-        if (save.buildings != null) {
-            for (GameSave.BuildingSave bs : save.buildings) {
-                try {
-                    Building.Type t = Building.Type.valueOf(bs.type);
-                    Building b = new Building(t, bs.x, bs.y, bs.rotation);
-
-                    Building.PlanterCrop planterCrop = Building.PlanterCrop.NONE;
-                    if (bs.planterCrop != null) {
-                        try {
-                            planterCrop = Building.PlanterCrop.valueOf(bs.planterCrop);
-                        } catch (Exception ignored) {
-                            planterCrop = Building.PlanterCrop.NONE;
-                        }
-                    }
-                    b.setPlanterState(planterCrop, bs.growTimerSeconds, bs.planterReady);
-
-                    Building.PlanterCrop heldItem = Building.PlanterCrop.NONE;
-                    if (bs.heldItem != null) {
-                        try {
-                            heldItem = Building.PlanterCrop.valueOf(bs.heldItem);
-                        } catch (Exception ignored) {
-                            heldItem = Building.PlanterCrop.NONE;
-                        }
-                    }
-                    b.setConveyorState(heldItem, bs.heldAmount, bs.transportTimer);
-
-                    b.setHQStock(Building.PlanterCrop.POTATO, bs.hqPotatoes);
-                    b.setHQStock(Building.PlanterCrop.STRAWBERRY, bs.hqStrawberries);
-                    b.setHQStock(Building.PlanterCrop.LEEK, bs.hqLeeks);
-
-                    buildings.add(b);
-                } catch (Exception ignored) {
-
-                }
-            }
+        if (catchUpOffline && save.savedAtMillis > 0L) {
+            catchUpOfflineProgress((System.currentTimeMillis() - save.savedAtMillis) / 1000.0);
         }
-
-        ensureCoreBuildings();
+        simulationWorker.resetClock();
+        autosaveService.resetTimer();
+        clearSaveTracking();
         updateStatsLabel();
         cancelSelection();
         return true;
     }
 
     /**
-     * Convertit les anciens identifiants de terrain de sauvegarde vers le format actuel.
+     * Avance le monde du temps passe hors ligne (voir {@link FactoryEngine#fastForward}).
      */
-    private Terrain.Type mapLegacyTerrainOrdinal(int legacyOrdinal) {
-        if (legacyOrdinal == 2) return Terrain.Type.TILLED;
-
-        return Terrain.Type.GRASS;
+    private void catchUpOfflineProgress(double seconds) {
+        if (seconds <= 0.0) return;
+        long start = System.nanoTime();
+        int steps = engine.fastForward(seconds, 1f / SimulationClock.TICKS_PER_SECOND);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000L;
+        System.out.println("Rattrapage hors ligne: " + (long) seconds + " s en " + steps + " ticks (" + elapsedMillis + " ms)");
     }
 
     /**
-     * Met a jour les convoyeurs: alimentation, progression et depot vers le QG.
+     * Decharge sur disque les chunks de terrain eloignes quand le joueur change de chunk.
      */
-    private void updateConveyors(float dt) {
-        for (Building b : buildings) {
-            if (!b.isConveyor()) continue;
-
-            if (!b.hasItem()) {
-                tryFeedConveyor(b);
-            }
-
-            if (b.hasItem() && b.getTransportProgress() >= 1f) {
-                int frontX = getFrontGridX(b);
-                int frontY = getFrontGridY(b);
-                Building front = getBuildingCoveringGridCell(frontX, frontY);
-
-                if (front != null && front.isHQ() && canConveyorOutputToHQSide(b, front, frontX)) {
-                    Building.ConveyedItem conveyedItem = b.takeConveyedItem();
-                    if (conveyedItem.crop != Building.PlanterCrop.NONE && conveyedItem.amount > 0) {
-                        front.addToHQStock(conveyedItem.crop, conveyedItem.amount);
-                    }
-                }
-            }
+    private void updateResidentChunks() {
+        int cx = WorldChunks.chunkOf(MathUtils.floor(playerPos.x) + MAP_OFFSET);
+        int cy = WorldChunks.chunkOf(MathUtils.floor(playerPos.y) + MAP_OFFSET);
+        long center = WorldChunks.key(cx, cy);
+        if (center == residentCenterChunk) return;
+        residentCenterChunk = center;
+        synchronized (worldLock) {
+            terrainGrid.unloadOutside(cx - TERRAIN_RESIDENT_RADIUS_CHUNKS, cy - TERRAIN_RESIDENT_RADIUS_CHUNKS,
+                cx + TERRAIN_RESIDENT_RADIUS_CHUNKS, cy + TERRAIN_RESIDENT_RADIUS_CHUNKS);
         }
     }
 
-    /**
-     * Tente d'alimenter un convoyeur depuis un voisin convoyeur ou une jardiniere prete.
-     */
-    private void tryFeedConveyor(Building conveyor) {
-        int[][] neighbors = new int[][]{{0, 1}, {1, 0}, {0, -1}, {-1, 0}};
-
-        for (int[] dir : neighbors) {
-            int nx = conveyor.getGridX() + dir[0];
-            int ny = conveyor.getGridY() + dir[1];
-            Building neighbor = getBuildingAtGridCell(nx, ny);
-            if (neighbor == null || !neighbor.isConveyor()) continue;
-            if (!neighbor.hasItem() || neighbor.getTransportProgress() < 1f) continue;
-
-            if (getFrontGridX(neighbor) == conveyor.getGridX() && getFrontGridY(neighbor) == conveyor.getGridY()) {
-                Building.ConveyedItem conveyedItem = neighbor.takeConveyedItem();
-                int entryDirection = getEntryDirectionFromSource(neighbor.getGridX(), neighbor.getGridY(), conveyor);
-                conveyor.receiveItem(conveyedItem.crop, conveyedItem.amount, entryDirection);
-                return;
-            }
-        }
-
-        for (int[] dir : neighbors) {
-            int nx = conveyor.getGridX() + dir[0];
-            int ny = conveyor.getGridY() + dir[1];
-            Building neighbor = getBuildingAtGridCell(nx, ny);
-            if (neighbor != null && neighbor.isPlanter() && !neighbor.isPlanterEmpty() && neighbor.isPlanterReady()) {
-                Building.PlanterCrop crop = neighbor.harvest();
-                int entryDirection = getEntryDirectionFromSource(neighbor.getGridX(), neighbor.getGridY(), conveyor);
-                conveyor.receiveItem(crop, Building.getYieldFor(crop), entryDirection);
-                playSfx(plantationOutSound);
-                return;
-            }
-        }
-    }
-
-    /**
-     * Charge un effet sonore depuis les assets et retourne null en cas d'echec.
-     */
-    private Sound loadSound(String path) {
-        try {
-            if (Gdx.files.internal(path).exists()) {
-                return Gdx.audio.newSound(Gdx.files.internal(path));
-            }
-            System.out.println("Fichier son introuvable: " + path);
-        } catch (Exception e) {
-            System.out.println("Erreur chargement son " + path + ": " + e.getMessage());
-        }
-        return null;
-    }
-
     /**
      * Joue un effet sonore a volume standard s'il est disponible.
      */
@@ -2279,63 +2241,51 @@ public class GameMain extends ApplicationAdapter {
     }
 
     /**
-     * Determine de quel cote un item entre dans un convoyeur selon sa source.
+     * Calcule la position visuelle (coin bas-gauche) d'un item du convoyeur i selon son avancement interpole.
      */
-    private int getEntryDirectionFromSource(int sourceGridX, int sourceGridY, Building targetConveyor) {
-        int dx = sourceGridX - targetConveyor.getGridX();
-        int dy = sourceGridY - targetConveyor.getGridY();
-
-        if (dx == -1 && dy == 0) return 3;
-        if (dx == 1 && dy == 0) return 1;
-        if (dx == 0 && dy == -1) return 2;
-        if (dx == 0 && dy == 1) return 0;
-        return getOppositeDirection(targetConveyor.getRotation());
-    }
+    private Vector2 getConveyorItemWorldPosition(WorldSnapshot snapshot, int i, int item, float alpha, Vector2 outPos) {
+        BuildingLayout layout = snapshot.layout;
+        float wx = layout.gridX[i] - MAP_OFFSET;
+        float wy = layout.gridY[i] - MAP_OFFSET;
 
-    /**
-     * Calcule la position visuelle d'un item sur un convoyeur selon son avancement.
-     */
-    private Vector2 getConveyorItemWorldPosition(Building conveyor, Vector2 outPos) {
-        float wx = conveyor.getGridX() - MAP_OFFSET;
-        float wy = conveyor.getGridY() - MAP_OFFSET;
-
-        int exitDirection = normalizeDirection(conveyor.getRotation());
-        int entryDirection = conveyor.getEntryDirection();
+        int exitDirection = normalizeDirection(layout.rotations[i]);
+        int entryDirection = snapshot.itemEntryDirections[item];
         if (entryDirection < 0) entryDirection = getOppositeDirection(exitDirection);
 
-        float progress = MathUtils.clamp(conveyor.getTransportProgress(), 0f, 1f);
+        float progress = MathUtils.clamp(snapshot.getItemProgress(item, alpha), 0f, 1f);
         float localX;
         float localY;
 
         if (progress <= 0.5f) {
             float t = progress * 2f;
-            localX = MathUtils.lerp(getConveyorEdgeOffsetX(entryDirection), 0.25f, t);
-            localY = MathUtils.lerp(getConveyorEdgeOffsetY(entryDirection), 0.25f, t);
+            localX = MathUtils.lerp(getConveyorEdgeOffsetX(entryDirection), 0.5f, t);
+            localY = MathUtils.lerp(getConveyorEdgeOffsetY(entryDirection), 0.5f, t);
         } else {
             float t = (progress - 0.5f) * 2f;
-            localX = MathUtils.lerp(0.25f, getConveyorEdgeOffsetX(exitDirection), t);
-            localY = MathUtils.lerp(0.25f, getConveyorEdgeOffsetY(exitDirection), t);
+            localX = MathUtils.lerp(0.5f, getConveyorEdgeOffsetX(exitDirection), t);
+            localY = MathUtils.lerp(0.5f, getConveyorEdgeOffsetY(exitDirection), t);
         }
 
-        return outPos.set(wx + localX, wy + localY);
+        float half = CONVEYOR_ITEM_SIZE * 0.5f;
+        return outPos.set(wx + localX - half, wy + localY - half);
     }
 
     /**
-     * Retourne l'offset X local correspondant au bord d'entree/sortie d'un convoyeur.
+     * Retourne l'offset X local du milieu du bord d'entree/sortie d'un convoyeur.
      */
     private float getConveyorEdgeOffsetX(int direction) {
-        if (direction == 1) return 0.75f;
-        if (direction == 3) return -0.25f;
-        return 0.25f;
+        if (direction == 1) return 1f;
+        if (direction == 3) return 0f;
+        return 0.5f;
     }
 
     /**
-     * Retourne l'offset Y local correspondant au bord d'entree/sortie d'un convoyeur.
+     * Retourne l'offset Y local du milieu du bord d'entree/sortie d'un convoyeur.
      */
     private float getConveyorEdgeOffsetY(int direction) {
-        if (direction == 0) return 0.75f;
-        if (direction == 2) return -0.25f;
-        return 0.25f;
+        if (direction == 0) return 1f;
+        if (direction == 2) return 0f;
+        return 0.5f;
     }
 
     /**
@@ -2354,67 +2304,6 @@ public class GameMain extends ApplicationAdapter {
         return normalizeDirection(direction + 2);
     }
 
-    /**
-     * Calcule la coordonnee X de la case situee devant un batiment selon sa rotation.
-     */
-    private int getFrontGridX(Building b) {
-        int x = b.getGridX();
-        if (b.getRotation() == 1) x += 1;
-        if (b.getRotation() == 3) x -= 1;
-        return x;
-    }
-
-    /**
-     * Calcule la coordonnee Y de la case situee devant un batiment selon sa rotation.
-     */
-    private int getFrontGridY(Building b) {
-        int y = b.getGridY();
-        if (b.getRotation() == 0) y += 1;
-        if (b.getRotation() == 2) y -= 1;
-        return y;
-    }
-
-    /**
-     * Verifie qu'un convoyeur injecte bien sur un cote valide du QG.
-     */
-    private boolean canConveyorOutputToHQSide(Building conveyor, Building hq, int hqCellX) {
-        if (conveyor.getRotation() == 1) {
-            return hqCellX == hq.getGridX();
-        }
-        if (conveyor.getRotation() == 3) {
-            return hqCellX == hq.getGridX() + hq.getType().width - 1;
-        }
-        return false;
-    }
-
-    /**
-     * Retourne le batiment dont l'ancre est exactement sur la case grille donnee.
-     */
-    private Building getBuildingAtGridCell(int gridX, int gridY) {
-        for (Building b : buildings) {
-            if (b.getGridX() == gridX && b.getGridY() == gridY) {
-                return b;
-            }
-        }
-        return null;
-    }
-
-    /**
-     * Retourne le batiment dont l'emprise couvre la case grille donnee.
-     */
-    private Building getBuildingCoveringGridCell(int gridX, int gridY) {
-        for (Building b : buildings) {
-            int bx = b.getGridX();
-            int by = b.getGridY();
-            int bw = b.getType().width;
-            int bh = b.getType().height;
-            if (gridX >= bx && gridX < bx + bw && gridY >= by && gridY < by + bh) {
-                return b;
-            }
-        }
-        return null;
-    }
-
     /**
      * Retourne la couleur de rendu pour une culture mature/prete.
      */
@@ -2438,7 +2327,7 @@ public class GameMain extends ApplicationAdapter {
     /**
      * Selectionne la texture de convoyeur adaptee a son orientation.
      */
-    private Texture getConveyorTextureForRotation(int rotation) {
+    private TextureRegion getConveyorTextureForRotation(int rotation) {
         int normalized = normalizeDirection(rotation);
         if (normalized == 0) return conveyorTopTexture;
         if (normalized == 1) return conveyorRightTexture;
@@ -2449,7 +2338,7 @@ public class GameMain extends ApplicationAdapter {
     /**
      * Retourne la texture de la recolte (produit) pour une culture donnee.
      */
-    private Texture getCropTexture(Building.PlanterCrop crop) {
+    private TextureRegion getCropTexture(Building.PlanterCrop crop) {
         if (crop == Building.PlanterCrop.POTATO) return potatoTexture;
         if (crop == Building.PlanterCrop.STRAWBERRY) return strawberryTexture;
         if (crop == Building.PlanterCrop.LEEK) return leekTexture;
@@ -2459,7 +2348,7 @@ public class GameMain extends ApplicationAdapter {
     /**
      * Retourne la texture du sac de graines associe a une culture.
      */
-    private Texture getCropBagTexture(Building.PlanterCrop crop) {
+    private TextureRegion getCropBagTexture(Building.PlanterCrop crop) {
         if (crop == Building.PlanterCrop.POTATO) return potatoBagTexture;
         if (crop == Building.PlanterCrop.STRAWBERRY) return strawberryBagTexture;
         if (crop == Building.PlanterCrop.LEEK) return leekBagTexture;
@@ -2500,47 +2389,22 @@ public class GameMain extends ApplicationAdapter {
      * Sauvegarde si necessaire puis libere toutes les ressources graphiques, audio et UI.
      */
     public void dispose() {
+        simulationWorker.stop();
+
         if (currentState == GameState.PLAYING || currentState == GameState.PAUSED) {
             saveGame();
         }
+        autosaveService.shutdown();
 
         batch.dispose();
-        shapeRenderer.dispose();
-
-        if (playerAnimationController != null) playerAnimationController.dispose();
-
-        if (tileGrass != null) tileGrass.dispose();
-        if (tileTilled != null) tileTilled.dispose();
-        if (hqTexture != null) hqTexture.dispose();
-        if (auctionTexture != null) auctionTexture.dispose();
-        if (potatoTexture != null) potatoTexture.dispose();
-        if (strawberryTexture != null) strawberryTexture.dispose();
-        if (leekTexture != null) leekTexture.dispose();
-        if (potatoBagTexture != null) potatoBagTexture.dispose();
-        if (strawberryBagTexture != null) strawberryBagTexture.dispose();
-        if (leekBagTexture != null) leekBagTexture.dispose();
-        if (planterTexture != null) planterTexture.dispose();
-        if (planterPotatoTexture != null) planterPotatoTexture.dispose();
-        if (planterStrawberryTexture != null) planterStrawberryTexture.dispose();
-        if (planterLeekTexture != null) planterLeekTexture.dispose();
-        if (conveyorTopTexture != null) conveyorTopTexture.dispose();
-        if (conveyorRightTexture != null) conveyorRightTexture.dispose();
-        if (conveyorBottomTexture != null) conveyorBottomTexture.dispose();
-        if (conveyorLeftTexture != null) conveyorLeftTexture.dispose();
-        if (gameLogoTexture != null) gameLogoTexture.dispose();
-        if (backgroundTexture != null) backgroundTexture.dispose();
-
-        if (backgroundMusic != null) backgroundMusic.dispose();
-        if (buyItemSound != null) buyItemSound.dispose();
-        if (sellItemSound != null) sellItemSound.dispose();
-        if (plantationInSound != null) plantationInSound.dispose();
-        if (plantationOutSound != null) plantationOutSound.dispose();
-        if (planterPlacementSound != null) planterPlacementSound.dispose();
-        if (conveyorPlacementSound != null) conveyorPlacementSound.dispose();
-        if (tillSound != null) tillSound.dispose();
-        if (clearSound != null) clearSound.dispose();
+        if (terrainRenderer != null) terrainRenderer.dispose();
+        gridOverlay.dispose();
+
+        assetManager.dispose();
+        loadingBarTexture.dispose();
 
+        if (performanceOverlay != null) performanceOverlay.dispose();
         uiStage.dispose();
-        skin.dispose();
+        if (skin != null) skin.dispose();
     }
 }
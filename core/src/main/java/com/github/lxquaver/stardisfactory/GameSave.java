@@ -7,11 +7,16 @@ import java.util.List;
  * Structure de donnees serialisable representant l'etat complet d'une partie.
  *
  * Cette classe est volontairement composee de champs publics pour simplifier
- * la serialisation JSON via LibGDX.
+ * la serialisation JSON via LibGDX et binaire via {@link BinarySaveFormat}.
  */
 public class GameSave {
     /**
-     * Taille de la carte carree (nombre de cases par cote).
+     * Generation du snapshot complet, reprise dans l'en-tete du journal de deltas.
+     */
+    public long generation;
+
+    /**
+     * Ancienne sauvegarde JSON: taille de la carte carree (0 pour un monde en chunks).
      */
     public int mapSize;
 
@@ -21,15 +26,31 @@ public class GameSave {
     public int mapOffset;
 
     /**
-     * Ancien format de terrain: tableau aplati d'ordinaux de Terrain.Type.
+     * Heure murale de la sauvegarde (ms depuis l'epoque, 0 si inconnue): sert au rattrapage hors ligne.
+     */
+    public long savedAtMillis;
+
+    /**
+     * Horloge de simulation des jardinieres (secondes) au moment de la sauvegarde:
+     * origine des instants de plantation (0 dans les anciens formats).
+     */
+    public double simulationClock;
+
+    /**
+     * Ancienne sauvegarde JSON, terrain de la carte carree: tableau aplati d'ordinaux de Terrain.Type.
      */
     public int[] terrainTypes;
 
     /**
-     * Nouveau format de terrain: tableau aplati de noms de Terrain.Type.
+     * Ancienne sauvegarde JSON, terrain de la carte carree: tableau aplati de noms de Terrain.Type.
      */
     public String[] terrainTypeNames;
 
+    /**
+     * Terrain du monde en chunks: seuls les chunks qui ne sont pas entierement en herbe.
+     */
+    public List<TerrainChunkSave> terrainChunks = new ArrayList<>();
+
     /**
      * Position du joueur au moment de la sauvegarde.
      */
@@ -54,6 +75,22 @@ public class GameSave {
      */
     public List<BuildingSave> buildings = new ArrayList<>();
 
+    /**
+     * Snapshot serialisable d'un chunk de terrain.
+     */
+    public static class TerrainChunkSave {
+        /**
+         * Coordonnees du chunk (en chunks, pas en cases).
+         */
+        public int x;
+        public int y;
+
+        /**
+         * Ordinaux de Terrain.Type des cases du chunk (ligne par ligne).
+         */
+        public byte[] cells;
+    }
+
     /**
      * Snapshot serialisable d'un batiment du monde.
      */
@@ -75,19 +112,32 @@ public class GameSave {
         public int rotation;
 
         /**
-         * Etat de croissance d'une jardiniere.
+         * Etat de croissance d'une jardiniere: instant de plantation sur simulationClock
+         * (la maturite en decoule: plantedAt + duree de la culture).
          */
         public String planterCrop;
-        public float growTimerSeconds;
+        public double plantedAt;
         public boolean planterReady;
 
         /**
-         * Etat de transport d'un convoyeur.
+         * Ancienne sauvegarde JSON: temps de croissance ecoule, converti en plantedAt a la lecture.
+         */
+        public float growTimerSeconds;
+
+        /**
+         * Ancienne sauvegarde JSON: item unique d'un convoyeur.
          */
         public String heldItem;
         public int heldAmount;
         public float transportTimer;
 
+        /**
+         * Voie complete d'un convoyeur, de l'aval vers l'amont (null dans l'ancienne sauvegarde JSON).
+         */
+        public String[] laneItems;
+        public int[] laneAmounts;
+        public float[] laneOffsets;
+
         /**
          * Stock interne du HQ.
          */
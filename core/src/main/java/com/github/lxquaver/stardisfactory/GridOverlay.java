@@ -0,0 +1,142 @@
+package com.github.lxquaver.stardisfactory;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * Quadrillage du monde construit une seule fois dans un Mesh statique.
+ *
+ * Le mesh couvre une fenetre de span x span cases a partir de l'origine; il
+ * est translate a chaque frame sur la case entiere en bas a gauche de la vue,
+ * ce qui suffit a quadriller un monde sans borne. Les lignes verticales sont
+ * rangees par x puis les horizontales par y: les lignes visibles forment donc
+ * deux plages contigues du mesh, dessinees sans aucun envoi de sommets.
+ */
+public class GridOverlay implements Disposable {
+
+    private static final String VERTEX_SHADER =
+            "attribute vec4 " + ShaderProgram.POSITION_ATTRIBUTE + ";\n"
+                    + "uniform mat4 u_projTrans;\n"
+                    + "void main() {\n"
+                    + "    gl_Position = u_projTrans * " + ShaderProgram.POSITION_ATTRIBUTE + ";\n"
+                    + "}\n";
+
+    private static final String FRAGMENT_SHADER =
+            "#ifdef GL_ES\n"
+                    + "precision mediump float;\n"
+                    + "#endif\n"
+                    + "uniform vec4 u_color;\n"
+                    + "void main() {\n"
+                    + "    gl_FragColor = u_color;\n"
+                    + "}\n";
+
+    private final int span;
+    private final Mesh mesh;
+    private final ShaderProgram shader;
+    private final Color color = new Color(0.2f, 0.2f, 0.2f, 0.5f);
+    private final Matrix4 transform = new Matrix4();
+    private boolean visible = true;
+
+    /**
+     * Construit le mesh des span+1 lignes verticales et horizontales (span >= taille de la vue + 1).
+     */
+    public GridOverlay(int span) {
+        this.span = span;
+
+        int lines = span + 1;
+        float[] vertices = new float[lines * 2 * 2 * 2];
+        int v = 0;
+        for (int x = 0; x < lines; x++) {
+            vertices[v++] = x; vertices[v++] = 0f;
+            vertices[v++] = x; vertices[v++] = span;
+        }
+        for (int y = 0; y < lines; y++) {
+            vertices[v++] = 0f; vertices[v++] = y;
+            vertices[v++] = span; vertices[v++] = y;
+        }
+
+        mesh = new Mesh(true, lines * 4, 0,
+                new VertexAttribute(VertexAttributes.Usage.Position, 2, ShaderProgram.POSITION_ATTRIBUTE));
+        mesh.setVertices(vertices);
+
+        shader = new ShaderProgram(VERTEX_SHADER, FRAGMENT_SHADER);
+        if (!shader.isCompiled()) {
+            System.out.println("Erreur shader quadrillage: " + shader.getLog());
+        }
+    }
+
+    /**
+     * Indique si le quadrillage est affiche.
+     */
+    public boolean isVisible() {
+        return visible;
+    }
+
+    /**
+     * Affiche ou masque le quadrillage (aucun cout quand il est masque).
+     */
+    public void setVisible(boolean visible) {
+        this.visible = visible;
+    }
+
+    /**
+     * Dessine uniquement les lignes qui traversent la vue de la camera.
+     */
+    public void render(OrthographicCamera camera) {
+        if (!visible || !shader.isCompiled()) return;
+
+        float minX = Float.MAX_VALUE;
+        float minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        for (Vector3 p : camera.frustum.planePoints) {
+            minX = Math.min(minX, p.x);
+            minY = Math.min(minY, p.y);
+            maxX = Math.max(maxX, p.x);
+            maxY = Math.max(maxY, p.y);
+        }
+
+        int originX = MathUtils.floor(minX);
+        int originY = MathUtils.floor(minY);
+        int x0 = MathUtils.ceil(minX) - originX;
+        int x1 = Math.min(span, MathUtils.floor(maxX) - originX);
+        int y0 = MathUtils.ceil(minY) - originY;
+        int y1 = Math.min(span, MathUtils.floor(maxY) - originY);
+        if (x0 > x1 && y0 > y1) return;
+        transform.set(camera.combined).translate(originX, originY, 0f);
+
+        Gdx.gl.glEnable(GL20.GL_BLEND);
+        Gdx.gl.glBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+        shader.bind();
+        shader.setUniformMatrix("u_projTrans", transform);
+        shader.setUniformf("u_color", color);
+
+        mesh.bind(shader);
+        if (x0 <= x1) {
+            Gdx.gl.glDrawArrays(GL20.GL_LINES, x0 * 2, (x1 - x0 + 1) * 2);
+        }
+        if (y0 <= y1) {
+            Gdx.gl.glDrawArrays(GL20.GL_LINES, (span + 1 + y0) * 2, (y1 - y0 + 1) * 2);
+        }
+        mesh.unbind(shader);
+    }
+
+    /**
+     * Libere le mesh et le shader.
+     */
+    @Override
+    public void dispose() {
+        mesh.dispose();
+        shader.dispose();
+    }
+}
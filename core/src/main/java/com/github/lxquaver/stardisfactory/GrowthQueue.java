@@ -0,0 +1,119 @@
+package com.github.lxquaver.stardisfactory;
+
+import java.util.Arrays;
+
+/**
+ * File de priorite des jardinieres en croissance, triee par instant de maturite.
+ *
+ * Planter une culture y inscrit l'instant absolu (horloge du
+ * {@link BuildingStore}) ou elle sera prete; chaque tick ne depile que les
+ * entrees arrivees a echeance. Une jardiniere qui pousse ne coute donc rien
+ * entre sa plantation et sa maturite.
+ *
+ * Les entrees ne sont jamais retirees en cours de route: une entree perimee
+ * (jardiniere recoltee, replantee ou retiree du monde) est reconnue au
+ * depilement grace a l'instant de plantation qu'elle porte, et ignoree.
+ */
+public class GrowthQueue {
+
+    private double[] readyAt = new double[16];
+    private double[] plantedAt = new double[16];
+    private Building[] owners = new Building[16];
+    private int size = 0;
+
+    /**
+     * Nombre d'entrees en attente (y compris perimees).
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Vide la file.
+     */
+    public void clear() {
+        Arrays.fill(owners, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Inscrit une jardiniere plantee a plantedAt qui sera prete a readyAt.
+     */
+    public void push(double readyAt, Building owner, double plantedAt) {
+        if (size == owners.length) {
+            int capacity = size + (size >> 1);
+            this.readyAt = Arrays.copyOf(this.readyAt, capacity);
+            this.plantedAt = Arrays.copyOf(this.plantedAt, capacity);
+            owners = Arrays.copyOf(owners, capacity);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >> 1;
+            if (this.readyAt[parent] <= readyAt) break;
+            move(parent, i);
+            i = parent;
+        }
+        set(i, readyAt, owner, plantedAt);
+    }
+
+    /**
+     * Indique si l'entree la plus proche est echue a l'instant donne.
+     */
+    public boolean hasDue(double now) {
+        return size > 0 && readyAt[0] <= now;
+    }
+
+    /**
+     * Jardiniere de l'entree la plus proche.
+     */
+    public Building peekOwner() {
+        return owners[0];
+    }
+
+    /**
+     * Instant de plantation porte par l'entree la plus proche.
+     */
+    public double peekPlantedAt() {
+        return plantedAt[0];
+    }
+
+    /**
+     * Retire l'entree la plus proche.
+     */
+    public void pop() {
+        if (size == 0) return;
+        int last = --size;
+        double lastReadyAt = readyAt[last];
+        Building lastOwner = owners[last];
+        double lastPlantedAt = plantedAt[last];
+        owners[last] = null;
+        if (last == 0) return;
+
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && readyAt[child + 1] < readyAt[child]) child++;
+            if (readyAt[child] >= lastReadyAt) break;
+            move(child, i);
+            i = child;
+        }
+        set(i, lastReadyAt, lastOwner, lastPlantedAt);
+    }
+
+    /**
+     * Recopie une entree d'un indice du tas a un autre.
+     */
+    private void move(int from, int to) {
+        set(to, readyAt[from], owners[from], plantedAt[from]);
+    }
+
+    /**
+     * Ecrit une entree a un indice du tas.
+     */
+    private void set(int i, double readyAt, Building owner, double plantedAt) {
+        this.readyAt[i] = readyAt;
+        this.owners[i] = owner;
+        this.plantedAt[i] = plantedAt;
+    }
+}
@@ -0,0 +1,307 @@
+package com.github.lxquaver.stardisfactory;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.profiling.GLProfiler;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.scenes.scene2d.Touchable;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Overlay de debug des performances (F3), pose sur le stage UI.
+ *
+ * Affiche les FPS, les percentiles du temps de frame, le temps passe dans
+ * chaque section du rendu, les mesures du thread de simulation (transmises
+ * par le {@link WorldSnapshot}), les appels de dessin et changements de
+ * texture (GLProfiler), le nombre de batiments par type, les convoyeurs
+ * actifs et l'etat du tas/GC. Un graphe glissant des temps de frame rend les
+ * pics visibles. Le texte est recalcule quelques fois par seconde; masque,
+ * l'overlay ne mesure que les sections et laisse le profiler GL desactive.
+ */
+public class PerformanceOverlay extends Actor {
+
+    /**
+     * Sections chronometrees du thread de rendu.
+     */
+    public static final int SECTION_INPUT = 0;
+    public static final int SECTION_TERRAIN = 1;
+    public static final int SECTION_BUILDINGS = 2;
+    public static final int SECTION_UI = 3;
+    private static final String[] SECTION_NAMES = {"input", "terrain", "batiments", "UI"};
+
+    private static final int HISTORY = 240;
+    private static final float REFRESH_SECONDS = 0.25f;
+    private static final float PANEL_WIDTH = 430f;
+    private static final float GRAPH_HEIGHT = 80f;
+    private static final float GRAPH_MAX_MILLIS = 50f;
+    private static final float FRAME_BUDGET_MILLIS = 1000f / 60f;
+    private static final float MARGIN = 12f;
+    private static final float PADDING = 8f;
+    private static final Color BACKGROUND_COLOR = new Color(0f, 0f, 0f, 0.75f);
+    private static final Color BUDGET_LINE_COLOR = new Color(1f, 1f, 1f, 0.45f);
+    private static final Color FAST_FRAME_COLOR = new Color(0.3f, 0.85f, 0.3f, 1f);
+    private static final Color SLOW_FRAME_COLOR = new Color(0.95f, 0.8f, 0.2f, 1f);
+    private static final Color SPIKE_FRAME_COLOR = new Color(0.95f, 0.25f, 0.2f, 1f);
+    private static final Building.Type[] BUILDING_TYPES = Building.Type.values();
+    private static final long MEGABYTE = 1024L * 1024L;
+
+    private final BitmapFont font;
+    private final TextureRegion white;
+    private final GLProfiler profiler = new GLProfiler(Gdx.graphics);
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+
+    /**
+     * Temps de frame glissants (ms), dans un tampon circulaire.
+     */
+    private final float[] frameMillis = new float[HISTORY];
+    private final float[] sortedMillis = new float[HISTORY];
+    private int frameCursor = 0;
+    private int frameSamples = 0;
+    private long lastFrameNanos = 0L;
+
+    /**
+     * Temps cumules par section depuis le dernier rafraichissement du texte.
+     */
+    private final long[] sectionNanos = new long[SECTION_NAMES.length];
+    private int windowFrames = 0;
+
+    private final int[] typeCounts = new int[BUILDING_TYPES.length];
+    private final StringBuilder text = new StringBuilder();
+    private float sinceRefresh = REFRESH_SECONDS;
+    private int lineCount = 0;
+
+    private int worldRenderCalls;
+    private int uiRenderCalls;
+    private int terrainChunks;
+    private int drawCalls;
+    private int textureBindings;
+    private int shaderSwitches;
+    private long lastGcCount = -1L;
+
+    /**
+     * Cree l'overlay (masque) avec la police et le pixel blanc du skin.
+     */
+    public PerformanceOverlay(BitmapFont font, TextureRegion white) {
+        this.font = font;
+        this.white = white;
+        setTouchable(Touchable.disabled);
+        setVisible(false);
+    }
+
+    /**
+     * Affiche ou masque l'overlay; le profiler GL ne tourne que lorsqu'il est visible.
+     */
+    public void toggle() {
+        setVisible(!isVisible());
+        if (isVisible()) {
+            profiler.enable();
+            profiler.reset();
+            frameCursor = 0;
+            frameSamples = 0;
+            lastFrameNanos = 0L;
+            Arrays.fill(sectionNanos, 0L);
+            windowFrames = 0;
+            sinceRefresh = REFRESH_SECONDS;
+            toFront();
+        } else {
+            profiler.disable();
+        }
+    }
+
+    /**
+     * Debut de frame: enregistre l'intervalle depuis la frame precedente et releve les compteurs GL.
+     */
+    public void beginFrame() {
+        if (!isVisible()) return;
+        long now = System.nanoTime();
+        if (lastFrameNanos != 0L) {
+            frameMillis[frameCursor] = (now - lastFrameNanos) / 1_000_000f;
+            frameCursor = (frameCursor + 1) % HISTORY;
+            frameSamples = Math.min(frameSamples + 1, HISTORY);
+        }
+        lastFrameNanos = now;
+
+        drawCalls = profiler.getDrawCalls();
+        textureBindings = profiler.getTextureBindings();
+        shaderSwitches = profiler.getShaderSwitches();
+        profiler.reset();
+    }
+
+    /**
+     * Ajoute la duree d'une section commencee a startNanos (System.nanoTime).
+     */
+    public void record(int section, long startNanos) {
+        sectionNanos[section] += System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Releve les appels de dessin des batchs du monde et de l'UI, et les chunks de terrain dessines.
+     */
+    public void setRenderStats(int worldRenderCalls, int uiRenderCalls, int terrainChunks) {
+        this.worldRenderCalls = worldRenderCalls;
+        this.uiRenderCalls = uiRenderCalls;
+        this.terrainChunks = terrainChunks;
+    }
+
+    /**
+     * Fin de la partie mesuree de la frame: recalcule le texte si l'intervalle de rafraichissement est ecoule.
+     */
+    public void sample(WorldSnapshot snapshot, float dt) {
+        windowFrames++;
+        sinceRefresh += dt;
+        if (!isVisible() || sinceRefresh < REFRESH_SECONDS) return;
+        sinceRefresh = 0f;
+        refreshText(snapshot);
+        Arrays.fill(sectionNanos, 0L);
+        windowFrames = 0;
+    }
+
+    /**
+     * Recompose le texte de l'overlay.
+     */
+    private void refreshText(WorldSnapshot snapshot) {
+        text.setLength(0);
+        lineCount = 0;
+
+        int n = frameSamples;
+        System.arraycopy(frameMillis, 0, sortedMillis, 0, n);
+        Arrays.sort(sortedMillis, 0, n);
+        text.append("FPS ").append(Gdx.graphics.getFramesPerSecond());
+        if (n > 0) {
+            text.append("  frame p50 ");
+            appendMillis(percentile(n, 0.50f));
+            text.append(" p95 ");
+            appendMillis(percentile(n, 0.95f));
+            text.append(" p99 ");
+            appendMillis(percentile(n, 0.99f));
+            text.append(" max ");
+            appendMillis(sortedMillis[n - 1]);
+            text.append(" ms");
+        }
+        endLine();
+
+        text.append("Rendu (ms/frame):");
+        int frames = Math.max(1, windowFrames);
+        for (int i = 0; i < SECTION_NAMES.length; i++) {
+            text.append(' ').append(SECTION_NAMES[i]).append(' ');
+            appendMillis(sectionNanos[i] / 1_000_000f / frames);
+        }
+        endLine();
+
+        text.append("Simulation (us/tick): croissance ").append(snapshot.planterNanos / 1000L)
+            .append(" convoyeurs ").append(snapshot.conveyorNanos / 1000L)
+            .append(" capture ").append(snapshot.captureNanos / 1000L);
+        endLine();
+
+        text.append("Render calls: monde ").append(worldRenderCalls)
+            .append(" UI ").append(uiRenderCalls)
+            .append("  chunks terrain ").append(terrainChunks);
+        endLine();
+        text.append("GL: draw calls ").append(drawCalls)
+            .append(" binds ").append(textureBindings)
+            .append(" shaders ").append(shaderSwitches);
+        endLine();
+
+        Arrays.fill(typeCounts, 0);
+        BuildingLayout layout = snapshot.layout;
+        for (int i = 0; i < layout.count; i++) typeCounts[layout.types[i]]++;
+        text.append("Batiments: ").append(layout.count);
+        endLine();
+        for (int i = 0; i < BUILDING_TYPES.length; i++) {
+            if (typeCounts[i] == 0) continue;
+            text.append("  ").append(BUILDING_TYPES[i].name()).append(": ").append(typeCounts[i]);
+            endLine();
+        }
+        text.append("Convoyeurs actifs: ").append(snapshot.activeSegmentCount)
+            .append(" / ").append(snapshot.segmentCount).append(" troncons");
+        endLine();
+
+        Runtime runtime = Runtime.getRuntime();
+        long used = runtime.totalMemory() - runtime.freeMemory();
+        long gcCount = 0L;
+        long gcMillis = 0L;
+        for (GarbageCollectorMXBean collector : collectors) {
+            gcCount += Math.max(0L, collector.getCollectionCount());
+            gcMillis += Math.max(0L, collector.getCollectionTime());
+        }
+        text.append("Tas: ").append(used / MEGABYTE).append(" / ").append(runtime.maxMemory() / MEGABYTE).append(" Mo")
+            .append("  GC: ").append(gcCount);
+        if (lastGcCount >= 0L) text.append(" (+").append(gcCount - lastGcCount).append(')');
+        text.append(", ").append(gcMillis).append(" ms");
+        lastGcCount = gcCount;
+        lineCount++;
+    }
+
+    /**
+     * Termine la ligne courante du texte.
+     */
+    private void endLine() {
+        text.append('\n');
+        lineCount++;
+    }
+
+    /**
+     * Percentile des temps de frame tries (n echantillons).
+     */
+    private float percentile(int n, float p) {
+        return sortedMillis[Math.min(n - 1, (int) (p * (n - 1) + 0.5f))];
+    }
+
+    /**
+     * Ajoute une duree en ms avec une decimale, sans passer par String.format.
+     */
+    private void appendMillis(float millis) {
+        int tenths = Math.round(millis * 10f);
+        text.append(tenths / 10).append('.').append(tenths % 10);
+    }
+
+    /**
+     * Dessine le panneau en haut a droite: fond, texte puis graphe des temps de frame.
+     */
+    @Override
+    public void draw(Batch batch, float parentAlpha) {
+        float lineHeight = font.getLineHeight();
+        float height = PADDING * 3f + lineCount * lineHeight + GRAPH_HEIGHT;
+        float x = getStage().getWidth() - PANEL_WIDTH - MARGIN;
+        float top = getStage().getHeight() - MARGIN;
+        float bottom = top - height;
+        float packedColor = batch.getPackedColor();
+
+        batch.setColor(BACKGROUND_COLOR);
+        batch.draw(white, x, bottom, PANEL_WIDTH, height);
+
+        float graphX = x + PADDING;
+        float graphY = bottom + PADDING;
+        float graphWidth = PANEL_WIDTH - 2f * PADDING;
+        float barWidth = graphWidth / HISTORY;
+        for (int i = 0; i < frameSamples; i++) {
+            float millis = frameMillis[(frameCursor - frameSamples + i + HISTORY) % HISTORY];
+            if (millis <= FRAME_BUDGET_MILLIS * 1.05f) batch.setColor(FAST_FRAME_COLOR);
+            else if (millis <= FRAME_BUDGET_MILLIS * 2.05f) batch.setColor(SLOW_FRAME_COLOR);
+            else batch.setColor(SPIKE_FRAME_COLOR);
+            float barHeight = Math.min(1f, millis / GRAPH_MAX_MILLIS) * GRAPH_HEIGHT;
+            batch.draw(white, graphX + i * barWidth, graphY, Math.max(1f, barWidth), barHeight);
+        }
+        batch.setColor(BUDGET_LINE_COLOR);
+        for (int k = 1; k <= 2; k++) {
+            batch.draw(white, graphX, graphY + k * FRAME_BUDGET_MILLIS / GRAPH_MAX_MILLIS * GRAPH_HEIGHT, graphWidth, 1f);
+        }
+        batch.setPackedColor(packedColor);
+
+        font.draw(batch, text, x + PADDING, top - PADDING);
+    }
+
+    /**
+     * Coupe le profiler GL s'il tourne encore.
+     */
+    public void dispose() {
+        profiler.disable();
+    }
+}
@@ -1,8 +1,7 @@
 package com.github.lxquaver.stardisfactory;
 
-import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.Texture.TextureFilter;
 import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 
 /**
@@ -23,14 +22,14 @@ public class PlayerAnimationController {
     }
 
     /**
-     * Textures source des spritesheets.
+     * Regions source des spritesheets (dans l'atlas du monde).
      */
-    private Texture idleDownTexture;
-    private Texture idleUpTexture;
-    private Texture idleSideTexture;
-    private Texture walkDownTexture;
-    private Texture walkUpTexture;
-    private Texture walkSideTexture;
+    private TextureRegion idleDownSheet;
+    private TextureRegion idleUpSheet;
+    private TextureRegion idleSideSheet;
+    private TextureRegion walkDownSheet;
+    private TextureRegion walkUpSheet;
+    private TextureRegion walkSideSheet;
 
     /**
      * Animations decoupees depuis les spritesheets.
@@ -52,22 +51,22 @@ public class PlayerAnimationController {
     private TextureRegion currentFrame;
 
     /**
-     * Charge toutes les textures et construit les animations.
+     * Recupere les spritesheets dans l'atlas et construit les animations.
      */
-    public PlayerAnimationController() {
-        idleDownTexture = createTexture("character/Idle.png");
-        idleUpTexture = createTexture("character/Idle_up.png");
-        idleSideTexture = createTexture("character/Idle_side.png");
-        walkDownTexture = createTexture("character/Walk_down.png");
-        walkUpTexture = createTexture("character/Walk_up.png");
-        walkSideTexture = createTexture("character/Walk.png");
-
-        idleDownAnimation = createAnimation(idleDownTexture, 0.22f);
-        idleUpAnimation = createAnimation(idleUpTexture, 0.22f);
-        idleSideAnimation = createAnimation(idleSideTexture, 0.22f);
-        walkDownAnimation = createAnimation(walkDownTexture, 0.12f);
-        walkUpAnimation = createAnimation(walkUpTexture, 0.12f);
-        walkSideAnimation = createAnimation(walkSideTexture, 0.12f);
+    public PlayerAnimationController(TextureAtlas atlas) {
+        idleDownSheet = atlas.findRegion("player_idle_down");
+        idleUpSheet = atlas.findRegion("player_idle_up");
+        idleSideSheet = atlas.findRegion("player_idle_side");
+        walkDownSheet = atlas.findRegion("player_walk_down");
+        walkUpSheet = atlas.findRegion("player_walk_up");
+        walkSideSheet = atlas.findRegion("player_walk_side");
+
+        idleDownAnimation = createAnimation(idleDownSheet, 0.22f);
+        idleUpAnimation = createAnimation(idleUpSheet, 0.22f);
+        idleSideAnimation = createAnimation(idleSideSheet, 0.22f);
+        walkDownAnimation = createAnimation(walkDownSheet, 0.12f);
+        walkUpAnimation = createAnimation(walkUpSheet, 0.12f);
+        walkSideAnimation = createAnimation(walkSideSheet, 0.12f);
 
         currentFrame = idleDownAnimation.getKeyFrame(0f, true);
     }
@@ -129,18 +128,6 @@ public class PlayerAnimationController {
         return flipX;
     }
 
-    /**
-     * Libere toutes les textures chargees.
-     */
-    public void dispose() {
-        if (idleDownTexture != null) idleDownTexture.dispose();
-        if (idleUpTexture != null) idleUpTexture.dispose();
-        if (idleSideTexture != null) idleSideTexture.dispose();
-        if (walkDownTexture != null) walkDownTexture.dispose();
-        if (walkUpTexture != null) walkUpTexture.dispose();
-        if (walkSideTexture != null) walkSideTexture.dispose();
-    }
-
     /**
      * Choisit l'animation active selon l'etat courant.
      */
@@ -156,25 +143,16 @@ public class PlayerAnimationController {
         return idleDownAnimation;
     }
 
-    /**
-     * Charge une texture de spritesheet en filtrage pixel-perfect.
-     */
-    private Texture createTexture(String path) {
-        Texture texture = new Texture(path);
-        texture.setFilter(TextureFilter.Nearest, TextureFilter.Nearest);
-        return texture;
-    }
-
     /**
      * Decoupe une spritesheet carree et cree une animation en boucle.
      */
-    private Animation<TextureRegion> createAnimation(Texture texture, float frameDuration) {
-        int frameSize = texture.getHeight();
-        int frameCount = Math.max(1, texture.getWidth() / frameSize);
+    private Animation<TextureRegion> createAnimation(TextureRegion sheet, float frameDuration) {
+        int frameSize = sheet.getRegionHeight();
+        int frameCount = Math.max(1, sheet.getRegionWidth() / frameSize);
 
         TextureRegion[] frames = new TextureRegion[frameCount];
         for (int i = 0; i < frameCount; i++) {
-            frames[i] = new TextureRegion(texture, i * frameSize, 0, frameSize, frameSize);
+            frames[i] = new TextureRegion(sheet, i * frameSize, 0, frameSize, frameSize);
         }
 
         Animation<TextureRegion> animation = new Animation<>(frameDuration, frames);
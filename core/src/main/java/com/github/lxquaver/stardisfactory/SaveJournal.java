@@ -0,0 +1,374 @@
+package com.github.lxquaver.stardisfactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Journal de sauvegarde en ajout seul (append-only).
+ *
+ * Entre deux sauvegardes completes, chaque sauvegarde n'ajoute qu'un lot
+ * ({@link Delta}) contenant les chunks de terrain modifies, les batiments
+ * retires et les batiments ajoutes ou dont l'etat a change. Le chargement
+ * relit le snapshot complet puis rejoue les lots du journal dans l'ordre.
+ *
+ * Disposition: en-tete (magic "SDFJ", version, generation du snapshot de base,
+ * longueur puis tables de noms comme celles du snapshot) puis des lots
+ * [longueur, crc32, charge]. Les batiments d'un lot sont des enregistrements
+ * du snapshot ({@link BinarySaveFormat}): ordinaux de type et de culture
+ * relus a travers les tables de l'en-tete. Un lot tronque ou corrompu en fin
+ * de fichier (arret pendant l'ecriture) est ignore ainsi que la suite.
+ *
+ * Un journal d'une autre version n'est pas rejoue mais mis de cote, pas vide
+ * (le premier enregistrement apres un chargement est un snapshot complet,
+ * qui reecrit le journal).
+ */
+public class SaveJournal {
+
+    static final int MAGIC = 0x53444A46;
+    static final short VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 2 + 8;
+
+    /**
+     * Changements accumules depuis la sauvegarde precedente.
+     */
+    public static class Delta {
+        /**
+         * Heure murale du lot (ms depuis l'epoque).
+         */
+        public long savedAtMillis;
+
+        /**
+         * Horloge de simulation du lot: origine des instants de plantation de ses batiments.
+         */
+        public double simulationClock;
+
+        public float playerX;
+        public float playerY;
+        public int money;
+        public int buildingStockPlanter;
+        public int buildingStockConveyor;
+        public int seedBagsPotato;
+        public int seedBagsStrawberry;
+        public int seedBagsLeek;
+        public int carriedPotato;
+        public int carriedStrawberry;
+        public int carriedLeek;
+
+        /**
+         * Chunks de terrain modifies, recopies en entier (remplacent celui de memes coordonnees).
+         */
+        public List<GameSave.TerrainChunkSave> terrainChunks = new ArrayList<>();
+
+        /**
+         * Ancres (x, y) des batiments retires, a plat.
+         */
+        public int[] removedAnchors = new int[0];
+
+        /**
+         * Batiments ajoutes ou modifies (remplacent celui de meme ancre).
+         */
+        public List<GameSave.BuildingSave> upserts = new ArrayList<>();
+    }
+
+    /**
+     * Vide le journal et l'associe au snapshot de generation donnee.
+     */
+    public static void reset(Path path, long baseGeneration) throws IOException {
+        int tablesLength = BinarySaveFormat.getNameTablesLength();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + 4 + tablesLength);
+        header.putInt(MAGIC).putShort(VERSION).putLong(baseGeneration).putInt(tablesLength);
+        BinarySaveFormat.putNameTables(header);
+        header.flip();
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining()) channel.write(header);
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Ajoute un lot en fin de journal (fsync inclus) et retourne la nouvelle taille du fichier.
+     */
+    public static long append(Path path, Delta delta) throws IOException {
+        byte[] payload = encode(delta);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        ByteBuffer batch = ByteBuffer.allocate(8 + payload.length);
+        batch.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (batch.hasRemaining()) channel.write(batch);
+            channel.force(true);
+            return channel.size();
+        }
+    }
+
+    /**
+     * Rejoue sur la sauvegarde tous les lots complets du journal, s'il correspond a sa generation.
+     *
+     * @return le nombre de lots rejoues.
+     */
+    public static int replay(Path path, GameSave save) throws IOException {
+        if (!Files.exists(path)) return 0;
+
+        int applied = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            if (!readFully(channel, header)) return 0;
+            header.flip();
+            if (header.getInt() != MAGIC) return 0;
+            short version = header.getShort();
+            if (version != VERSION) {
+                keepUnreadable(path, version);
+                return 0;
+            }
+            if (header.getLong() != save.generation) return 0;
+            NameTables tables = readTables(channel);
+            if (tables == null) return 0;
+
+            ByteBuffer batchHeader = ByteBuffer.allocate(8);
+            CRC32 crc = new CRC32();
+            while (true) {
+                batchHeader.clear();
+                if (!readFully(channel, batchHeader)) break;
+                batchHeader.flip();
+                int length = batchHeader.getInt();
+                int expectedCrc = batchHeader.getInt();
+                if (length < 0 || length > channel.size() - channel.position()) break;
+
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                if (!readFully(channel, payload)) break;
+                crc.reset();
+                crc.update(payload.array());
+                if ((int) crc.getValue() != expectedCrc) break;
+
+                apply(decode(payload.array(), tables), save);
+                applied++;
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Lit les tables de noms qui suivent l'en-tete; null si elles sont tronquees.
+     */
+    private static NameTables readTables(FileChannel channel) throws IOException {
+        ByteBuffer length = ByteBuffer.allocate(4);
+        if (!readFully(channel, length)) return null;
+        length.flip();
+        int tablesLength = length.getInt();
+        if (tablesLength < 0 || tablesLength > channel.size() - channel.position()) return null;
+
+        ByteBuffer bytes = ByteBuffer.allocate(tablesLength);
+        if (!readFully(channel, bytes)) return null;
+        bytes.flip();
+        try {
+            NameTables tables = new NameTables();
+            tables.terrainRemap = BinarySaveFormat.getTerrainRemap(BinarySaveFormat.getNames(bytes));
+            tables.typeNames = BinarySaveFormat.getNames(bytes);
+            tables.cropNames = BinarySaveFormat.getNames(bytes);
+            return tables;
+        } catch (BufferUnderflowException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Recopie a cote un journal d'une version inconnue (le prochain snapshot le viderait) et le signale.
+     */
+    private static void keepUnreadable(Path path, short version) {
+        Path copy = path.resolveSibling(path.getFileName() + ".v" + version);
+        System.out.println("Journal en version " + version + " non supportee (attendue " + VERSION
+            + "): non rejoue, conserve dans " + copy.getFileName());
+        try {
+            Files.copy(path, copy, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.out.println("Erreur copie journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Applique un lot a une sauvegarde complete: joueur, terrain, retraits puis ajouts/modifications.
+     */
+    public static void apply(Delta delta, GameSave save) {
+        if (delta.savedAtMillis > 0L) save.savedAtMillis = delta.savedAtMillis;
+        save.simulationClock = delta.simulationClock;
+        save.playerX = delta.playerX;
+        save.playerY = delta.playerY;
+        save.money = delta.money;
+        save.buildingStockPlanter = delta.buildingStockPlanter;
+        save.buildingStockConveyor = delta.buildingStockConveyor;
+        save.seedBagsPotato = delta.seedBagsPotato;
+        save.seedBagsStrawberry = delta.seedBagsStrawberry;
+        save.seedBagsLeek = delta.seedBagsLeek;
+        save.carriedPotato = delta.carriedPotato;
+        save.carriedStrawberry = delta.carriedStrawberry;
+        save.carriedLeek = delta.carriedLeek;
+
+        for (GameSave.TerrainChunkSave chunk : delta.terrainChunks) {
+            for (int i = save.terrainChunks.size() - 1; i >= 0; i--) {
+                GameSave.TerrainChunkSave existing = save.terrainChunks.get(i);
+                if (existing.x == chunk.x && existing.y == chunk.y) save.terrainChunks.remove(i);
+            }
+            save.terrainChunks.add(chunk);
+        }
+
+        for (int i = 0; i + 1 < delta.removedAnchors.length; i += 2) {
+            removeAnchoredAt(save, delta.removedAnchors[i], delta.removedAnchors[i + 1]);
+        }
+        for (GameSave.BuildingSave bs : delta.upserts) {
+            removeAnchoredAt(save, bs.x, bs.y);
+            save.buildings.add(bs);
+        }
+    }
+
+    /**
+     * Retire de la sauvegarde le batiment ancre en (x, y), s'il existe.
+     */
+    private static void removeAnchoredAt(GameSave save, int x, int y) {
+        for (int i = save.buildings.size() - 1; i >= 0; i--) {
+            GameSave.BuildingSave bs = save.buildings.get(i);
+            if (bs.x == x && bs.y == y) {
+                save.buildings.remove(i);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Encode un lot.
+     */
+    private static byte[] encode(Delta delta) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(delta.savedAtMillis);
+        out.writeDouble(delta.simulationClock);
+        out.writeFloat(delta.playerX);
+        out.writeFloat(delta.playerY);
+        out.writeInt(delta.money);
+        out.writeInt(delta.buildingStockPlanter);
+        out.writeInt(delta.buildingStockConveyor);
+        out.writeInt(delta.seedBagsPotato);
+        out.writeInt(delta.seedBagsStrawberry);
+        out.writeInt(delta.seedBagsLeek);
+        out.writeInt(delta.carriedPotato);
+        out.writeInt(delta.carriedStrawberry);
+        out.writeInt(delta.carriedLeek);
+
+        out.writeInt(delta.terrainChunks.size());
+        for (GameSave.TerrainChunkSave chunk : delta.terrainChunks) {
+            out.writeInt(chunk.x);
+            out.writeInt(chunk.y);
+            out.writeShort(chunk.cells.length);
+            out.write(chunk.cells);
+        }
+
+        out.writeInt(delta.removedAnchors.length / 2);
+        for (int anchor : delta.removedAnchors) out.writeInt(anchor);
+
+        out.writeInt(delta.upserts.size());
+        ByteBuffer record = ByteBuffer.allocate(0);
+        for (GameSave.BuildingSave bs : delta.upserts) {
+            int length = BinarySaveFormat.getBuildingLength(bs);
+            if (record.capacity() < length) record = ByteBuffer.allocate(length);
+            record.clear();
+            BinarySaveFormat.putBuilding(record, bs);
+            out.write(record.array(), 0, record.position());
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decode un lot encode par {@link #encode(Delta)}.
+     */
+    private static Delta decode(byte[] payload, NameTables tables) throws IOException {
+        try {
+            return decode(ByteBuffer.wrap(payload), tables);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Lot de journal tronque");
+        }
+    }
+
+    /**
+     * Decode un lot depuis sa charge, a travers les tables de noms du journal.
+     */
+    private static Delta decode(ByteBuffer in, NameTables tables) {
+        Delta delta = new Delta();
+        delta.savedAtMillis = in.getLong();
+        delta.simulationClock = in.getDouble();
+        delta.playerX = in.getFloat();
+        delta.playerY = in.getFloat();
+        delta.money = in.getInt();
+        delta.buildingStockPlanter = in.getInt();
+        delta.buildingStockConveyor = in.getInt();
+        delta.seedBagsPotato = in.getInt();
+        delta.seedBagsStrawberry = in.getInt();
+        delta.seedBagsLeek = in.getInt();
+        delta.carriedPotato = in.getInt();
+        delta.carriedStrawberry = in.getInt();
+        delta.carriedLeek = in.getInt();
+
+        int chunkCount = in.getInt();
+        for (int i = 0; i < chunkCount; i++) {
+            GameSave.TerrainChunkSave chunk = new GameSave.TerrainChunkSave();
+            chunk.x = in.getInt();
+            chunk.y = in.getInt();
+            chunk.cells = new byte[in.getShort() & 0xFFFF];
+            in.get(chunk.cells);
+            remapTerrain(chunk.cells, tables.terrainRemap);
+            delta.terrainChunks.add(chunk);
+        }
+
+        int removedCount = in.getInt();
+        delta.removedAnchors = new int[removedCount * 2];
+        for (int i = 0; i < delta.removedAnchors.length; i++) delta.removedAnchors[i] = in.getInt();
+
+        int upsertCount = in.getInt();
+        for (int i = 0; i < upsertCount; i++) {
+            GameSave.BuildingSave bs = BinarySaveFormat.getBuilding(in, tables.typeNames, tables.cropNames);
+            if (bs != null) delta.upserts.add(bs);
+        }
+        return delta;
+    }
+
+    /**
+     * Traduit les ordinaux de terrain d'un chunk depuis la table du journal (herbe si hors table).
+     */
+    private static void remapTerrain(byte[] cells, byte[] terrainRemap) {
+        for (int k = 0; k < cells.length; k++) {
+            int index = cells[k] & 0xFF;
+            cells[k] = index < terrainRemap.length ? terrainRemap[index] : (byte) Terrain.Type.GRASS.ordinal();
+        }
+    }
+
+    /**
+     * Tables de noms d'un journal: ses ordinaux de terrain, de type et de culture pointent dedans.
+     */
+    private static final class NameTables {
+        byte[] terrainRemap;
+        String[] typeNames;
+        String[] cropNames;
+    }
+
+    /**
+     * Remplit le tampon depuis le canal; retourne false si la fin du fichier arrive avant.
+     */
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) return false;
+        }
+        return true;
+    }
+}
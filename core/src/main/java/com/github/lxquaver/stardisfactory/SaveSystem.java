@@ -4,18 +4,59 @@ import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.utils.Json;
 
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
 /**
  * Centralise la persistance du jeu sur disque.
  *
- * Le systeme enregistre et recharge une instance de {@link GameSave}
- * au format JSON dans le dossier externe de l'application.
+ * Le systeme enregistre une instance de {@link GameSave} au format binaire
+ * compact ({@link BinarySaveFormat}) dans le dossier externe de l'application.
+ * Le JSON reste disponible en export de debug, et les anciennes sauvegardes
+ * JSON sont toujours relues si aucune sauvegarde binaire n'existe.
+ *
+ * L'ecriture passe par un fichier temporaire synchronise sur disque puis
+ * renomme atomiquement sur la sauvegarde; les versions precedentes sont
+ * conservees en BACKUP_COUNT copies tournantes (savegame.bin.1, .2, ...).
+ *
+ * Entre deux sauvegardes completes, seuls les changements sont ajoutes au
+ * journal ({@link SaveJournal}); il est vide a chaque nouveau snapshot et
+ * rejoue au chargement.
  */
 public class SaveSystem {
 
     /**
-     * Chemin relatif du fichier de sauvegarde.
+     * Chemin relatif du fichier de sauvegarde binaire.
+     */
+    private static final String SAVE_FILE = ".stardisfactory/savegame.bin";
+
+    /**
+     * Nombre de sauvegardes precedentes conservees.
+     */
+    private static final int BACKUP_COUNT = 3;
+
+    /**
+     * Chemin relatif du journal de deltas associe a la sauvegarde.
+     */
+    private static final String JOURNAL_FILE = ".stardisfactory/savegame.journal";
+
+    /**
+     * Derniere generation ecrite ou lue (strictement croissante).
+     */
+    private static long lastGeneration = 0L;
+
+    /**
+     * Chemin relatif de l'ancienne sauvegarde JSON (lecture seule).
      */
-    private static final String SAVE_FILE = ".stardisfactory/savegame.json";
+    private static final String LEGACY_JSON_FILE = ".stardisfactory/savegame.json";
+
+    /**
+     * Chemin relatif de l'export JSON de debug.
+     */
+    private static final String EXPORT_JSON_FILE = ".stardisfactory/savegame-export.json";
 
     /**
      * Retourne un handle LibGDX pointant vers le fichier de sauvegarde.
@@ -25,37 +66,215 @@ public class SaveSystem {
     }
 
     /**
-     * Ecrit la sauvegarde complete sur disque.
+     * Retourne un handle LibGDX pointant vers l'ancienne sauvegarde JSON.
+     */
+    private static FileHandle getLegacyFileHandle() {
+        return Gdx.files.external(LEGACY_JSON_FILE);
+    }
+
+    /**
+     * Retourne le chemin du journal de deltas.
+     */
+    private static Path getJournalPath() {
+        return Gdx.files.external(JOURNAL_FILE).file().toPath();
+    }
+
+    /**
+     * Retourne le chemin de la i-eme sauvegarde precedente (1 = la plus recente).
+     */
+    private static Path getBackupPath(Path save, int index) {
+        return save.resolveSibling(save.getFileName() + "." + index);
+    }
+
+    /**
+     * Ecrit la sauvegarde complete sur disque: temporaire + fsync, rotation des copies, puis renommage atomique.
+     * Le journal est ensuite vide et rattache a la nouvelle generation.
+     *
+     * @return la taille du snapshot ecrit, ou -1 en cas d'erreur.
+     */
+    public static long save(GameSave data) {
+        FileHandle fh = getSaveFileHandle();
+        fh.parent().mkdirs();
+        return save(data, fh.file().toPath(), getJournalPath());
+    }
+
+    /**
+     * Ecrit la sauvegarde complete sur un chemin donne (meme procedure que {@link #save(GameSave)}).
+     * N'utilise pas LibGDX: appelable sans application (outils, benchmarks).
+     *
+     * @return la taille du snapshot ecrit, ou -1 en cas d'erreur.
      */
-    public static void save(GameSave data) {
+    public static long save(GameSave data, Path target, Path journal) {
+        Telemetry.SaveEvent event = new Telemetry.SaveEvent();
+        event.begin();
+        long start = System.nanoTime();
+        long size = writeSnapshot(data, target, journal);
+        Telemetry.recordSave(System.nanoTime() - start, size >= 0L);
+        event.bytes = size;
+        event.success = size >= 0L;
+        event.commit();
+        return size;
+    }
+
+    /**
+     * Ecrit le snapshot et fait tourner les copies precedentes (voir {@link #save(GameSave, Path, Path)}).
+     */
+    private static long writeSnapshot(GameSave data, Path target, Path journal) {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            lastGeneration = Math.max(System.currentTimeMillis(), lastGeneration + 1);
+            data.generation = lastGeneration;
+            BinarySaveFormat.write(data, temp);
+
+            if (Files.exists(target)) {
+                for (int i = BACKUP_COUNT; i > 1; i--) {
+                    Path older = getBackupPath(target, i - 1);
+                    if (Files.exists(older)) {
+                        Files.move(older, getBackupPath(target, i), StandardCopyOption.REPLACE_EXISTING);
+                    }
+                }
+                Files.copy(target, getBackupPath(target, 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            SaveJournal.reset(journal, data.generation);
+            return Files.size(target);
+        } catch (IOException e) {
+            System.out.println("Erreur ecriture sauvegarde: " + e.getMessage());
+            return -1L;
+        }
+    }
+
+    /**
+     * Ajoute un delta au journal de la sauvegarde courante.
+     *
+     * @return la nouvelle taille du journal, ou -1 en cas d'erreur (pas de snapshot, disque...).
+     */
+    public static long appendJournal(SaveJournal.Delta delta) {
+        Telemetry.SaveEvent event = new Telemetry.SaveEvent();
+        event.begin();
+        long start = System.nanoTime();
+        long size;
+        try {
+            size = SaveJournal.append(getJournalPath(), delta);
+        } catch (IOException e) {
+            System.out.println("Erreur ecriture journal: " + e.getMessage());
+            size = -1L;
+        }
+        Telemetry.recordSave(System.nanoTime() - start, size >= 0L);
+        event.journal = true;
+        event.bytes = size;
+        event.success = size >= 0L;
+        event.commit();
+        return size;
+    }
+
+    /**
+     * Exporte la sauvegarde en JSON lisible (debug), a cote de la sauvegarde binaire.
+     */
+    public static void exportJson(GameSave data) {
         Json json = new Json();
         json.setUsePrototypes(false);
 
-        FileHandle fh = getSaveFileHandle();
+        FileHandle fh = Gdx.files.external(EXPORT_JSON_FILE);
         fh.parent().mkdirs();
         fh.writeString(json.prettyPrint(data), false);
     }
 
     /**
-     * Charge la sauvegarde depuis le disque.
+     * Charge la sauvegarde depuis le disque (binaire, sinon ancien JSON).
+     *
+     * Une sauvegarde illisible est remplacee par la copie precedente la plus recente.
+     * Le journal n'est rejoue que sur le snapshot dont il porte la generation.
      *
-     * @return les donnees de sauvegarde, ou null si le fichier n'existe pas.
+     * @return les donnees de sauvegarde, ou null si aucun fichier lisible n'existe.
      */
     public static GameSave load() {
         FileHandle fh = getSaveFileHandle();
-        if (!fh.exists()) return null;
+        GameSave save = load(fh.file().toPath(), getJournalPath());
+        if (save != null || fh.exists()) return save;
+
+        FileHandle legacy = getLegacyFileHandle();
+        if (!legacy.exists()) return null;
+        return readLegacyJson(legacy.readString("UTF-8"));
+    }
 
+    /**
+     * Relit une ancienne sauvegarde JSON (carte carree, temps de croissance ecoule, un item par convoyeur).
+     */
+    static GameSave readLegacyJson(String text) {
         Json json = new Json();
         json.setUsePrototypes(false);
 
-        return json.fromJson(GameSave.class, fh);
+        GameSave legacySave = json.fromJson(GameSave.class, text);
+        // L'ancien JSON ne connait que le temps ecoule: plantation dans le passe d'une horloge a 0.
+        if (legacySave != null && legacySave.buildings != null) {
+            for (GameSave.BuildingSave bs : legacySave.buildings) bs.plantedAt = -bs.growTimerSeconds;
+        }
+        return legacySave;
+    }
+
+    /**
+     * Charge une sauvegarde binaire (ou sa copie precedente la plus recente) puis rejoue son journal.
+     * N'utilise pas LibGDX: appelable sans application (lanceur headless).
+     *
+     * @return les donnees de sauvegarde, ou null si aucune copie n'est lisible.
+     */
+    public static GameSave load(Path target, Path journal) {
+        Telemetry.LoadEvent event = new Telemetry.LoadEvent();
+        event.begin();
+        long start = System.nanoTime();
+        GameSave save = readSnapshot(target, journal);
+        Telemetry.recordLoad(System.nanoTime() - start);
+        event.path = target.toString();
+        event.buildings = save == null ? 0 : save.buildings.size();
+        event.success = save != null;
+        event.commit();
+        return save;
+    }
+
+    /**
+     * Lit le snapshot le plus recent lisible puis rejoue son journal (voir {@link #load(Path, Path)}).
+     */
+    private static GameSave readSnapshot(Path target, Path journal) {
+        for (int i = 0; i <= BACKUP_COUNT; i++) {
+            Path candidate = i == 0 ? target : getBackupPath(target, i);
+            if (!Files.exists(candidate)) continue;
+            try {
+                GameSave save = BinarySaveFormat.read(candidate);
+                lastGeneration = Math.max(lastGeneration, save.generation);
+                try {
+                    SaveJournal.replay(journal, save);
+                } catch (IOException e) {
+                    System.out.println("Erreur lecture journal: " + e.getMessage());
+                }
+                return save;
+            } catch (IOException e) {
+                System.out.println("Erreur lecture sauvegarde " + candidate.getFileName() + ": " + e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Chemin du journal associe a un fichier de sauvegarde (meme nom, extension .journal).
+     */
+    public static Path getJournalPath(Path save) {
+        String name = save.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return save.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + ".journal");
     }
 
     /**
      * Indique si une sauvegarde existe deja.
      */
     public static boolean exists() {
-        return getSaveFileHandle().exists();
+        return getSaveFileHandle().exists() || getLegacyFileHandle().exists();
     }
 
     /**
@@ -66,5 +285,18 @@ public class SaveSystem {
         if (fh.exists()) {
             fh.delete();
         }
+        Path target = fh.file().toPath();
+        try {
+            Files.deleteIfExists(getJournalPath());
+            for (int i = 1; i <= BACKUP_COUNT; i++) {
+                Files.deleteIfExists(getBackupPath(target, i));
+            }
+        } catch (IOException e) {
+            System.out.println("Erreur suppression sauvegarde: " + e.getMessage());
+        }
+        FileHandle legacy = getLegacyFileHandle();
+        if (legacy.exists()) {
+            legacy.delete();
+        }
     }
 }
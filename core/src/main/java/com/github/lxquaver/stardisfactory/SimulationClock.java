@@ -0,0 +1,89 @@
+package com.github.lxquaver.stardisfactory;
+
+/**
+ * Horloge de simulation a pas fixe.
+ *
+ * Le temps reel de chaque frame est accumule puis consomme par pas constants,
+ * ce qui rend la simulation independante du framerate. Le nombre de pas
+ * rattrapes par frame est plafonne pour eviter la spirale de ralentissement
+ * apres un gros hoquet; le retard excedentaire est alors abandonne.
+ */
+public class SimulationClock {
+
+    /**
+     * Nombre de ticks de simulation par seconde.
+     */
+    public static final int TICKS_PER_SECOND = 30;
+
+    /**
+     * Nombre maximal de ticks executes pour une seule frame.
+     */
+    public static final int MAX_STEPS_PER_FRAME = 10;
+
+    private final float stepSeconds;
+    private final int maxStepsPerFrame;
+    private float accumulator = 0f;
+    private long tick = 0L;
+
+    /**
+     * Cree une horloge avec la cadence par defaut.
+     */
+    public SimulationClock() {
+        this(1f / TICKS_PER_SECOND, MAX_STEPS_PER_FRAME);
+    }
+
+    /**
+     * Cree une horloge avec un pas et un plafond de rattrapage explicites.
+     */
+    public SimulationClock(float stepSeconds, int maxStepsPerFrame) {
+        this.stepSeconds = stepSeconds;
+        this.maxStepsPerFrame = Math.max(1, maxStepsPerFrame);
+    }
+
+    /**
+     * Ajoute le temps ecoule d'une frame et retourne le nombre de pas a simuler.
+     */
+    public int advance(float frameSeconds) {
+        if (frameSeconds > 0f) accumulator += frameSeconds;
+
+        int steps = (int) (accumulator / stepSeconds);
+        if (steps > maxStepsPerFrame) {
+            steps = maxStepsPerFrame;
+            accumulator = 0f;
+        } else {
+            accumulator -= steps * stepSeconds;
+        }
+
+        tick += steps;
+        return steps;
+    }
+
+    /**
+     * Fraction du pas courant deja ecoulee, pour interpoler le rendu (0..1).
+     */
+    public float getAlpha() {
+        return Math.min(1f, accumulator / stepSeconds);
+    }
+
+    /**
+     * Duree d'un pas de simulation en secondes.
+     */
+    public float getStepSeconds() {
+        return stepSeconds;
+    }
+
+    /**
+     * Nombre total de pas simules depuis le dernier reset.
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Remet l'horloge a zero (nouvelle partie ou chargement).
+     */
+    public void reset() {
+        accumulator = 0f;
+        tick = 0L;
+    }
+}
@@ -0,0 +1,154 @@
+package com.github.lxquaver.stardisfactory;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Thread dedie a la simulation des batiments et convoyeurs.
+ *
+ * Le worker avance la simulation a pas fixe ({@link SimulationClock}) sous le
+ * verrou du monde, puis publie un {@link WorldSnapshot} dans un
+ * {@link SnapshotBuffer}. Le rendu et la simulation tournent ainsi chacun sur
+ * leur coeur, a leur propre cadence. Sans pas de simulation ni changement
+ * visible (menu, pause, monde immobile), rien n'est capture ni publie: le
+ * rendu garde le dernier snapshot.
+ */
+public class SimulationWorker implements Runnable {
+
+    /**
+     * Monde simule par le worker.
+     */
+    public interface Target {
+        /**
+         * Avance le monde d'un pas fixe (appele sous le verrou du monde).
+         */
+        void step(float stepSeconds);
+
+        /**
+         * Indique si l'etat visible a change hors des pas depuis la derniere capture (appele sous le verrou du monde).
+         */
+        boolean hasVisibleChanges();
+
+        /**
+         * Recopie l'etat visible dans le snapshot (appele sous le verrou du monde).
+         */
+        void capture(WorldSnapshot out, long tick);
+    }
+
+    private final Target target;
+    private final Object worldLock;
+    private final SimulationClock clock = new SimulationClock();
+    private final SnapshotBuffer snapshots = new SnapshotBuffer();
+    private final long stepNanos;
+
+    private volatile boolean running = false;
+    private volatile boolean simulating = false;
+    private volatile boolean resetRequested = false;
+    private Thread thread;
+
+    /**
+     * Cree un worker pour le monde donne, synchronise sur worldLock.
+     */
+    public SimulationWorker(Target target, Object worldLock) {
+        this.target = target;
+        this.worldLock = worldLock;
+        this.stepNanos = (long) (clock.getStepSeconds() * 1_000_000_000L);
+    }
+
+    /**
+     * Demarre le thread de simulation.
+     */
+    public void start() {
+        if (thread != null) return;
+        running = true;
+        thread = new Thread(this, "stardisfactory-simulation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Arrete le thread et attend sa fin.
+     */
+    public void stop() {
+        running = false;
+        if (thread == null) return;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(1000L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+
+    /**
+     * Active ou suspend l'avancement du temps (menu, pause).
+     */
+    public void setSimulating(boolean simulating) {
+        if (simulating && !this.simulating) resetRequested = true;
+        this.simulating = simulating;
+    }
+
+    /**
+     * Oublie le retard accumule et remet le compteur de ticks a zero (nouvelle partie, chargement).
+     */
+    public void resetClock() {
+        resetRequested = true;
+    }
+
+    /**
+     * Retourne le dernier snapshot publie (thread de rendu uniquement).
+     */
+    public WorldSnapshot acquireSnapshot() {
+        return snapshots.acquire();
+    }
+
+    /**
+     * Fraction du pas courant ecoulee depuis le tick capture, pour interpoler le rendu.
+     */
+    public float getAlpha(WorldSnapshot snapshot) {
+        if (!simulating) return 1f;
+        float alpha = (System.nanoTime() - snapshot.tickNanos) / (float) stepNanos;
+        return Math.max(0f, Math.min(1f, alpha));
+    }
+
+    /**
+     * Boucle du thread: ticks a pas fixe, capture et publication si quelque chose a change, puis attente du pas suivant.
+     */
+    @Override
+    public void run() {
+        long last = System.nanoTime();
+
+        while (running) {
+            long now = System.nanoTime();
+            float elapsed = (now - last) / 1_000_000_000f;
+            last = now;
+
+            boolean captured;
+            synchronized (worldLock) {
+                boolean reset = resetRequested;
+                if (reset) {
+                    resetRequested = false;
+                    clock.reset();
+                    elapsed = 0f;
+                }
+                int steps = 0;
+                if (simulating) {
+                    steps = clock.advance(elapsed);
+                    for (int i = 0; i < steps; i++) {
+                        target.step(clock.getStepSeconds());
+                    }
+                }
+                captured = reset || steps > 0 || target.hasVisibleChanges();
+                if (captured) {
+                    WorldSnapshot snapshot = snapshots.beginWrite();
+                    target.capture(snapshot, clock.getTick());
+                    snapshot.tickNanos = now - (long) (clock.getAlpha() * stepNanos);
+                }
+            }
+            if (captured) snapshots.publish();
+
+            long remaining = (long) ((1f - clock.getAlpha()) * stepNanos);
+            LockSupport.parkNanos(Math.max(remaining, 1_000_000L));
+        }
+    }
+}
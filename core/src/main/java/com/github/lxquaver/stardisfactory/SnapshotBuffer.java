@@ -0,0 +1,54 @@
+package com.github.lxquaver.stardisfactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Triple tampon sans verrou entre le thread de simulation et le rendu.
+ *
+ * L'ecrivain remplit toujours un tampon qui lui est propre, puis l'echange
+ * atomiquement avec le tampon "milieu". Le lecteur recupere le milieu
+ * uniquement s'il est plus recent que le sien. Aucun tampon n'est jamais
+ * lu et ecrit en meme temps.
+ */
+public class SnapshotBuffer {
+
+    /**
+     * Bit marquant un tampon milieu publie mais pas encore lu.
+     */
+    private static final int FRESH = 4;
+    private static final int INDEX_MASK = 3;
+
+    private final WorldSnapshot[] buffers = new WorldSnapshot[]{
+            new WorldSnapshot(), new WorldSnapshot(), new WorldSnapshot()
+    };
+
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private int writeIndex = 0;
+    private int readIndex = 2;
+
+    /**
+     * Retourne le tampon que l'ecrivain peut remplir (thread de simulation uniquement).
+     */
+    public WorldSnapshot beginWrite() {
+        return buffers[writeIndex];
+    }
+
+    /**
+     * Publie le tampon ecrit et recupere un tampon libre (thread de simulation uniquement).
+     */
+    public void publish() {
+        int previous = middle.getAndSet(writeIndex | FRESH);
+        writeIndex = previous & INDEX_MASK;
+    }
+
+    /**
+     * Retourne le snapshot publie le plus recent (thread de rendu uniquement).
+     */
+    public WorldSnapshot acquire() {
+        if ((middle.get() & FRESH) != 0) {
+            int previous = middle.getAndSet(readIndex);
+            readIndex = previous & INDEX_MASK;
+        }
+        return buffers[readIndex];
+    }
+}
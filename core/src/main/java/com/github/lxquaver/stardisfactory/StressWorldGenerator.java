@@ -0,0 +1,349 @@
+package com.github.lxquaver.stardisfactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generateur de mondes de stress reproductibles (meme graine, meme monde).
+ *
+ * La carte est couverte d'un treillis de blocs de production. Chaque bloc a
+ * son QG, ses convoyeurs et ses jardinieres sur terre labouree; sa forme
+ * depend de la topologie:
+ * <ul>
+ *     <li>LINES: lignes droites paralleles entrant de chaque cote du QG;</li>
+ *     <li>MERGES: une ligne principale par cote, alimentee par des branches laterales;</li>
+ *     <li>SPAGHETTI: marches aleatoires qui tournent et se rejoignent, autour de deux lignes d'arrivee au QG.</li>
+ * </ul>
+ * Les blocs sont poses au plus pres du centre (CENTER) ou disperses sur toute
+ * la carte (SPREAD) jusqu'a atteindre le nombre de jardinieres demande. La
+ * sauvegarde produite passe par {@link FactoryEngine#writeTo}: elle se charge
+ * comme une sauvegarde du jeu (SaveSystem.load, loadGame, lanceur headless).
+ */
+public class StressWorldGenerator {
+
+    /**
+     * Forme du reseau de convoyeurs des blocs.
+     */
+    public enum Topology {
+        LINES,
+        MERGES,
+        SPAGHETTI
+    }
+
+    /**
+     * Repartition des blocs (et donc des QG) sur la carte.
+     */
+    public enum HqPlacement {
+        CENTER,
+        SPREAD
+    }
+
+    /**
+     * Parametres d'un scenario.
+     */
+    public static class Settings {
+        /**
+         * Graine du generateur aleatoire.
+         */
+        public long seed = 1L;
+
+        /**
+         * Cote de la carte en cases, centree sur l'origine du monde.
+         */
+        public int mapSize = 512;
+
+        /**
+         * Part de la carte labouree (les cases des jardinieres comprises).
+         */
+        public float tilledFraction = 0.1f;
+
+        /**
+         * Nombre de jardinieres a poser (moins si la carte est pleine).
+         */
+        public int planterCount = 10_000;
+
+        public Topology topology = Topology.LINES;
+        public HqPlacement hqPlacement = HqPlacement.CENTER;
+
+        /**
+         * Longueur des lignes (LINES, MERGES) ou cote des blocs (SPAGHETTI), en cases.
+         */
+        public int lineLength = 48;
+
+        /**
+         * Part des jardinieres deja mures; les autres sont a un stade de croissance aleatoire.
+         */
+        public float readyFraction = 0.25f;
+    }
+
+    private static final int HQ_SIZE = Building.Type.MAIN_HQ.width;
+    private static final int BLOCK_MARGIN = 2;
+    private static final int BRANCH_LENGTH = 6;
+    private static final float SPAGHETTI_TURN_CHANCE = 0.2f;
+    private static final int[][] DIRECTIONS = new int[][]{{0, 1}, {1, 0}, {0, -1}, {-1, 0}};
+    private static final Building.PlanterCrop[] GROWN_CROPS = {
+        Building.PlanterCrop.POTATO, Building.PlanterCrop.STRAWBERRY, Building.PlanterCrop.LEEK
+    };
+
+    private final Settings settings;
+    private final Random random;
+    private final FactoryEngine engine = new FactoryEngine();
+    private final int lineLength;
+    private int planters = 0;
+
+    /**
+     * Prepare un generateur pour les parametres donnes.
+     */
+    private StressWorldGenerator(Settings settings) {
+        this.settings = settings;
+        this.random = new Random(settings.seed);
+        this.lineLength = Math.max(8, settings.lineLength);
+    }
+
+    /**
+     * Genere le scenario et le retourne sous forme de sauvegarde.
+     */
+    public static GameSave generate(Settings settings) {
+        FactoryEngine engine = generateEngine(settings);
+        GameSave save = new GameSave();
+        engine.writeTo(save);
+        save.money = 1000;
+        save.buildingStockPlanter = 1;
+        return save;
+    }
+
+    /**
+     * Genere le scenario directement dans un moteur (benchmarks, lanceur headless).
+     */
+    public static FactoryEngine generateEngine(Settings settings) {
+        return new StressWorldGenerator(settings).build();
+    }
+
+    /**
+     * Pose les batiments de base, les blocs dans l'ordre du treillis, puis laboure le reste de la carte.
+     */
+    private FactoryEngine build() {
+        engine.ensureCoreBuildings();
+
+        int half = settings.mapSize / 2;
+        int minX = FactoryEngine.MAP_OFFSET - half;
+        int minY = FactoryEngine.MAP_OFFSET - half;
+        int maxX = minX + settings.mapSize;
+        int maxY = minY + settings.mapSize;
+        int width = getBlockWidth();
+        int height = getBlockHeight();
+
+        List<int[]> slots = new ArrayList<>();
+        for (int y = minY; y + height <= maxY; y += height + BLOCK_MARGIN) {
+            for (int x = minX; x + width <= maxX; x += width + BLOCK_MARGIN) {
+                slots.add(new int[]{x, y});
+            }
+        }
+        if (settings.hqPlacement == HqPlacement.SPREAD) {
+            Collections.shuffle(slots, random);
+        } else {
+            int cx = FactoryEngine.MAP_OFFSET - width / 2;
+            int cy = FactoryEngine.MAP_OFFSET - height / 2;
+            slots.sort((a, b) -> Long.compare(distanceSquared(a, cx, cy), distanceSquared(b, cx, cy)));
+        }
+
+        for (int[] slot : slots) {
+            if (planters >= settings.planterCount) break;
+            if (!engine.getBuildingGrid().isAreaFree(slot[0], slot[1], width, height)) continue;
+            switch (settings.topology) {
+                case LINES:
+                    buildLinesBlock(slot[0], slot[1]);
+                    break;
+                case MERGES:
+                    buildMergesBlock(slot[0], slot[1]);
+                    break;
+                case SPAGHETTI:
+                    buildSpaghettiBlock(slot[0], slot[1]);
+                    break;
+            }
+        }
+
+        tillRandomCells(minX, minY);
+        return engine;
+    }
+
+    /**
+     * Distance au carre entre un coin de bloc et un point.
+     */
+    private static long distanceSquared(int[] slot, int x, int y) {
+        long dx = slot[0] - x;
+        long dy = slot[1] - y;
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Largeur d'un bloc selon la topologie.
+     */
+    private int getBlockWidth() {
+        if (settings.topology == Topology.SPAGHETTI) return lineLength;
+        return 2 * lineLength + HQ_SIZE;
+    }
+
+    /**
+     * Hauteur d'un bloc selon la topologie.
+     */
+    private int getBlockHeight() {
+        switch (settings.topology) {
+            case MERGES:
+                return 2 * BRANCH_LENGTH + 1;
+            case SPAGHETTI:
+                return lineLength;
+            default:
+                return HQ_SIZE;
+        }
+    }
+
+    /**
+     * Bloc LINES: QG au centre, deux lignes par cote (rangees du bas et du haut du QG)
+     * et deux rangees de jardinieres entre elles.
+     */
+    private void buildLinesBlock(int x0, int y0) {
+        int hqX = x0 + lineLength;
+        engine.addBuilding(new Building(Building.Type.MAIN_HQ, hqX, y0, 0));
+        int rightX = hqX + HQ_SIZE;
+        for (int i = 0; i < lineLength; i++) {
+            for (int row : new int[]{y0, y0 + HQ_SIZE - 1}) {
+                addConveyor(x0 + i, row, 1);
+                addConveyor(rightX + i, row, 3);
+            }
+            for (int row = y0 + 1; row < y0 + HQ_SIZE - 1; row++) {
+                addPlanter(x0 + i, row);
+                addPlanter(rightX + i, row);
+            }
+        }
+    }
+
+    /**
+     * Bloc MERGES: une ligne principale par cote entrant dans le QG, et toutes les
+     * trois colonnes une branche montante et une descendante qui s'y deversent, bordees de jardinieres.
+     */
+    private void buildMergesBlock(int x0, int y0) {
+        int trunkY = y0 + BRANCH_LENGTH;
+        int hqX = x0 + lineLength;
+        engine.addBuilding(new Building(Building.Type.MAIN_HQ, hqX, trunkY, 0));
+        int rightX = hqX + HQ_SIZE;
+        for (int i = 0; i < lineLength; i++) {
+            addConveyor(x0 + i, trunkY, 1);
+            addConveyor(rightX + i, trunkY, 3);
+            boolean branch = i % 3 == 1;
+            for (int d = 1; d <= BRANCH_LENGTH; d++) {
+                // Au-dessus de la ligne, les cases occupees par le QG sont deja prises: les poses y echouent.
+                addBranchCell(x0 + i, trunkY + d, branch, 2);
+                addBranchCell(x0 + i, trunkY - d, branch, 0);
+                addBranchCell(rightX + i, trunkY + d, branch, 2);
+                addBranchCell(rightX + i, trunkY - d, branch, 0);
+            }
+        }
+    }
+
+    /**
+     * Pose une case de branche (convoyeur vers la ligne principale) ou une jardiniere.
+     */
+    private void addBranchCell(int x, int y, boolean branch, int rotation) {
+        if (branch) {
+            addConveyor(x, y, rotation);
+        } else {
+            addPlanter(x, y);
+        }
+    }
+
+    /**
+     * Bloc SPAGHETTI: QG au centre, une ligne d'arrivee de chaque cote, puis des marches
+     * aleatoires qui s'arretent sur un obstacle (souvent un autre convoyeur, qu'elles alimentent).
+     * Des jardinieres sont semees le long des convoyeurs poses.
+     */
+    private void buildSpaghettiBlock(int x0, int y0) {
+        int size = lineLength;
+        int hqX = x0 + size / 2 - HQ_SIZE / 2;
+        int hqY = y0 + size / 2 - HQ_SIZE / 2;
+        engine.addBuilding(new Building(Building.Type.MAIN_HQ, hqX, hqY, 0));
+
+        List<Building> placed = new ArrayList<>();
+        for (int x = x0; x < hqX; x++) addConveyor(x, hqY + 1, 1, placed);
+        for (int x = hqX + HQ_SIZE; x < x0 + size; x++) addConveyor(x, hqY + 2, 3, placed);
+
+        int walks = size / 2;
+        for (int w = 0; w < walks; w++) {
+            int x = x0 + random.nextInt(size);
+            int y = y0 + random.nextInt(size);
+            int dir = random.nextInt(4);
+            for (int step = 0; step < size; step++) {
+                if (!isFree(x, y)) break;
+                if (random.nextFloat() < SPAGHETTI_TURN_CHANCE) dir = (dir + (random.nextBoolean() ? 1 : 3)) & 3;
+                addConveyor(x, y, dir, placed);
+                x += DIRECTIONS[dir][0];
+                y += DIRECTIONS[dir][1];
+                if (x < x0 || y < y0 || x >= x0 + size || y >= y0 + size) break;
+            }
+        }
+
+        for (Building conveyor : placed) {
+            for (int[] d : DIRECTIONS) {
+                if (random.nextBoolean()) addPlanter(conveyor.getGridX() + d[0], conveyor.getGridY() + d[1]);
+            }
+        }
+    }
+
+    /**
+     * Indique si une case est libre de tout batiment.
+     */
+    private boolean isFree(int x, int y) {
+        return engine.getBuildingGrid().isAreaFree(x, y, 1, 1);
+    }
+
+    /**
+     * Pose un convoyeur si la case est libre.
+     */
+    private Building addConveyor(int x, int y, int rotation) {
+        if (!isFree(x, y)) return null;
+        Building conveyor = new Building(Building.Type.CONVEYOR_BELT, x, y, rotation);
+        engine.addBuilding(conveyor);
+        return conveyor;
+    }
+
+    /**
+     * Pose un convoyeur si la case est libre et le retient dans la liste donnee.
+     */
+    private void addConveyor(int x, int y, int rotation, List<Building> placed) {
+        Building conveyor = addConveyor(x, y, rotation);
+        if (conveyor != null) placed.add(conveyor);
+    }
+
+    /**
+     * Laboure la case et y pose une jardiniere plantee, tant que le quota n'est pas atteint.
+     */
+    private void addPlanter(int x, int y) {
+        if (planters >= settings.planterCount || !isFree(x, y)) return;
+        engine.getTerrainGrid().till(x, y);
+        Building planter = new Building(Building.Type.PLANTER, x, y, 0);
+        Building.PlanterCrop crop = GROWN_CROPS[random.nextInt(GROWN_CROPS.length)];
+        float growTime = Building.getGrowTimeSecondsFor(crop);
+        if (random.nextFloat() < settings.readyFraction) {
+            planter.setPlanterState(crop, growTime, true);
+        } else {
+            planter.setPlanterState(crop, random.nextFloat() * growTime, false);
+        }
+        engine.addBuilding(planter);
+        planters++;
+    }
+
+    /**
+     * Laboure des cases tirees au hasard jusqu'a la part de carte demandee.
+     */
+    private void tillRandomCells(int minX, int minY) {
+        long target = (long) (Math.max(0f, Math.min(1f, settings.tilledFraction)) * settings.mapSize * (long) settings.mapSize);
+        long tilled = planters;
+        long attempts = 0;
+        while (tilled < target && attempts < target * 4) {
+            attempts++;
+            if (engine.getTerrainGrid().till(minX + random.nextInt(settings.mapSize), minY + random.nextInt(settings.mapSize))) tilled++;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.github.lxquaver.stardisfactory;
+
+import com.badlogic.gdx.InputProcessor;
+
+/**
+ * Relaie les evenements d'entree sous le verrou du monde.
+ *
+ * Les callbacks UI (popups, achats, plantation...) modifient directement les
+ * batiments; les executer sous le meme verrou que le thread de simulation
+ * evite qu'un clic tombe au milieu d'un tick.
+ */
+public class SynchronizedInputProcessor implements InputProcessor {
+
+    private final InputProcessor delegate;
+    private final Object lock;
+
+    /**
+     * Enveloppe un processeur d'entree existant avec le verrou donne.
+     */
+    public SynchronizedInputProcessor(InputProcessor delegate, Object lock) {
+        this.delegate = delegate;
+        this.lock = lock;
+    }
+
+    @Override
+    public boolean keyDown(int keycode) {
+        synchronized (lock) { return delegate.keyDown(keycode); }
+    }
+
+    @Override
+    public boolean keyUp(int keycode) {
+        synchronized (lock) { return delegate.keyUp(keycode); }
+    }
+
+    @Override
+    public boolean keyTyped(char character) {
+        synchronized (lock) { return delegate.keyTyped(character); }
+    }
+
+    @Override
+    public boolean touchDown(int screenX, int screenY, int pointer, int button) {
+        synchronized (lock) { return delegate.touchDown(screenX, screenY, pointer, button); }
+    }
+
+    @Override
+    public boolean touchUp(int screenX, int screenY, int pointer, int button) {
+        synchronized (lock) { return delegate.touchUp(screenX, screenY, pointer, button); }
+    }
+
+    @Override
+    public boolean touchCancelled(int screenX, int screenY, int pointer, int button) {
+        synchronized (lock) { return delegate.touchCancelled(screenX, screenY, pointer, button); }
+    }
+
+    @Override
+    public boolean touchDragged(int screenX, int screenY, int pointer) {
+        synchronized (lock) { return delegate.touchDragged(screenX, screenY, pointer); }
+    }
+
+    @Override
+    public boolean mouseMoved(int screenX, int screenY) {
+        synchronized (lock) { return delegate.mouseMoved(screenX, screenY); }
+    }
+
+    @Override
+    public boolean scrolled(float amountX, float amountY) {
+        synchronized (lock) { return delegate.scrolled(amountX, amountY); }
+    }
+}
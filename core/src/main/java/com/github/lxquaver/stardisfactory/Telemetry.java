@@ -0,0 +1,330 @@
+package com.github.lxquaver.stardisfactory;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Telemetrie des chemins chauds: evenements JDK Flight Recorder et compteurs cumules.
+ *
+ * Les evenements (categorie "Stardisfactory") ne coutent presque rien tant
+ * qu'aucun enregistrement ne les active, par exemple:
+ * {@code java -XX:StartFlightRecording=filename=soak.jfr ...} puis
+ * {@code jfr print --categories Stardisfactory soak.jfr}. Les transferts entre
+ * convoyeurs sont trop frequents pour etre actives par defaut
+ * ({@code jfr configure +stardisfactory.ConveyorTransfer#enabled=true}).
+ *
+ * Les compteurs et histogrammes sont toujours tenus (increments sans verrou,
+ * depuis n'importe quel thread) et lus par les exports de metriques.
+ */
+public final class Telemetry {
+
+    private static final LongAdder ticks = new LongAdder();
+    private static final LongAdder itemsDelivered = new LongAdder();
+    private static final LongAdder harvests = new LongAdder();
+    private static final LongAdder itemsSold = new LongAdder();
+    private static final LongAdder saveFailures = new LongAdder();
+    private static final Histogram tickDurations = new Histogram();
+    private static final Histogram saveDurations = new Histogram();
+    private static final Histogram loadDurations = new Histogram();
+
+    private Telemetry() {
+    }
+
+    /**
+     * Compte un pas de simulation et sa duree.
+     */
+    static void recordTick(long nanos) {
+        ticks.increment();
+        tickDurations.record(nanos);
+    }
+
+    /**
+     * Compte des items deposes dans un QG par les convoyeurs.
+     */
+    static void recordDelivery(int amount) {
+        itemsDelivered.add(amount);
+    }
+
+    /**
+     * Compte une recolte de jardiniere.
+     */
+    static void recordHarvest() {
+        harvests.increment();
+    }
+
+    /**
+     * Compte des items vendus depuis un QG.
+     */
+    static void recordSale(int amount) {
+        itemsSold.add(amount);
+    }
+
+    /**
+     * Compte une ecriture (snapshot ou journal) et sa duree.
+     */
+    static void recordSave(long nanos, boolean success) {
+        saveDurations.record(nanos);
+        if (!success) saveFailures.increment();
+    }
+
+    /**
+     * Compte un chargement et sa duree.
+     */
+    static void recordLoad(long nanos) {
+        loadDurations.record(nanos);
+    }
+
+    /**
+     * Nombre total de pas de simulation executes.
+     */
+    public static long getTicks() {
+        return ticks.sum();
+    }
+
+    /**
+     * Nombre total d'items deposes dans les QG par les convoyeurs.
+     */
+    public static long getItemsDelivered() {
+        return itemsDelivered.sum();
+    }
+
+    /**
+     * Nombre total de recoltes.
+     */
+    public static long getHarvests() {
+        return harvests.sum();
+    }
+
+    /**
+     * Nombre total d'items vendus.
+     */
+    public static long getItemsSold() {
+        return itemsSold.sum();
+    }
+
+    /**
+     * Nombre d'ecritures de sauvegarde en echec.
+     */
+    public static long getSaveFailures() {
+        return saveFailures.sum();
+    }
+
+    /**
+     * Durees des pas de simulation.
+     */
+    public static Histogram getTickDurations() {
+        return tickDurations;
+    }
+
+    /**
+     * Durees des ecritures de sauvegarde (snapshots et journal).
+     */
+    public static Histogram getSaveDurations() {
+        return saveDurations;
+    }
+
+    /**
+     * Durees des chargements.
+     */
+    public static Histogram getLoadDurations() {
+        return loadDurations;
+    }
+
+    /**
+     * Histogramme de durees a seaux en puissances de deux, de 1 us a ~34 s (le dernier seau prend le reste).
+     */
+    public static final class Histogram {
+        /**
+         * Nombre de seaux; le seau b compte les durees inferieures a 2^(b + 10) ns.
+         */
+        public static final int BUCKETS = 26;
+        private static final int FIRST_SHIFT = 10;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sumNanos = new LongAdder();
+
+        /**
+         * Ajoute une duree en nanosecondes.
+         */
+        void record(long nanos) {
+            long value = Math.max(0L, nanos);
+            int bucket = 64 - Long.numberOfLeadingZeros(value >>> FIRST_SHIFT);
+            buckets.incrementAndGet(Math.min(bucket, BUCKETS - 1));
+            count.increment();
+            sumNanos.add(value);
+        }
+
+        /**
+         * Nombre de durees enregistrees.
+         */
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * Somme des durees enregistrees, en nanosecondes.
+         */
+        public long getSumNanos() {
+            return sumNanos.sum();
+        }
+
+        /**
+         * Nombre de durees tombees dans un seau (non cumule).
+         */
+        public long getBucketCount(int bucket) {
+            return buckets.get(bucket);
+        }
+
+        /**
+         * Borne haute d'un seau en nanosecondes (Long.MAX_VALUE pour le dernier).
+         */
+        public static long getBucketUpperNanos(int bucket) {
+            return bucket == BUCKETS - 1 ? Long.MAX_VALUE : 1L << (bucket + FIRST_SHIFT);
+        }
+
+        /**
+         * Estimation d'un percentile (0..1): borne haute du seau qui l'atteint, 0 si vide.
+         */
+        public long getPercentileNanos(double p) {
+            long total = getCount();
+            if (total == 0L) return 0L;
+            long rank = (long) Math.ceil(p * total);
+            long seen = 0L;
+            for (int b = 0; b < BUCKETS; b++) {
+                seen += buckets.get(b);
+                if (seen >= rank) return getBucketUpperNanos(b);
+            }
+            return getBucketUpperNanos(BUCKETS - 1);
+        }
+    }
+
+    /**
+     * Pas fixe de simulation (croissance puis convoyeurs).
+     */
+    @Name("stardisfactory.Tick")
+    @Label("Simulation Tick")
+    @Category("Stardisfactory")
+    @StackTrace(false)
+    static final class TickEvent extends Event {
+        @Label("Planter Growth Nanos")
+        long planterNanos;
+
+        @Label("Conveyor Update Nanos")
+        long conveyorNanos;
+
+        @Label("Active Segments")
+        int activeSegments;
+    }
+
+    /**
+     * Deplacement d'un item entre deux troncons, ou depot dans un QG.
+     */
+    @Name("stardisfactory.ConveyorTransfer")
+    @Label("Conveyor Transfer")
+    @Category("Stardisfactory")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class ConveyorTransferEvent extends Event {
+        @Label("Crop")
+        String crop;
+
+        @Label("Amount")
+        int amount;
+
+        @Label("Into HQ")
+        boolean intoHQ;
+
+        @Label("Grid X")
+        int gridX;
+
+        @Label("Grid Y")
+        int gridY;
+    }
+
+    /**
+     * Recolte d'une jardiniere (par un convoyeur ou par le joueur).
+     */
+    @Name("stardisfactory.Harvest")
+    @Label("Harvest")
+    @Category("Stardisfactory")
+    @StackTrace(false)
+    static final class HarvestEvent extends Event {
+        @Label("Crop")
+        String crop;
+
+        @Label("Grid X")
+        int gridX;
+
+        @Label("Grid Y")
+        int gridY;
+    }
+
+    /**
+     * Vente depuis le stock d'un QG.
+     */
+    @Name("stardisfactory.Sale")
+    @Label("Sale")
+    @Category("Stardisfactory")
+    @StackTrace(false)
+    static final class SaleEvent extends Event {
+        @Label("Crop")
+        String crop;
+
+        @Label("Requested")
+        int requested;
+
+        @Label("Sold")
+        int sold;
+
+        @Label("Revenue")
+        int revenue;
+    }
+
+    /**
+     * Ecriture d'un snapshot complet ou d'un delta de journal.
+     */
+    @Name("stardisfactory.Save")
+    @Label("Save")
+    @Category("Stardisfactory")
+    @StackTrace(false)
+    static final class SaveEvent extends Event {
+        @Label("Journal Delta")
+        @Description("true pour un delta ajoute au journal, false pour un snapshot complet")
+        boolean journal;
+
+        @Label("Size")
+        @DataAmount
+        long bytes;
+
+        @Label("Success")
+        boolean success;
+    }
+
+    /**
+     * Lecture d'une sauvegarde et rejeu de son journal.
+     */
+    @Name("stardisfactory.Load")
+    @Label("Load")
+    @Category("Stardisfactory")
+    @StackTrace(false)
+    static final class LoadEvent extends Event {
+        @Label("Path")
+        String path;
+
+        @Label("Buildings")
+        int buildings;
+
+        @Label("Success")
+        boolean success;
+    }
+}
@@ -1,12 +1,13 @@
 package com.github.lxquaver.stardisfactory;
 
 /**
- * Modele une case de terrain de la grille.
+ * Regles des cases de terrain de la grille.
  *
- * La case porte un type de sol et expose des actions de base
- * (labourer/nettoyer) ainsi que des verifications de compatibilite.
+ * Les cases elles-memes sont stockees de maniere compacte dans
+ * {@link TerrainGrid}; chaque type de sol porte ses actions de base
+ * (labourer/nettoyer) ainsi que ses verifications de compatibilite.
  */
-public class Terrain {
+public final class Terrain {
 
     /**
      * Types de sol disponibles dans le jeu.
@@ -29,56 +30,22 @@ public class Terrain {
             this.supportsAnimals = supportsAnimals;
             this.supportsCrops = supportsCrops;
         }
-    }
-
-    /**
-     * Type courant de la case.
-     */
-    private Type currentType;
-
-    /**
-     * Cree une case avec un type initial.
-     */
-    public Terrain(Type startType) {
-        this.currentType = startType;
-    }
 
-    /**
-     * Retourne le type de sol actuel.
-     */
-    public Type getType() {
-        return currentType;
-    }
-
-    /**
-     * Convertit l'herbe en terre labouree.
-     */
-    public void till() {
-        if (currentType == Type.GRASS) {
-            currentType = Type.TILLED;
+        /**
+         * Type obtenu apres labour: l'herbe devient de la terre labouree.
+         */
+        public Type tilled() {
+            return this == GRASS ? TILLED : this;
         }
-    }
 
-    /**
-     * Restaure une terre labouree en herbe.
-     */
-    public void clear() {
-        if (currentType == Type.TILLED) {
-            currentType = Type.GRASS;
+        /**
+         * Type obtenu apres nettoyage: la terre labouree redevient de l'herbe.
+         */
+        public Type cleared() {
+            return this == TILLED ? GRASS : this;
         }
     }
 
-    /**
-     * Verifie si un batiment animalier peut etre place sur cette case.
-     */
-    public boolean canPlaceAnimalBuilding() {
-        return currentType.supportsAnimals;
-    }
-
-    /**
-     * Verifie si un batiment de culture peut etre place sur cette case.
-     */
-    public boolean canPlantCrop() {
-        return currentType.supportsCrops;
+    private Terrain() {
     }
 }
@@ -0,0 +1,333 @@
+package com.github.lxquaver.stardisfactory;
+
+import com.badlogic.gdx.utils.LongMap;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Terrain du monde infini, stocke par chunks compacts.
+ *
+ * Chaque chunk ({@link WorldChunks#CHUNK_SIZE} cases de cote) est un tableau
+ * d'octets (ordinaux de {@link Terrain.Type}, ligne par ligne). Un chunk
+ * jamais modifie n'existe pas: il est genere a la demande comme de l'herbe,
+ * sans allocation. La memoire suit donc la zone exploree et modifiee.
+ *
+ * Les chunks eloignes du joueur sont decharges dans un dossier d'echange sur
+ * disque ({@link #unloadOutside}) puis relus au premier acces. Ce dossier ne
+ * vit que le temps d'une partie: les sauvegardes recopient tous les chunks.
+ *
+ * Chaque chunk porte une version (changee a chaque modification ou rechargement)
+ * que le rendu compare a celle de son cache, et la grille note les chunks
+ * modifies depuis la derniere sauvegarde.
+ */
+public class TerrainGrid {
+
+    private static final Terrain.Type[] TYPES = Terrain.Type.values();
+    private static final byte GRASS = (byte) Terrain.Type.GRASS.ordinal();
+
+    /**
+     * Chunk charge en memoire.
+     */
+    private static class Chunk {
+        final byte[] cells;
+        long version;
+
+        Chunk(byte[] cells, long version) {
+            this.cells = cells;
+            this.version = version;
+        }
+    }
+
+    private final LongMap<Chunk> chunks = new LongMap<>();
+    private final Set<Long> swappedChunks = new HashSet<>();
+    private final Set<Long> dirtyChunks = new HashSet<>();
+    private Path swapDirectory;
+    private long modCount = 0L;
+    private long baseVersion = 0L;
+
+    /**
+     * Definit le dossier d'echange des chunks decharges (null: tout reste en memoire).
+     */
+    public void setSwapDirectory(Path swapDirectory) {
+        this.swapDirectory = swapDirectory;
+        try {
+            if (swapDirectory != null) Files.createDirectories(swapDirectory);
+        } catch (IOException e) {
+            System.out.println("Erreur dossier chunks: " + e.getMessage());
+            this.swapDirectory = null;
+        }
+        deleteSwapFiles();
+    }
+
+    /**
+     * Retourne le type de sol d'une case.
+     */
+    public Terrain.Type getType(int x, int y) {
+        Chunk chunk = findChunk(WorldChunks.chunkOf(x), WorldChunks.chunkOf(y));
+        if (chunk == null) return Terrain.Type.GRASS;
+        return TYPES[chunk.cells[WorldChunks.localIndex(x, y)]];
+    }
+
+    /**
+     * Change le type d'une case; retourne true si le type a change.
+     */
+    public boolean setType(int x, int y, Terrain.Type type) {
+        int cx = WorldChunks.chunkOf(x);
+        int cy = WorldChunks.chunkOf(y);
+        int index = WorldChunks.localIndex(x, y);
+        byte value = (byte) type.ordinal();
+
+        Chunk chunk = findChunk(cx, cy);
+        if (chunk == null) {
+            if (value == GRASS) return false;
+            chunk = new Chunk(newGrassCells(), 0L);
+            chunks.put(WorldChunks.key(cx, cy), chunk);
+        }
+        if (chunk.cells[index] == value) return false;
+        chunk.cells[index] = value;
+        chunk.version = ++modCount;
+        dirtyChunks.add(WorldChunks.key(cx, cy));
+        return true;
+    }
+
+    /**
+     * Convertit l'herbe en terre labouree; retourne true si la case a change.
+     */
+    public boolean till(int x, int y) {
+        return setType(x, y, getType(x, y).tilled());
+    }
+
+    /**
+     * Restaure une terre labouree en herbe; retourne true si la case a change.
+     */
+    public boolean clear(int x, int y) {
+        return setType(x, y, getType(x, y).cleared());
+    }
+
+    /**
+     * Verifie si un batiment animalier peut etre place sur cette case.
+     */
+    public boolean canPlaceAnimalBuilding(int x, int y) {
+        return getType(x, y).supportsAnimals;
+    }
+
+    /**
+     * Verifie si un batiment de culture peut etre place sur cette case.
+     */
+    public boolean canPlantCrop(int x, int y) {
+        return getType(x, y).supportsCrops;
+    }
+
+    /**
+     * Remet tout le monde en herbe (nouvelle partie, avant un chargement).
+     */
+    public void reset() {
+        chunks.clear();
+        dirtyChunks.clear();
+        deleteSwapFiles();
+        baseVersion = ++modCount;
+    }
+
+    /**
+     * Remplace un chunk par des ordinaux sauvegardes; un ordinal inconnu devient de l'herbe.
+     */
+    public void setChunk(int cx, int cy, byte[] source) {
+        byte[] cells = newGrassCells();
+        int length = Math.min(source.length, cells.length);
+        for (int i = 0; i < length; i++) {
+            int ord = source[i] & 0xFF;
+            cells[i] = ord < TYPES.length ? (byte) ord : GRASS;
+        }
+        long key = WorldChunks.key(cx, cy);
+        chunks.put(key, new Chunk(cells, ++modCount));
+        swappedChunks.remove(key);
+    }
+
+    /**
+     * Version du chunk pour le rendu: change des qu'une de ses cases change ou qu'il est recharge.
+     */
+    public long getChunkVersion(int cx, int cy) {
+        Chunk chunk = findChunk(cx, cy);
+        return chunk == null ? baseVersion : chunk.version;
+    }
+
+    /**
+     * Recopie tous les chunks qui ne sont pas entierement en herbe (charges ou decharges).
+     */
+    public List<GameSave.TerrainChunkSave> collectChunks() {
+        List<GameSave.TerrainChunkSave> out = new ArrayList<>();
+        for (LongMap.Entry<Chunk> entry : chunks) {
+            if (!isAllGrass(entry.value.cells)) out.add(toSave(entry.key, entry.value));
+        }
+        for (Long key : swappedChunks) {
+            if (chunks.containsKey(key)) continue;
+            Chunk stored = new Chunk(readSwapFile(WorldChunks.keyX(key), WorldChunks.keyY(key)), 0L);
+            out.add(toSave(key, stored));
+        }
+        dirtyChunks.clear();
+        return out;
+    }
+
+    /**
+     * Recopie les chunks modifies depuis la derniere collecte puis oublie ces modifications.
+     * Un chunk modifie puis decharge est relu sur disque sans etre recharge; s'il a ete
+     * decharge en herbe (plus de chunk ni de fichier), il est recopie en herbe pour que
+     * le journal efface la version labouree de la sauvegarde precedente.
+     */
+    public List<GameSave.TerrainChunkSave> collectDirtyChunks() {
+        List<GameSave.TerrainChunkSave> out = new ArrayList<>();
+        for (Long key : dirtyChunks) {
+            Chunk chunk = chunks.get(key);
+            if (chunk == null) {
+                byte[] cells = swappedChunks.contains(key)
+                    ? readSwapFile(WorldChunks.keyX(key), WorldChunks.keyY(key))
+                    : newGrassCells();
+                chunk = new Chunk(cells, 0L);
+            }
+            out.add(toSave(key, chunk));
+        }
+        dirtyChunks.clear();
+        return out;
+    }
+
+    /**
+     * Oublie les modifications suivies pour la sauvegarde (la prochaine sera complete).
+     */
+    public void clearDirtyChunks() {
+        dirtyChunks.clear();
+    }
+
+    /**
+     * Decharge sur disque les chunks hors du rectangle de chunks donne (bornes incluses).
+     */
+    public void unloadOutside(int minCX, int minCY, int maxCX, int maxCY) {
+        if (swapDirectory == null) return;
+        Iterator<LongMap.Entry<Chunk>> it = chunks.iterator();
+        while (it.hasNext()) {
+            LongMap.Entry<Chunk> entry = it.next();
+            int cx = WorldChunks.keyX(entry.key);
+            int cy = WorldChunks.keyY(entry.key);
+            if (cx >= minCX && cx <= maxCX && cy >= minCY && cy <= maxCY) continue;
+
+            Path file = getSwapFile(cx, cy);
+            try {
+                if (isAllGrass(entry.value.cells)) {
+                    Files.deleteIfExists(file);
+                    swappedChunks.remove(entry.key);
+                } else {
+                    Files.write(file, entry.value.cells);
+                    swappedChunks.add(entry.key);
+                }
+                it.remove();
+            } catch (IOException e) {
+                System.out.println("Erreur dechargement chunk " + cx + "," + cy + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Nombre de chunks de terrain en memoire.
+     */
+    public int getLoadedChunkCount() {
+        return chunks.size;
+    }
+
+    /**
+     * Nombre de chunks de terrain decharges sur disque.
+     */
+    public int getSwappedChunkCount() {
+        int count = 0;
+        for (Long key : swappedChunks) {
+            if (!chunks.containsKey(key)) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Retourne le chunk charge, en le relisant depuis le disque s'il a ete decharge, ou null.
+     */
+    private Chunk findChunk(int cx, int cy) {
+        long key = WorldChunks.key(cx, cy);
+        Chunk chunk = chunks.get(key);
+        if (chunk != null || !swappedChunks.contains(key)) return chunk;
+
+        chunk = new Chunk(readSwapFile(cx, cy), ++modCount);
+        chunks.put(key, chunk);
+        return chunk;
+    }
+
+    /**
+     * Relit les cases d'un chunk decharge (de l'herbe si le fichier est illisible).
+     */
+    private byte[] readSwapFile(int cx, int cy) {
+        byte[] cells = newGrassCells();
+        try {
+            byte[] stored = Files.readAllBytes(getSwapFile(cx, cy));
+            System.arraycopy(stored, 0, cells, 0, Math.min(stored.length, cells.length));
+        } catch (IOException e) {
+            System.out.println("Erreur lecture chunk " + cx + "," + cy + ": " + e.getMessage());
+        }
+        return cells;
+    }
+
+    /**
+     * Chemin du fichier d'echange d'un chunk.
+     */
+    private Path getSwapFile(int cx, int cy) {
+        return swapDirectory.resolve("c_" + cx + "_" + cy + ".bin");
+    }
+
+    /**
+     * Supprime tous les chunks decharges (leur contenu n'a de sens que pour la partie en cours).
+     */
+    private void deleteSwapFiles() {
+        swappedChunks.clear();
+        if (swapDirectory == null || !Files.isDirectory(swapDirectory)) return;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(swapDirectory, "c_*.bin")) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            System.out.println("Erreur nettoyage chunks: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Cree les cases d'un chunk d'herbe.
+     */
+    private static byte[] newGrassCells() {
+        byte[] cells = new byte[WorldChunks.CHUNK_CELLS];
+        Arrays.fill(cells, GRASS);
+        return cells;
+    }
+
+    /**
+     * Indique si toutes les cases sont de l'herbe.
+     */
+    private static boolean isAllGrass(byte[] cells) {
+        for (byte cell : cells) {
+            if (cell != GRASS) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Recopie un chunk dans son enregistrement de sauvegarde.
+     */
+    private static GameSave.TerrainChunkSave toSave(long key, Chunk chunk) {
+        GameSave.TerrainChunkSave save = new GameSave.TerrainChunkSave();
+        save.x = WorldChunks.keyX(key);
+        save.y = WorldChunks.keyY(key);
+        save.cells = chunk.cells.clone();
+        return save;
+    }
+}
@@ -0,0 +1,160 @@
+package com.github.lxquaver.stardisfactory;
+
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.g2d.SpriteCache;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.Disposable;
+
+import java.util.Arrays;
+
+/**
+ * Rendu du terrain par chunks mis en cache.
+ *
+ * Le monde est decoupe en chunks de CHUNK_SIZE x CHUNK_SIZE cases. Chaque
+ * chunk visible est compile dans un emplacement d'un {@link SpriteCache} et
+ * n'est reconstruit que lorsque sa version dans {@link TerrainGrid} change
+ * (labour/nettoyage, rechargement). Le nombre d'emplacements est fixe: quand
+ * la camera se deplace, l'emplacement utilise le moins recemment est recycle.
+ * Seuls les chunks qui intersectent le frustum de la camera sont dessines: le
+ * cout depend de la taille de l'ecran et non de celle du monde.
+ */
+public class TerrainRenderer implements Disposable {
+
+    /**
+     * Cote d'un chunk en cases (identique aux chunks du monde).
+     */
+    public static final int CHUNK_SIZE = WorldChunks.CHUNK_SIZE;
+
+    /**
+     * Nombre d'emplacements de cache (largement plus que les chunks visibles a l'ecran).
+     */
+    private static final int SLOT_COUNT = 48;
+
+    private final int mapOffset;
+    private final SpriteCache cache;
+    private final long[] slotKeys = new long[SLOT_COUNT];
+    private final long[] slotVersions = new long[SLOT_COUNT];
+    private final int[] slotCacheIds = new int[SLOT_COUNT];
+    private final long[] slotLastUsed = new long[SLOT_COUNT];
+    private final TextureRegion grassRegion;
+    private final TextureRegion tilledRegion;
+    private long frame = 0L;
+    private int drawnChunks = 0;
+
+    /**
+     * Cree le renderer pour l'origine du monde et les textures de sol donnees.
+     */
+    public TerrainRenderer(int mapOffset, TextureRegion grassRegion, TextureRegion tilledRegion) {
+        this.mapOffset = mapOffset;
+        this.cache = new SpriteCache(SLOT_COUNT * WorldChunks.CHUNK_CELLS, false);
+        this.grassRegion = grassRegion;
+        this.tilledRegion = tilledRegion;
+        Arrays.fill(slotCacheIds, -1);
+        Arrays.fill(slotLastUsed, -1L);
+    }
+
+    /**
+     * Nombre de chunks dessines lors du dernier rendu.
+     */
+    public int getDrawnChunks() {
+        return drawnChunks;
+    }
+
+    /**
+     * Dessine les chunks visibles, apres avoir recompile ceux dont la version a change.
+     */
+    public void render(OrthographicCamera camera, TerrainGrid terrainGrid) {
+        float minX = Float.MAX_VALUE;
+        float minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        for (Vector3 p : camera.frustum.planePoints) {
+            minX = Math.min(minX, p.x);
+            minY = Math.min(minY, p.y);
+            maxX = Math.max(maxX, p.x);
+            maxY = Math.max(maxY, p.y);
+        }
+
+        int cx0 = WorldChunks.chunkOf(MathUtils.floor(minX) + mapOffset);
+        int cy0 = WorldChunks.chunkOf(MathUtils.floor(minY) + mapOffset);
+        int cx1 = WorldChunks.chunkOf(MathUtils.floor(maxX) + mapOffset);
+        int cy1 = WorldChunks.chunkOf(MathUtils.floor(maxY) + mapOffset);
+
+        frame++;
+        drawnChunks = 0;
+        cache.setProjectionMatrix(camera.combined);
+        for (int cy = cy0; cy <= cy1; cy++) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                int slot = acquireSlot(cx, cy);
+                if (slot < 0) continue;
+                long version = terrainGrid.getChunkVersion(cx, cy);
+                if (slotVersions[slot] != version || slotCacheIds[slot] < 0) {
+                    rebuildSlot(slot, cx, cy, terrainGrid);
+                    slotVersions[slot] = version;
+                }
+            }
+        }
+
+        cache.begin();
+        for (int slot = 0; slot < SLOT_COUNT; slot++) {
+            if (slotLastUsed[slot] != frame) continue;
+            cache.draw(slotCacheIds[slot]);
+            drawnChunks++;
+        }
+        cache.end();
+    }
+
+    /**
+     * Retourne l'emplacement du chunk, en recyclant le moins recemment utilise s'il n'en a pas.
+     */
+    private int acquireSlot(int cx, int cy) {
+        long key = WorldChunks.key(cx, cy);
+        int oldest = -1;
+        for (int slot = 0; slot < SLOT_COUNT; slot++) {
+            if (slotLastUsed[slot] >= 0 && slotKeys[slot] == key) {
+                slotLastUsed[slot] = frame;
+                return slot;
+            }
+            if (slotLastUsed[slot] == frame) continue;
+            if (oldest < 0 || slotLastUsed[slot] < slotLastUsed[oldest]) oldest = slot;
+        }
+        if (oldest < 0) return -1;
+
+        slotKeys[oldest] = key;
+        slotVersions[oldest] = -1L;
+        slotLastUsed[oldest] = frame;
+        return oldest;
+    }
+
+    /**
+     * Recompile un emplacement: le premier build cree son cache, les suivants le remplacent a taille egale.
+     */
+    private void rebuildSlot(int slot, int cx, int cy, TerrainGrid terrainGrid) {
+        if (slotCacheIds[slot] < 0) {
+            cache.beginCache();
+        } else {
+            cache.beginCache(slotCacheIds[slot]);
+        }
+
+        int x0 = cx * CHUNK_SIZE;
+        int y0 = cy * CHUNK_SIZE;
+        for (int x = x0; x < x0 + CHUNK_SIZE; x++) {
+            for (int y = y0; y < y0 + CHUNK_SIZE; y++) {
+                TextureRegion region = terrainGrid.getType(x, y) == Terrain.Type.TILLED ? tilledRegion : grassRegion;
+                cache.add(region, x - mapOffset, y - mapOffset, 1f, 1f);
+            }
+        }
+
+        slotCacheIds[slot] = cache.endCache();
+    }
+
+    /**
+     * Libere le cache GPU.
+     */
+    @Override
+    public void dispose() {
+        cache.dispose();
+    }
+}
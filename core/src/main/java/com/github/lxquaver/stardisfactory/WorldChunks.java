@@ -0,0 +1,62 @@
+package com.github.lxquaver.stardisfactory;
+
+/**
+ * Decoupage du monde infini en chunks carres de CHUNK_SIZE x CHUNK_SIZE cases.
+ *
+ * Les coordonnees de grille sont des entiers signes sans borne. Un couple
+ * (x, y) - de case ou de chunk - est compacte dans un long pour servir de cle
+ * de table sans allocation.
+ */
+public final class WorldChunks {
+
+    /**
+     * Cote d'un chunk en cases (puissance de deux).
+     */
+    public static final int CHUNK_SIZE = 16;
+
+    /**
+     * Nombre de cases d'un chunk.
+     */
+    public static final int CHUNK_CELLS = CHUNK_SIZE * CHUNK_SIZE;
+
+    private static final int CHUNK_SHIFT = 4;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private WorldChunks() {
+    }
+
+    /**
+     * Coordonnee du chunk contenant la case (arrondi vers le bas, y compris en negatif).
+     */
+    public static int chunkOf(int cell) {
+        return cell >> CHUNK_SHIFT;
+    }
+
+    /**
+     * Indice ligne par ligne d'une case dans son chunk.
+     */
+    public static int localIndex(int x, int y) {
+        return (y & CHUNK_MASK) * CHUNK_SIZE + (x & CHUNK_MASK);
+    }
+
+    /**
+     * Compacte un couple de coordonnees en cle.
+     */
+    public static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Premiere coordonnee d'une cle.
+     */
+    public static int keyX(long key) {
+        return (int) (key >> 32);
+    }
+
+    /**
+     * Seconde coordonnee d'une cle.
+     */
+    public static int keyY(long key) {
+        return (int) key;
+    }
+}
@@ -0,0 +1,152 @@
+package com.github.lxquaver.stardisfactory;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+import java.util.Arrays;
+
+/**
+ * File de commandes de dessin du monde, videe en une seule passe SpriteBatch.
+ *
+ * Sprites et rectangles colores sont enregistres pendant la frame puis tries
+ * par couche puis par texture (ordre d'ajout conserve a egalite). Les
+ * rectangles sont des quads teintes d'un pixel blanc de l'atlas: ils partagent
+ * donc la texture des sprites et ne provoquent aucun flush supplementaire.
+ */
+public class WorldRenderQueue {
+
+    /**
+     * Couches de dessin, de la plus basse a la plus haute.
+     */
+    public static final int LAYER_BUILDINGS = 0;
+    public static final int LAYER_ITEMS = 1;
+    public static final int LAYER_OVERLAYS = 2;
+    public static final int LAYER_CURSOR = 3;
+    public static final int LAYER_PLAYER = 4;
+    public static final int LAYER_SCREEN = 5;
+
+    private static final float WHITE = Color.WHITE.toFloatBits();
+
+    private final TextureRegion whitePixel;
+    private final ObjectIntMap<Texture> textureIds = new ObjectIntMap<>();
+
+    private int count = 0;
+    private long[] keys = new long[256];
+    private TextureRegion[] regions = new TextureRegion[256];
+    private float[] xs = new float[256];
+    private float[] ys = new float[256];
+    private float[] widths = new float[256];
+    private float[] heights = new float[256];
+    private float[] colors = new float[256];
+
+    private int lastCommandCount = 0;
+    private int lastRenderCalls = 0;
+
+    /**
+     * Cree une file dont les rectangles utilisent la region blanche donnee.
+     */
+    public WorldRenderQueue(TextureRegion whitePixel) {
+        this.whitePixel = whitePixel;
+    }
+
+    /**
+     * Ajoute un sprite non teinte.
+     */
+    public void draw(int layer, TextureRegion region, float x, float y, float width, float height) {
+        draw(layer, region, x, y, width, height, WHITE);
+    }
+
+    /**
+     * Ajoute un sprite teinte par une couleur compactee (Color.toFloatBits).
+     */
+    public void draw(int layer, TextureRegion region, float x, float y, float width, float height, float packedColor) {
+        if (region == null) return;
+        if (count == keys.length) grow();
+
+        int textureId = textureIds.get(region.getTexture(), -1);
+        if (textureId < 0) {
+            textureId = textureIds.size;
+            textureIds.put(region.getTexture(), textureId);
+        }
+
+        keys[count] = ((long) layer << 48) | ((long) (textureId & 0xFFFF) << 32) | count;
+        regions[count] = region;
+        xs[count] = x;
+        ys[count] = y;
+        widths[count] = width;
+        heights[count] = height;
+        colors[count] = packedColor;
+        count++;
+    }
+
+    /**
+     * Ajoute un rectangle plein de la couleur donnee.
+     */
+    public void fillRect(int layer, float x, float y, float width, float height, Color color) {
+        draw(layer, whitePixel, x, y, width, height, color.toFloatBits());
+    }
+
+    /**
+     * Ajoute le contour d'un rectangle (quatre bandes d'epaisseur donnee).
+     */
+    public void strokeRect(int layer, float x, float y, float width, float height, float thickness, Color color) {
+        float packed = color.toFloatBits();
+        draw(layer, whitePixel, x, y, width, thickness, packed);
+        draw(layer, whitePixel, x, y + height - thickness, width, thickness, packed);
+        draw(layer, whitePixel, x, y + thickness, thickness, height - 2f * thickness, packed);
+        draw(layer, whitePixel, x + width - thickness, y + thickness, thickness, height - 2f * thickness, packed);
+    }
+
+    /**
+     * Trie les commandes, les dessine dans un seul begin/end puis vide la file.
+     */
+    public void flush(SpriteBatch batch) {
+        Arrays.sort(keys, 0, count);
+
+        float batchColor = batch.getPackedColor();
+        batch.begin();
+        for (int k = 0; k < count; k++) {
+            int i = (int) keys[k];
+            batch.setPackedColor(colors[i]);
+            batch.draw(regions[i], xs[i], ys[i], widths[i], heights[i]);
+        }
+        batch.end();
+        batch.setPackedColor(batchColor);
+
+        lastCommandCount = count;
+        lastRenderCalls = batch.renderCalls;
+        Arrays.fill(regions, 0, count, null);
+        count = 0;
+    }
+
+    /**
+     * Nombre de commandes dessinees lors du dernier flush.
+     */
+    public int getLastCommandCount() {
+        return lastCommandCount;
+    }
+
+    /**
+     * Nombre d'appels de dessin GPU (flushs du batch) lors du dernier flush.
+     */
+    public int getLastRenderCalls() {
+        return lastRenderCalls;
+    }
+
+    /**
+     * Double la capacite de la file.
+     */
+    private void grow() {
+        int capacity = keys.length * 2;
+        keys = Arrays.copyOf(keys, capacity);
+        regions = Arrays.copyOf(regions, capacity);
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        widths = Arrays.copyOf(widths, capacity);
+        heights = Arrays.copyOf(heights, capacity);
+        colors = Arrays.copyOf(colors, capacity);
+    }
+}
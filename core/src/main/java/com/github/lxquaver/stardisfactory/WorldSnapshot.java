@@ -0,0 +1,133 @@
+package com.github.lxquaver.stardisfactory;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Copie plate de l'etat visible des batiments, lue par le rendu.
+ *
+ * Le thread de simulation remplit une instance apres chaque tick; le thread
+ * de rendu ne lit que des instances publiees via {@link SnapshotBuffer}, sans
+ * verrou et sans toucher aux objets {@link Building} partages.
+ *
+ * La disposition (type, position, orientation) est un {@link BuildingLayout}
+ * partage, reconstruit seulement a la pose ou a la suppression. Les tableaux
+ * du snapshot ne portent que l'etat qui bouge (cultures, items), indexe par
+ * ligne de la disposition: une capture ne recopie que les lignes changees
+ * depuis le dernier remplissage de cette instance (voir
+ * {@link FactoryEngine#capture(WorldSnapshot, long)}).
+ */
+public class WorldSnapshot {
+
+    /**
+     * Nombre maximal d'items par ligne: les items de la ligne i occupent les indices i * ITEM_SLOTS et suivants.
+     */
+    public static final int ITEM_SLOTS = Building.LANE_SLOTS;
+
+    /**
+     * Disposition des batiments decrits par les tableaux.
+     */
+    public BuildingLayout layout = BuildingLayout.EMPTY;
+
+    /**
+     * Numero de la derniere capture appliquee a cette instance (-1: jamais remplie).
+     */
+    long sequence = -1L;
+
+    /**
+     * Tick de simulation capture et instant (System.nanoTime) ou ce tick a eu lieu.
+     */
+    public long tick;
+    public long tickNanos;
+
+    /**
+     * Etat de culture des jardinieres (ordinal de PlanterCrop).
+     */
+    public byte[] planterCrops = new byte[0];
+    public boolean[] planterReady = new boolean[0];
+
+    /**
+     * Nombre d'items transportes par chaque batiment.
+     */
+    public byte[] itemCount = new byte[0];
+
+    /**
+     * Pour chaque item: culture, cote d'entree et avancement aux deux derniers ticks.
+     */
+    public byte[] itemCrops = new byte[0];
+    public byte[] itemEntryDirections = new byte[0];
+    public float[] itemPreviousProgress = new float[0];
+    public float[] itemProgress = new float[0];
+
+    /**
+     * Mesures du thread de simulation pour l'overlay de performance: duree du dernier pas
+     * (croissance des jardinieres, convoyeurs) et de la capture precedente, en nanosecondes,
+     * puis nombre de troncons de convoyeur et de troncons actifs.
+     */
+    public long planterNanos;
+    public long conveyorNanos;
+    public long captureNanos;
+    public int segmentCount;
+    public int activeSegmentCount;
+
+    /**
+     * Adopte une disposition et recopie l'etat de toutes ses lignes.
+     */
+    void captureAll(BuildingLayout layout, List<Building> buildings) {
+        this.layout = layout;
+        ensureCapacity(layout.count);
+        for (int row = 0; row < layout.count; row++) {
+            captureRow(row, buildings.get(row));
+        }
+    }
+
+    /**
+     * Recopie l'etat visible d'un batiment dans sa ligne.
+     */
+    void captureRow(int row, Building b) {
+        planterCrops[row] = (byte) b.getPlanterCrop().ordinal();
+        planterReady[row] = b.isPlanterReady();
+
+        int laneCount = Math.min(b.getLaneCount(), ITEM_SLOTS);
+        itemCount[row] = (byte) laneCount;
+        int first = row * ITEM_SLOTS;
+        for (int k = 0; k < laneCount; k++) {
+            int item = first + k;
+            itemCrops[item] = (byte) b.getLaneItem(k).ordinal();
+            itemEntryDirections[item] = (byte) b.getLaneEntryDirection(k);
+            itemPreviousProgress[item] = b.getLaneOffset(k, 0f);
+            itemProgress[item] = b.getLaneOffset(k);
+        }
+    }
+
+    /**
+     * Indice du k-ieme item de la ligne donnee.
+     */
+    public static int getItemIndex(int row, int k) {
+        return row * ITEM_SLOTS + k;
+    }
+
+    /**
+     * Avancement d'un item interpole entre les deux derniers ticks.
+     */
+    public float getItemProgress(int item, float alpha) {
+        float previous = itemPreviousProgress[item];
+        return previous + (itemProgress[item] - previous) * alpha;
+    }
+
+    /**
+     * Agrandit les tableaux pour contenir au moins n lignes.
+     */
+    private void ensureCapacity(int n) {
+        if (planterCrops.length >= n) return;
+        int capacity = Math.max(n, planterCrops.length + (planterCrops.length >> 1) + 16);
+
+        planterCrops = Arrays.copyOf(planterCrops, capacity);
+        planterReady = Arrays.copyOf(planterReady, capacity);
+        itemCount = Arrays.copyOf(itemCount, capacity);
+        itemCrops = Arrays.copyOf(itemCrops, capacity * ITEM_SLOTS);
+        itemEntryDirections = Arrays.copyOf(itemEntryDirections, capacity * ITEM_SLOTS);
+        itemPreviousProgress = Arrays.copyOf(itemPreviousProgress, capacity * ITEM_SLOTS);
+        itemProgress = Arrays.copyOf(itemProgress, capacity * ITEM_SLOTS);
+    }
+}
@@ -0,0 +1,104 @@
+package com.github.lxquaver.stardisfactory;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ecriture puis relecture d'un snapshot binaire.
+ */
+class BinarySaveFormatTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Terrain, joueur, jardiniere, voie de convoyeur et stock du QG se relisent a l'identique.
+     */
+    @Test
+    void roundTripsWorld() throws IOException {
+        FactoryEngine engine = new FactoryEngine();
+        engine.ensureCoreBuildings();
+        engine.getTerrainGrid().till(10, 10);
+        Building planter = new Building(Building.Type.PLANTER, 10, 10, 0);
+        engine.addBuilding(planter);
+        planter.plant(Building.PlanterCrop.STRAWBERRY);
+        Building conveyor = new Building(Building.Type.CONVEYOR_BELT, 20, 20, 1);
+        engine.addBuilding(conveyor);
+        conveyor.receiveItem(Building.PlanterCrop.LEEK, 3);
+        for (int i = 0; i < 30; i++) engine.step(1f / 60f);
+        for (Building b : engine.getBuildings()) {
+            if (b.isHQ()) b.addToHQStock(Building.PlanterCrop.POTATO, 12);
+        }
+
+        GameSave written = new GameSave();
+        written.generation = 42L;
+        written.savedAtMillis = 1234L;
+        written.money = 321;
+        written.playerX = 1.5f;
+        written.seedBagsLeek = 4;
+        engine.writeTo(written);
+        Path path = directory.resolve("save.bin");
+        BinarySaveFormat.write(written, path);
+        GameSave read = BinarySaveFormat.read(path);
+
+        assertEquals(42L, read.generation);
+        assertEquals(1234L, read.savedAtMillis);
+        assertEquals(written.simulationClock, read.simulationClock);
+        assertEquals(321, read.money);
+        assertEquals(1.5f, read.playerX);
+        assertEquals(4, read.seedBagsLeek);
+        assertEquals(written.terrainChunks.size(), read.terrainChunks.size());
+        assertArrayEquals(written.terrainChunks.get(0).cells, read.terrainChunks.get(0).cells);
+        assertEquals(written.buildings.size(), read.buildings.size());
+        for (int i = 0; i < written.buildings.size(); i++) {
+            GameSave.BuildingSave expected = written.buildings.get(i);
+            GameSave.BuildingSave actual = read.buildings.get(i);
+            assertEquals(expected.type, actual.type);
+            assertEquals(expected.x, actual.x);
+            assertEquals(expected.y, actual.y);
+            assertEquals(expected.rotation, actual.rotation);
+            assertEquals(expected.hqPotatoes, actual.hqPotatoes);
+            if (expected.type.equals("PLANTER")) {
+                assertEquals(expected.planterCrop, actual.planterCrop);
+                assertEquals(expected.plantedAt, actual.plantedAt);
+            }
+            if (expected.type.equals("CONVEYOR_BELT")) {
+                assertEquals(1, expected.laneItems.length);
+                assertArrayEquals(expected.laneItems, actual.laneItems);
+                assertArrayEquals(expected.laneAmounts, actual.laneAmounts);
+                assertArrayEquals(expected.laneOffsets, actual.laneOffsets);
+            }
+        }
+
+        FactoryEngine restored = new FactoryEngine();
+        assertTrue(restored.restore(read));
+        assertEquals(Terrain.Type.TILLED, restored.getTerrainGrid().getType(10, 10));
+        assertEquals(12, restored.getHQStock(Building.PlanterCrop.POTATO));
+        for (Building b : restored.getBuildings()) {
+            if (b.isPlanter()) assertEquals(planter.getGrowTimerSeconds(), b.getGrowTimerSeconds());
+        }
+    }
+
+    /**
+     * Un fichier d'une autre version est refuse plutot que mal interprete.
+     */
+    @Test
+    void rejectsOtherVersion() throws IOException {
+        Path path = directory.resolve("save.bin");
+        ByteBuffer header = ByteBuffer.allocate(6);
+        header.putInt(BinarySaveFormat.MAGIC).putShort((short) (BinarySaveFormat.VERSION + 1));
+        Files.write(path, header.array());
+
+        assertThrows(IOException.class, () -> BinarySaveFormat.read(path));
+    }
+}
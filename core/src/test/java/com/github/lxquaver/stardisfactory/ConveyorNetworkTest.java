@@ -0,0 +1,190 @@
+package com.github.lxquaver.stardisfactory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Transport par troncons: debit d'une ligne saturee, reconstruction, recolte et rattrapage hors ligne.
+ */
+class ConveyorNetworkTest {
+
+    private static final float STEP = 1f / SimulationClock.TICKS_PER_SECOND;
+    private static final int RIGHT = 1;
+    private static final int UP = 0;
+
+    /**
+     * Une ligne droite saturee livre au QG un item tous les ITEM_SPACING de case.
+     */
+    @Test
+    void saturatedRunDeliversAtLaneRate() {
+        FactoryEngine engine = new FactoryEngine();
+        Building hq = new Building(Building.Type.MAIN_HQ, 55, 55, 0);
+        engine.addBuilding(hq);
+        for (int x = 35; x < 55; x++) engine.addBuilding(saturated(x, 55, RIGHT));
+
+        int seconds = 10;
+        for (int i = 0; i < seconds * SimulationClock.TICKS_PER_SECOND; i++) engine.step(STEP);
+
+        // Tete a 1/8 de case de la sortie, puis un item tous les quarts de case: 40 items en 10 s.
+        int expected = (int) (seconds * Building.LANE_SLOTS / Building.TRANSPORT_TIME);
+        int delivered = hq.getHQStock(Building.PlanterCrop.POTATO);
+        assertTrue(Math.abs(delivered - expected) <= 1, "livres: " + delivered + ", attendus: " + expected);
+    }
+
+    /**
+     * Poser puis retirer une case au milieu d'une ligne chargee ne perd ni ne duplique d'item.
+     */
+    @Test
+    void rebuildAroundBulldozedTileKeepsItems() {
+        FactoryEngine engine = new FactoryEngine();
+        List<Building> tiles = new ArrayList<>();
+        for (int x = 10; x < 30; x++) {
+            if (x == 20) continue;
+            Building tile = saturated(x, 60, RIGHT);
+            engine.addBuilding(tile);
+            tiles.add(tile);
+        }
+        engine.step(STEP);
+        int before = countItems(tiles);
+
+        Building middle = new Building(Building.Type.CONVEYOR_BELT, 20, 60, RIGHT);
+        engine.addBuilding(middle);
+        for (int i = 0; i < 2 * SimulationClock.TICKS_PER_SECOND; i++) engine.step(STEP);
+        assertEquals(before, countItems(tiles) + countItems(List.of(middle)));
+
+        int removed = countItems(List.of(middle));
+        assertTrue(removed > 0);
+        engine.removeBuilding(middle);
+        for (int i = 0; i < 2 * SimulationClock.TICKS_PER_SECOND; i++) engine.step(STEP);
+
+        assertEquals(before, countItems(tiles) + removed);
+        for (Building tile : tiles) assertTrue(tile.getLaneCount() <= Building.LANE_SLOTS);
+    }
+
+    /**
+     * Tourner la derniere case d'une ligne vers le QG coupe la livraison au pas suivant.
+     */
+    @Test
+    void rotatingExitTileStopsDelivery() {
+        FactoryEngine engine = new FactoryEngine();
+        Building hq = new Building(Building.Type.MAIN_HQ, 55, 55, 0);
+        engine.addBuilding(hq);
+        Building exit = null;
+        for (int x = 45; x < 55; x++) {
+            exit = saturated(x, 55, RIGHT);
+            engine.addBuilding(exit);
+        }
+        for (int i = 0; i < SimulationClock.TICKS_PER_SECOND; i++) engine.step(STEP);
+        int delivered = hq.getHQStock(Building.PlanterCrop.POTATO);
+        assertTrue(delivered > 0);
+
+        engine.rotateBuilding(exit);
+        for (int i = 0; i < 2 * SimulationClock.TICKS_PER_SECOND; i++) engine.step(STEP);
+
+        assertEquals(delivered, hq.getHQStock(Building.PlanterCrop.POTATO));
+    }
+
+    /**
+     * Une jardiniere mure ne recolte que sur une case vide, meme si la voie a encore de la place.
+     */
+    @Test
+    void planterHandsOffOnlyToEmptyTile() {
+        FactoryEngine engine = new FactoryEngine();
+        Building blocked = ripePlanter(engine, 10, 11);
+        Building loaded = new Building(Building.Type.CONVEYOR_BELT, 10, 10, RIGHT);
+        loaded.receiveItem(Building.PlanterCrop.LEEK, 1);
+        engine.addBuilding(loaded);
+        Building free = ripePlanter(engine, 20, 11);
+        Building empty = new Building(Building.Type.CONVEYOR_BELT, 20, 10, RIGHT);
+        engine.addBuilding(empty);
+
+        for (int i = 0; i < SimulationClock.TICKS_PER_SECOND; i++) engine.step(STEP);
+
+        assertTrue(blocked.isPlanterReady());
+        assertEquals(1, loaded.getLaneCount());
+        assertTrue(free.isPlanterEmpty());
+        assertEquals(1, empty.getLaneCount());
+    }
+
+    /**
+     * Le rattrapage hors ligne donne le meme monde que la suite de ticks equivalente,
+     * pour un troncon independant (forme close) comme pour des troncons chaines (pas fixe).
+     */
+    @Test
+    void fastForwardMatchesRepeatedSteps() {
+        FactoryEngine stepped = buildFastForwardWorld();
+        FactoryEngine forwarded = buildFastForwardWorld();
+
+        int seconds = 3;
+        for (int i = 0; i < seconds * SimulationClock.TICKS_PER_SECOND; i++) stepped.step(STEP);
+        forwarded.fastForward(seconds, STEP);
+
+        assertEquals(stepped.getHQStock(Building.PlanterCrop.POTATO), forwarded.getHQStock(Building.PlanterCrop.POTATO));
+        List<Building> expected = stepped.getBuildings();
+        List<Building> actual = forwarded.getBuildings();
+        for (int i = 0; i < expected.size(); i++) {
+            Building a = expected.get(i);
+            Building b = actual.get(i);
+            assertEquals(a.getLaneCount(), b.getLaneCount());
+            for (int k = 0; k < a.getLaneCount(); k++) {
+                assertEquals(a.getLaneOffset(k), b.getLaneOffset(k), 1e-3f);
+            }
+        }
+    }
+
+    /**
+     * QG, ligne independante vers le QG (y = 56) et ligne coudee (x = 39 vers le haut, puis y = 55 vers le QG).
+     */
+    private static FactoryEngine buildFastForwardWorld() {
+        FactoryEngine engine = new FactoryEngine();
+        engine.addBuilding(new Building(Building.Type.MAIN_HQ, 55, 55, 0));
+        for (int x = 45; x < 55; x++) engine.addBuilding(saturated(x, 56, RIGHT));
+        for (int y = 50; y < 55; y++) engine.addBuilding(saturated(39, y, UP));
+        for (int x = 39; x < 55; x++) engine.addBuilding(new Building(Building.Type.CONVEYOR_BELT, x, 55, RIGHT));
+        return engine;
+    }
+
+    /**
+     * Jardiniere de pommes de terre deja mure, posee sur une case labouree.
+     */
+    private static Building ripePlanter(FactoryEngine engine, int x, int y) {
+        engine.getTerrainGrid().till(x, y);
+        Building planter = new Building(Building.Type.PLANTER, x, y, 0);
+        planter.setPlanterPlantedAt(Building.PlanterCrop.POTATO, -1000.0, true);
+        engine.addBuilding(planter);
+        return planter;
+    }
+
+    /**
+     * Convoyeur portant LANE_SLOTS pommes de terre espacees au minimum.
+     */
+    private static Building saturated(int x, int y, int rotation) {
+        Building tile = new Building(Building.Type.CONVEYOR_BELT, x, y, rotation);
+        Building.PlanterCrop[] items = new Building.PlanterCrop[Building.LANE_SLOTS];
+        int[] amounts = new int[Building.LANE_SLOTS];
+        float[] offsets = new float[Building.LANE_SLOTS];
+        for (int k = 0; k < Building.LANE_SLOTS; k++) {
+            items[k] = Building.PlanterCrop.POTATO;
+            amounts[k] = 1;
+            offsets[k] = 1f - (k + 0.5f) * Building.ITEM_SPACING;
+        }
+        tile.setLaneState(items, amounts, offsets);
+        return tile;
+    }
+
+    /**
+     * Quantite totale transportee par des convoyeurs.
+     */
+    private static int countItems(List<Building> tiles) {
+        int total = 0;
+        for (Building tile : tiles) {
+            for (int k = 0; k < tile.getLaneCount(); k++) total += tile.getLaneAmount(k);
+        }
+        return total;
+    }
+}
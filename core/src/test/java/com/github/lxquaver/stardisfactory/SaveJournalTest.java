@@ -0,0 +1,170 @@
+package com.github.lxquaver.stardisfactory;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ecriture puis relecture du journal de deltas, et journal d'une version inconnue.
+ */
+class SaveJournalTest {
+
+    private static final long GENERATION = 7L;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Les lots sont rejoues dans l'ordre: chunk remplace, batiment retire, meme ancre reecrite par le lot suivant.
+     */
+    @Test
+    void replaysBatchesInOrder() throws IOException {
+        Path journal = directory.resolve("save.journal");
+        SaveJournal.reset(journal, GENERATION);
+
+        SaveJournal.Delta first = new SaveJournal.Delta();
+        first.savedAtMillis = 1000L;
+        GameSave.TerrainChunkSave chunk = new GameSave.TerrainChunkSave();
+        chunk.x = -1;
+        chunk.y = 2;
+        chunk.cells = new byte[WorldChunks.CHUNK_CELLS];
+        chunk.cells[5] = (byte) Terrain.Type.TILLED.ordinal();
+        first.terrainChunks.add(chunk);
+        first.removedAnchors = new int[] {8, 9};
+        first.upserts.add(hq(10));
+        SaveJournal.append(journal, first);
+
+        SaveJournal.Delta second = new SaveJournal.Delta();
+        second.savedAtMillis = 2000L;
+        second.money = 75;
+        second.upserts.add(hq(25));
+        SaveJournal.append(journal, second);
+
+        GameSave save = emptySave();
+        save.buildings.add(hq(1));
+        GameSave.BuildingSave removed = hq(0);
+        removed.x = 8;
+        removed.y = 9;
+        save.buildings.add(removed);
+        GameSave.TerrainChunkSave oldChunk = new GameSave.TerrainChunkSave();
+        oldChunk.x = -1;
+        oldChunk.y = 2;
+        oldChunk.cells = new byte[WorldChunks.CHUNK_CELLS];
+        save.terrainChunks.add(oldChunk);
+
+        assertEquals(2, SaveJournal.replay(journal, save));
+        assertEquals(2000L, save.savedAtMillis);
+        assertEquals(75, save.money);
+        assertEquals(1, save.terrainChunks.size());
+        assertEquals(Terrain.Type.TILLED.ordinal(), save.terrainChunks.get(0).cells[5]);
+        assertEquals(1, save.buildings.size());
+        assertEquals(25, save.buildings.get(0).hqPotatoes);
+    }
+
+    /**
+     * Les enregistrements de batiments (ceux du snapshot) rendent les etats absolus ecrits.
+     */
+    @Test
+    void replaysBuildingRecords() throws IOException {
+        Path journal = directory.resolve("save.journal");
+        SaveJournal.reset(journal, GENERATION);
+
+        SaveJournal.Delta delta = new SaveJournal.Delta();
+        delta.money = 50;
+        delta.simulationClock = 120.0;
+        GameSave.BuildingSave planter = new GameSave.BuildingSave();
+        planter.type = "PLANTER";
+        planter.x = 1;
+        planter.y = 2;
+        planter.planterCrop = "LEEK";
+        planter.plantedAt = 95.5;
+        delta.upserts.add(planter);
+        GameSave.BuildingSave conveyor = new GameSave.BuildingSave();
+        conveyor.type = "CONVEYOR_BELT";
+        conveyor.x = 3;
+        conveyor.y = 4;
+        conveyor.rotation = 1;
+        conveyor.laneItems = new String[] {"POTATO", "STRAWBERRY"};
+        conveyor.laneAmounts = new int[] {2, 1};
+        conveyor.laneOffsets = new float[] {0.75f, 0.25f};
+        delta.upserts.add(conveyor);
+        SaveJournal.append(journal, delta);
+
+        GameSave save = emptySave();
+        assertEquals(1, SaveJournal.replay(journal, save));
+        assertEquals(50, save.money);
+        assertEquals(120.0, save.simulationClock);
+        assertEquals(2, save.buildings.size());
+        GameSave.BuildingSave readPlanter = save.buildings.get(0);
+        assertEquals("LEEK", readPlanter.planterCrop);
+        assertEquals(95.5, readPlanter.plantedAt);
+        GameSave.BuildingSave readConveyor = save.buildings.get(1);
+        assertEquals(1, readConveyor.rotation);
+        assertEquals("STRAWBERRY", readConveyor.laneItems[1]);
+        assertEquals(2, readConveyor.laneAmounts[0]);
+        assertEquals(0.25f, readConveyor.laneOffsets[1]);
+    }
+
+    /**
+     * Un journal d'une version inconnue n'est pas rejoue mais reste lisible a cote.
+     */
+    @Test
+    void keepsJournalOfUnknownVersion() throws IOException {
+        Path journal = directory.resolve("save.journal");
+        writeJournal(journal, (short) (SaveJournal.VERSION + 1), new byte[] {1, 2, 3});
+
+        GameSave save = emptySave();
+        assertEquals(0, SaveJournal.replay(journal, save));
+        Path kept = directory.resolve("save.journal.v" + (SaveJournal.VERSION + 1));
+        assertTrue(Files.exists(kept));
+        assertEquals(Files.size(journal), Files.size(kept));
+    }
+
+    /**
+     * Sauvegarde vide de la generation du journal.
+     */
+    private static GameSave emptySave() {
+        GameSave save = new GameSave();
+        save.generation = GENERATION;
+        save.savedAtMillis = 99L;
+        return save;
+    }
+
+    /**
+     * QG ancre en (1, 1) avec le stock de patates donne.
+     */
+    private static GameSave.BuildingSave hq(int potatoes) {
+        GameSave.BuildingSave bs = new GameSave.BuildingSave();
+        bs.type = "MAIN_HQ";
+        bs.x = 1;
+        bs.y = 1;
+        bs.hqPotatoes = potatoes;
+        return bs;
+    }
+
+    /**
+     * Ecrit un journal d'un seul lot derriere un en-tete de la version donnee (sans tables).
+     */
+    private static void writeJournal(Path journal, short version, byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(SaveJournal.MAGIC);
+        out.writeShort(version);
+        out.writeLong(GENERATION);
+        out.writeInt(payload.length);
+        out.writeInt((int) crc.getValue());
+        out.write(payload);
+        Files.write(journal, bytes.toByteArray());
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.lxquaver.stardisfactory;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Relecture des anciennes sauvegardes JSON (carte carree) jusqu'au monde restaure.
+ */
+class SaveSystemTest {
+
+    /**
+     * Batiments de l'ancien JSON: jardiniere a mi-croissance, convoyeur a un item, QG avec stock.
+     */
+    private static final String LEGACY_BUILDINGS = "buildings:["
+        + "{type:PLANTER,x:1,y:0,rotation:0,planterCrop:POTATO,growTimerSeconds:10,planterReady:false,"
+        + "heldItem:NONE,heldAmount:0,transportTimer:0,hqPotatoes:0,hqStrawberries:0,hqLeeks:0},"
+        + "{type:CONVEYOR_BELT,x:2,y:0,rotation:1,planterCrop:NONE,growTimerSeconds:0,planterReady:false,"
+        + "heldItem:STRAWBERRY,heldAmount:2,transportTimer:0.25,hqPotatoes:0,hqStrawberries:0,hqLeeks:0},"
+        + "{type:MAIN_HQ,x:55,y:55,rotation:0,planterCrop:NONE,growTimerSeconds:0,planterReady:false,"
+        + "heldItem:NONE,heldAmount:0,transportTimer:0,hqPotatoes:7,hqStrawberries:0,hqLeeks:3}"
+        + "]";
+
+    /**
+     * Terrain en ordinaux (plus ancien format), joueur et batiments.
+     */
+    @Test
+    void restoresLegacyJsonWithTerrainOrdinals() {
+        GameSave save = SaveSystem.readLegacyJson("{mapSize:2,mapOffset:50,terrainTypes:[0,2,0,2],"
+            + "playerX:3.5,playerY:-1,money:250,seedBagsPotato:6," + LEGACY_BUILDINGS + "}");
+
+        FactoryEngine engine = new FactoryEngine();
+        assertTrue(engine.restore(save));
+        assertEquals(250, save.money);
+        assertEquals(6, save.seedBagsPotato);
+        assertEquals(3.5f, save.playerX);
+        assertEquals(Terrain.Type.GRASS, engine.getTerrainGrid().getType(0, 0));
+        assertEquals(Terrain.Type.TILLED, engine.getTerrainGrid().getType(1, 0));
+        assertEquals(Terrain.Type.TILLED, engine.getTerrainGrid().getType(1, 1));
+        assertLegacyBuildings(engine);
+    }
+
+    /**
+     * Terrain en noms de Terrain.Type.
+     */
+    @Test
+    void restoresLegacyJsonWithTerrainNames() {
+        GameSave save = SaveSystem.readLegacyJson("{mapSize:2,mapOffset:50,"
+            + "terrainTypeNames:[GRASS,TILLED,TILLED,GRASS]," + LEGACY_BUILDINGS + "}");
+
+        FactoryEngine engine = new FactoryEngine();
+        assertTrue(engine.restore(save));
+        assertEquals(Terrain.Type.TILLED, engine.getTerrainGrid().getType(0, 1));
+        assertEquals(Terrain.Type.GRASS, engine.getTerrainGrid().getType(1, 1));
+        assertLegacyBuildings(engine);
+    }
+
+    /**
+     * Verifie l'etat des batiments de LEGACY_BUILDINGS une fois restaures.
+     */
+    private static void assertLegacyBuildings(FactoryEngine engine) {
+        int planters = 0;
+        int conveyors = 0;
+        for (Building b : engine.getBuildings()) {
+            if (b.isPlanter()) {
+                planters++;
+                assertEquals(Building.PlanterCrop.POTATO, b.getPlanterCrop());
+                assertEquals(10f, b.getGrowTimerSeconds(), 1e-4f);
+            } else if (b.isConveyor()) {
+                conveyors++;
+                assertEquals(1, b.getRotation());
+                assertEquals(Building.PlanterCrop.STRAWBERRY, b.getHeldItem());
+                assertEquals(2, b.getHeldAmount());
+            }
+        }
+        assertEquals(1, planters);
+        assertEquals(1, conveyors);
+        assertEquals(7, engine.getHQStock(Building.PlanterCrop.POTATO));
+        assertEquals(3, engine.getHQStock(Building.PlanterCrop.LEEK));
+    }
+}
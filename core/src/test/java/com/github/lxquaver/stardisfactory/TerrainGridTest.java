@@ -0,0 +1,81 @@
+package com.github.lxquaver.stardisfactory;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Terrain modifie puis decharge: le journal doit garder la derniere version des cases.
+ */
+class TerrainGridTest {
+
+    private static final int X = 5;
+    private static final int Y = 5;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Laboure, sauvegarde, remet en herbe, s'eloigne (chunk decharge), sauvegarde puis recharge.
+     */
+    @Test
+    void clearedChunkEvictedAsGrassStaysClearedAfterReload() throws IOException {
+        GameSave reloaded = saveTillClearAndEvict(true);
+
+        FactoryEngine engine = new FactoryEngine();
+        assertTrue(engine.restore(reloaded));
+        assertEquals(Terrain.Type.GRASS, engine.getTerrainGrid().getType(X, Y));
+    }
+
+    /**
+     * Meme parcours sans remise en herbe: le chunk decharge sur disque est relu pour le journal.
+     */
+    @Test
+    void tilledChunkEvictedToDiskStaysTilledAfterReload() throws IOException {
+        GameSave reloaded = saveTillClearAndEvict(false);
+
+        FactoryEngine engine = new FactoryEngine();
+        assertTrue(engine.restore(reloaded));
+        assertEquals(Terrain.Type.TILLED, engine.getTerrainGrid().getType(X, Y));
+    }
+
+    /**
+     * Joue le scenario sur un vrai snapshot et un vrai journal. La case voisine est toujours remise
+     * en herbe (le chunk est donc modifie); (X, Y) ne l'est que si clearTarget.
+     */
+    private GameSave saveTillClearAndEvict(boolean clearTarget) throws IOException {
+        Path target = directory.resolve("save.bin");
+        Path journal = SaveSystem.getJournalPath(target);
+        FactoryEngine engine = new FactoryEngine();
+        TerrainGrid terrain = engine.getTerrainGrid();
+        terrain.setSwapDirectory(directory.resolve("chunks"));
+
+        assertTrue(terrain.till(X, Y));
+        assertTrue(terrain.till(X + 1, Y));
+        GameSave save = new GameSave();
+        engine.writeTo(save);
+        assertTrue(SaveSystem.save(save, target, journal) >= 0L);
+
+        if (clearTarget) assertTrue(terrain.clear(X, Y));
+        assertTrue(terrain.clear(X + 1, Y));
+
+        // Le joueur part loin: le chunk de (X, Y) quitte la memoire.
+        terrain.unloadOutside(100, 100, 101, 101);
+        assertEquals(0, terrain.getLoadedChunkCount());
+
+        SaveJournal.Delta delta = new SaveJournal.Delta();
+        delta.terrainChunks = terrain.collectDirtyChunks();
+        assertEquals(1, delta.terrainChunks.size());
+        SaveJournal.append(journal, delta);
+
+        GameSave reloaded = SaveSystem.load(target, journal);
+        assertNotNull(reloaded);
+        return reloaded;
+    }
+}
@@ -0,0 +1,120 @@
+package com.github.lxquaver.stardisfactory.lwjgl3;
+
+import com.github.lxquaver.stardisfactory.Building;
+import com.github.lxquaver.stardisfactory.FactoryEngine;
+import com.github.lxquaver.stardisfactory.GameSave;
+import com.github.lxquaver.stardisfactory.SaveSystem;
+import com.github.lxquaver.stardisfactory.SimulationClock;
+import com.github.lxquaver.stardisfactory.StressWorldGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Point d'entree sans fenetre (simulation seule).
+ *
+ * Charge une sauvegarde, execute N ticks le plus vite possible puis affiche
+ * le debit de simulation et le stock du QG. Sert au profilage et aux tests de
+ * non-regression de debit sur une machine sans affichage.
+ *
+ * Le mode --generate ecrit un monde de stress reproductible
+ * ({@link StressWorldGenerator}) au lieu de simuler; la sauvegarde produite
+ * se relit ensuite avec ce lanceur ou dans le jeu.
+ *
+ * Usage: HeadlessLauncher [sauvegarde.bin] [ticks]
+ *        HeadlessLauncher --generate sortie.bin [LINES|MERGES|SPAGHETTI] [jardinieres] [graine] [CENTER|SPREAD]
+ */
+public class HeadlessLauncher {
+
+    /**
+     * Nombre de ticks executes par defaut.
+     */
+    private static final int DEFAULT_TICKS = 100_000;
+
+    /**
+     * Charge la sauvegarde, simule puis affiche les resultats.
+     */
+    public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--generate")) {
+            generate(args);
+            return;
+        }
+
+        Path savePath = args.length > 0
+            ? Paths.get(args[0])
+            : Paths.get(System.getProperty("user.home"), ".stardisfactory", "savegame.bin");
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_TICKS;
+
+        GameSave save = SaveSystem.load(savePath, SaveSystem.getJournalPath(savePath));
+        if (save == null) {
+            System.out.println("Sauvegarde introuvable ou illisible: " + savePath);
+            System.exit(1);
+            return;
+        }
+
+        FactoryEngine engine = new FactoryEngine();
+        if (!engine.restore(save)) {
+            System.out.println("Sauvegarde incompatible: " + savePath);
+            System.exit(1);
+            return;
+        }
+
+        MetricsExporter metrics = MetricsExporter.startFromSystemProperties();
+        float step = 1f / SimulationClock.TICKS_PER_SECOND;
+        long start = System.nanoTime();
+        for (int i = 0; i < ticks; i++) {
+            engine.step(step);
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        if (metrics != null) metrics.stop();
+
+        System.out.println("Batiments: " + engine.getBuildings().size()
+            + ", convoyeurs: " + engine.getConveyorNetwork().getConveyorCount()
+            + ", troncons: " + engine.getConveyorNetwork().getSegmentCount());
+        System.out.printf("Ticks: %d en %.3f s (%.0f ticks/s, x%.1f temps reel)%n",
+            ticks, seconds, ticks / seconds, ticks * step / seconds);
+        for (Building.PlanterCrop crop : Building.PlanterCrop.values()) {
+            if (crop == Building.PlanterCrop.NONE) continue;
+            System.out.println("Stock QG " + crop.name() + ": " + engine.getHQStock(crop));
+        }
+    }
+
+    /**
+     * Genere un monde de stress et l'ecrit sur le chemin donne.
+     */
+    private static void generate(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: --generate sortie.bin [LINES|MERGES|SPAGHETTI] [jardinieres] [graine] [CENTER|SPREAD]");
+            System.exit(1);
+            return;
+        }
+        Path target = Paths.get(args[1]);
+        StressWorldGenerator.Settings settings = new StressWorldGenerator.Settings();
+        if (args.length > 2) settings.topology = StressWorldGenerator.Topology.valueOf(args[2].toUpperCase());
+        if (args.length > 3) settings.planterCount = Integer.parseInt(args[3]);
+        if (args.length > 4) settings.seed = Long.parseLong(args[4]);
+        if (args.length > 5) settings.hqPlacement = StressWorldGenerator.HqPlacement.valueOf(args[5].toUpperCase());
+
+        long start = System.nanoTime();
+        GameSave save = StressWorldGenerator.generate(settings);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        try {
+            Path parent = target.toAbsolutePath().getParent();
+            if (parent != null) Files.createDirectories(parent);
+        } catch (IOException e) {
+            System.out.println("Erreur creation dossier: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        long size = SaveSystem.save(save, target, SaveSystem.getJournalPath(target));
+        if (size < 0) {
+            System.exit(1);
+            return;
+        }
+        System.out.printf("Monde %s (graine %d): %d batiments generes en %.3f s, %d octets ecrits dans %s%n",
+            settings.topology.name(), settings.seed, save.buildings.size(), seconds, size, target);
+    }
+}
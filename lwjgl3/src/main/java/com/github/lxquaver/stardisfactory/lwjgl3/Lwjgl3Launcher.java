@@ -16,7 +16,9 @@ public class Lwjgl3Launcher {
      */
     public static void main(String[] args) {
         if (StartupHelper.startNewJvmIfRequired()) return;
+        MetricsExporter metrics = MetricsExporter.startFromSystemProperties();
         createApplication();
+        if (metrics != null) metrics.stop();
     }
 
     /**
@@ -0,0 +1,254 @@
+package com.github.lxquaver.stardisfactory.lwjgl3;
+
+import com.github.lxquaver.stardisfactory.Telemetry;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Export optionnel des compteurs de {@link Telemetry} pour les longues sessions.
+ *
+ * Active par proprietes systeme, rien n'est ouvert sinon:
+ * <ul>
+ *     <li>stardisfactory.metrics.port: sert /metrics au format texte Prometheus,
+ *     sur l'interface locale uniquement;</li>
+ *     <li>stardisfactory.metrics.file: ajoute une ligne JSON par intervalle;</li>
+ *     <li>stardisfactory.metrics.interval: intervalle d'echantillonnage en secondes (10 par defaut).</li>
+ * </ul>
+ * Les debits (ticks/s, items livres au QG/s, octets alloues/s) sont calcules
+ * sur le dernier intervalle; l'allocation est celle des threads vivants
+ * (ThreadMXBean de HotSpot), -1 si la JVM ne la mesure pas.
+ */
+public class MetricsExporter {
+
+    private static final String PORT_PROPERTY = "stardisfactory.metrics.port";
+    private static final String FILE_PROPERTY = "stardisfactory.metrics.file";
+    private static final String INTERVAL_PROPERTY = "stardisfactory.metrics.interval";
+    private static final int DEFAULT_INTERVAL_SECONDS = 10;
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    private final Path file;
+    private final HttpServer server;
+    private final ScheduledExecutorService sampler;
+    private final com.sun.management.ThreadMXBean allocations;
+
+    private long lastNanos;
+    private long lastTicks;
+    private long lastDelivered;
+    private long lastAllocated;
+
+    /**
+     * Debits du dernier intervalle, lus par le thread HTTP.
+     */
+    private volatile double ticksPerSecond;
+    private volatile double deliveredPerSecond;
+    private volatile double allocatedBytesPerSecond;
+
+    /**
+     * Demarre l'echantillonnage et les sorties demandees (port 0 ou negatif: pas de HTTP; file null: pas de fichier).
+     */
+    private MetricsExporter(int port, Path file, int intervalSeconds) throws IOException {
+        this.file = file;
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+            allocations = (com.sun.management.ThreadMXBean) threads;
+            allocations.setThreadAllocatedMemoryEnabled(true);
+        } else {
+            allocations = null;
+        }
+
+        lastNanos = System.nanoTime();
+        lastTicks = Telemetry.getTicks();
+        lastDelivered = Telemetry.getItemsDelivered();
+        lastAllocated = getAllocatedBytes();
+
+        if (port > 0) {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+            server.createContext("/metrics", exchange -> {
+                byte[] body = formatPrometheus().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.start();
+            System.out.println("Metriques: http://" + server.getAddress().getHostString() + ":" + port + "/metrics");
+        } else {
+            server = null;
+        }
+
+        sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stardisfactory-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleAtFixedRate(this::sample, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Demarre l'export si une des proprietes systeme est definie.
+     *
+     * @return l'export demarre, ou null s'il n'est pas demande ou n'a pas pu demarrer.
+     */
+    public static MetricsExporter startFromSystemProperties() {
+        String port = System.getProperty(PORT_PROPERTY);
+        String file = System.getProperty(FILE_PROPERTY);
+        if (port == null && file == null) return null;
+        try {
+            int interval = Math.max(1, Integer.getInteger(INTERVAL_PROPERTY, DEFAULT_INTERVAL_SECONDS));
+            return new MetricsExporter(port == null ? 0 : Integer.parseInt(port), file == null ? null : Paths.get(file), interval);
+        } catch (IOException | NumberFormatException e) {
+            System.out.println("Export des metriques impossible: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Prend un dernier echantillon puis arrete le serveur et l'echantillonnage.
+     */
+    public void stop() {
+        sampler.shutdownNow();
+        sample();
+        if (server != null) server.stop(0);
+    }
+
+    /**
+     * Calcule les debits depuis l'echantillon precedent et ajoute la ligne au fichier s'il est configure.
+     */
+    private synchronized void sample() {
+        long now = System.nanoTime();
+        double seconds = (now - lastNanos) / NANOS_PER_SECOND;
+        if (seconds <= 0.0) return;
+        long ticks = Telemetry.getTicks();
+        long delivered = Telemetry.getItemsDelivered();
+        long allocated = getAllocatedBytes();
+
+        ticksPerSecond = (ticks - lastTicks) / seconds;
+        deliveredPerSecond = (delivered - lastDelivered) / seconds;
+        allocatedBytesPerSecond = allocated < 0L ? -1.0 : Math.max(0L, allocated - lastAllocated) / seconds;
+        lastNanos = now;
+        lastTicks = ticks;
+        lastDelivered = delivered;
+        lastAllocated = allocated;
+
+        if (file != null) appendLine();
+    }
+
+    /**
+     * Ajoute l'echantillon courant au fichier, en une ligne JSON.
+     */
+    private void appendLine() {
+        Telemetry.Histogram ticks = Telemetry.getTickDurations();
+        Telemetry.Histogram saves = Telemetry.getSaveDurations();
+        String line = "{\"time\":" + System.currentTimeMillis()
+            + ",\"ticks\":" + Telemetry.getTicks()
+            + ",\"ticksPerSecond\":" + round(ticksPerSecond)
+            + ",\"itemsDelivered\":" + Telemetry.getItemsDelivered()
+            + ",\"itemsDeliveredPerSecond\":" + round(deliveredPerSecond)
+            + ",\"harvests\":" + Telemetry.getHarvests()
+            + ",\"itemsSold\":" + Telemetry.getItemsSold()
+            + ",\"tickP50Micros\":" + ticks.getPercentileNanos(0.50) / 1000L
+            + ",\"tickP99Micros\":" + ticks.getPercentileNanos(0.99) / 1000L
+            + ",\"saves\":" + saves.getCount()
+            + ",\"saveFailures\":" + Telemetry.getSaveFailures()
+            + ",\"saveP99Millis\":" + saves.getPercentileNanos(0.99) / 1_000_000L
+            + ",\"allocatedBytesPerSecond\":" + round(allocatedBytesPerSecond)
+            + "}\n";
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) Files.createDirectories(parent);
+            Files.write(file, line.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.out.println("Erreur ecriture metriques: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Formate compteurs, debits et histogrammes au format texte Prometheus.
+     */
+    private String formatPrometheus() {
+        StringBuilder out = new StringBuilder();
+        appendCounter(out, "stardisfactory_ticks_total", "Pas de simulation executes.", Telemetry.getTicks());
+        appendCounter(out, "stardisfactory_items_delivered_total", "Items deposes dans les QG par les convoyeurs.", Telemetry.getItemsDelivered());
+        appendCounter(out, "stardisfactory_harvests_total", "Recoltes de jardinieres.", Telemetry.getHarvests());
+        appendCounter(out, "stardisfactory_items_sold_total", "Items vendus depuis les QG.", Telemetry.getItemsSold());
+        appendCounter(out, "stardisfactory_save_failures_total", "Ecritures de sauvegarde en echec.", Telemetry.getSaveFailures());
+        appendGauge(out, "stardisfactory_ticks_per_second", "Ticks par seconde sur le dernier intervalle.", ticksPerSecond);
+        appendGauge(out, "stardisfactory_items_delivered_per_second", "Items livres au QG par seconde sur le dernier intervalle.", deliveredPerSecond);
+        appendGauge(out, "stardisfactory_allocated_bytes_per_second", "Octets alloues par seconde (threads vivants, -1 si indisponible).", allocatedBytesPerSecond);
+        appendHistogram(out, "stardisfactory_tick_duration_seconds", "Duree d'un pas de simulation.", Telemetry.getTickDurations());
+        appendHistogram(out, "stardisfactory_save_duration_seconds", "Duree d'une ecriture de sauvegarde (snapshot ou journal).", Telemetry.getSaveDurations());
+        appendHistogram(out, "stardisfactory_load_duration_seconds", "Duree d'un chargement.", Telemetry.getLoadDurations());
+        return out.toString();
+    }
+
+    /**
+     * Ajoute un compteur Prometheus.
+     */
+    private static void appendCounter(StringBuilder out, String name, String help, long value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" counter\n");
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    /**
+     * Ajoute une jauge Prometheus.
+     */
+    private static void appendGauge(StringBuilder out, String name, String help, double value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" gauge\n");
+        out.append(name).append(' ').append(round(value)).append('\n');
+    }
+
+    /**
+     * Ajoute un histogramme Prometheus (seaux cumules, bornes en secondes).
+     */
+    private static void appendHistogram(StringBuilder out, String name, String help, Telemetry.Histogram histogram) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" histogram\n");
+        long cumulative = 0L;
+        for (int b = 0; b < Telemetry.Histogram.BUCKETS - 1; b++) {
+            cumulative += histogram.getBucketCount(b);
+            out.append(name).append("_bucket{le=\"").append(Telemetry.Histogram.getBucketUpperNanos(b) / NANOS_PER_SECOND)
+                .append("\"} ").append(cumulative).append('\n');
+        }
+        // Lu apres les seaux: un enregistrement concurrent ne doit pas rendre +Inf inferieur au dernier seau.
+        long count = Math.max(histogram.getCount(), cumulative + histogram.getBucketCount(Telemetry.Histogram.BUCKETS - 1));
+        out.append(name).append("_bucket{le=\"+Inf\"} ").append(count).append('\n');
+        out.append(name).append("_sum ").append(histogram.getSumNanos() / NANOS_PER_SECOND).append('\n');
+        out.append(name).append("_count ").append(count).append('\n');
+    }
+
+    /**
+     * Octets alloues par les threads vivants, -1 si la JVM ne les mesure pas.
+     */
+    private long getAllocatedBytes() {
+        if (allocations == null) return -1L;
+        long total = 0L;
+        for (long bytes : allocations.getThreadAllocatedBytes(allocations.getAllThreadIds())) {
+            if (bytes > 0L) total += bytes;
+        }
+        return total;
+    }
+
+    /**
+     * Arrondit un debit au centieme pour l'affichage.
+     */
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+}